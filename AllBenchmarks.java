@@ -0,0 +1,58 @@
+package benchmarks;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>{@link AllBenchmarks} is the entry point of the benchmark suite. Without arguments it runs every suite; with
+ * arguments it runs only the named ones, out of {@code pqueue}, {@code empty}, {@code timers}, {@code phonebook},
+ * {@code numbers}, {@code batch}, {@code hashing}, {@code ordered}, {@code tombstones}, {@code trees} and
+ * {@code spatial}. For a reproducible baseline, run it on an otherwise idle machine with a fixed heap, e.g.
+ * {@code java -Xms4g -Xmx4g -XX:+UseParallelGC benchmarks.AllBenchmarks}.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see BenchmarkHarness
+ */
+public class AllBenchmarks {
+
+	public static void main(String[] args) throws Exception {
+		List<String> suites = Arrays.asList(args);
+		boolean all = suites.isEmpty();
+		BenchmarkHarness h = new BenchmarkHarness();
+		h.header();
+		if (all || suites.contains("pqueue")) {
+			PriorityQueueBenchmark.run(h);
+		}
+		if (all || suites.contains("empty")) {
+			EmptyQueueBenchmark.run(h);
+		}
+		if (all || suites.contains("timers")) {
+			TimingWheelBenchmark.run(h);
+		}
+		if (all || suites.contains("phonebook")) {
+			PhonebookBenchmark.run(h);
+		}
+		if (all || suites.contains("numbers")) {
+			PackedNumbersBenchmark.run(h);
+		}
+		if (all || suites.contains("batch")) {
+			BatchLookupBenchmark.run(h);
+		}
+		if (all || suites.contains("hashing")) {
+			HashStrategyBenchmark.run(h);
+		}
+		if (all || suites.contains("ordered")) {
+			OrderedIndexBenchmark.run(h);
+		}
+		if (all || suites.contains("tombstones")) {
+			CompactionBenchmark.run(h);
+		}
+		if (all || suites.contains("trees")) {
+			TreeBenchmark.run(h);
+		}
+		if (all || suites.contains("spatial")) {
+			SpatialBenchmark.run(h);
+		}
+	}
+}
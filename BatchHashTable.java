@@ -0,0 +1,37 @@
+package phonebook.hashes;
+
+/**
+ * <p>{@link BatchHashTable} is a {@link HashTable} that can also look up and insert whole batches of keys at once.
+ * A batch lookup hashes a group of keys first and issues the first memory access of every probe sequence of the
+ * group before following any of them, so that the cache misses of independent lookups overlap instead of taking
+ * turns. A batch insertion grows the table once, up front, to the size that the whole batch needs.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see phonebook.Phonebook#getOwnersOf(String[], String[])
+ * @see phonebook.Phonebook#addEntries(String[], String[])
+ */
+public interface BatchHashTable extends HashTable {
+
+    /**
+     * The number of lookups whose probe sequences are interleaved.
+     */
+    int GROUP = 16;
+
+    /**
+     * Looks up the first n keys of keys, in the order of {@link #get(String)}.
+     * @param keys The keys to look up. {@code null} keys are allowed, and never found.
+     * @param values Receives, at index i, the value of keys[i], or {@code null} if keys[i] is not in the table.
+     * @param n The number of keys to look up.
+     */
+    void getAll(String[] keys, String[] values, int n);
+
+    /**
+     * Inserts the first n pairs of keys and values, in order, as n calls to {@link #put(String, String)} would.
+     * @param keys The keys to insert.
+     * @param values The values to insert, values[i] being the value of keys[i].
+     * @param n The number of pairs to insert.
+     * @throws IllegalArgumentException If one of the keys or values is {@code null}. No pair is inserted then.
+     */
+    void putAll(String[] keys, String[] values, int n);
+}
@@ -0,0 +1,118 @@
+package benchmarks;
+
+import phonebook.Phonebook;
+import phonebook.hashes.BatchHashTable;
+import phonebook.hashes.CollisionResolver;
+
+import java.util.Random;
+
+/**
+ * <p>{@link BatchLookupBenchmark} compares resolving a batch of {@value #BATCH} phone numbers one
+ * {@link Phonebook#getOwnerOf(String) getOwnerOf} at a time against a single
+ * {@link Phonebook#getOwnersOf(String[], String[]) getOwnersOf}, for the {@link CollisionResolver}s whose tables
+ * are {@link BatchHashTable}s. Tables range from cache-resident to far larger than the last-level cache, where
+ * overlapping the cache misses of the batch pays off. It also compares filling a {@link Phonebook} with
+ * {@link Phonebook#addEntry(String, String) addEntry} and with {@link Phonebook#addEntries(String[], String[])
+ * addEntries}. An operation is one whole batch.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see BenchmarkHarness
+ * @see BatchHashTable
+ */
+public class BatchLookupBenchmark {
+
+	private static final int BATCH = 10_000;
+	private static final int BATCHES = 50;
+	private static final int[] SIZES = {10_000, 4_000_000};
+	private static final CollisionResolver[] RESOLVERS = {CollisionResolver.ROBIN_HOOD, CollisionResolver.SWISS_TABLE,
+			CollisionResolver.PACKED_NUMBERS};
+
+	/* PACKED_NUMBERS only keys numbers; its phonebooks key names by Robin Hood. */
+	private static CollisionResolver byName(CollisionResolver resolver) {
+		return (resolver == CollisionResolver.PACKED_NUMBERS) ? CollisionResolver.ROBIN_HOOD : resolver;
+	}
+
+	public static void run(final BenchmarkHarness h) throws Exception {
+		for (final int n : SIZES) {
+			final String[] names = new String[n];
+			final String[] numbers = new String[n];
+			for (int i = 0; i < n; i ++) {
+				names[i] = PhonebookBenchmark.name(i);
+				numbers[i] = PhonebookBenchmark.number(i);
+			}
+			final String[][] batches = new String[BATCHES][BATCH];
+			Random r = new Random(17);
+			for (String[] batch : batches) {
+				for (int i = 0; i < BATCH; i ++) {
+					batch[i] = PhonebookBenchmark.number(r.nextInt(n + n / 8));	// About 1 in 9 misses.
+				}
+			}
+
+			for (final CollisionResolver resolver : RESOLVERS) {
+				final CollisionResolver byName = byName(resolver);
+				final Phonebook pb = new Phonebook(byName, resolver);
+				pb.addEntries(names, numbers);
+				final String[] owners = new String[BATCH];
+				String label = String.format("batch %s n=%d", resolver, n);
+
+				h.run(label + " getOwnerOf x" + BATCH, new BenchmarkHarness.Workload() {
+					public int operations() {
+						return BATCHES;
+					}
+
+					public void op(int i) {
+						String[] batch = batches[i];
+						for (int k = 0; k < BATCH; k ++) {
+							owners[k] = pb.getOwnerOf(batch[k]);
+						}
+						h.consume(owners[BATCH - 1] == null ? 0 : 1);
+					}
+				});
+
+				h.run(label + " getOwnersOf", new BenchmarkHarness.Workload() {
+					public int operations() {
+						return BATCHES;
+					}
+
+					public void op(int i) {
+						pb.getOwnersOf(batches[i], owners);
+						h.consume(owners[BATCH - 1] == null ? 0 : 1);
+					}
+				});
+
+				h.run(label + " addEntry x" + n, new BenchmarkHarness.Workload() {
+					public int operations() {
+						return 1;
+					}
+
+					public void op(int i) {
+						Phonebook fresh = new Phonebook(byName, resolver);
+						for (int k = 0; k < n; k ++) {
+							fresh.addEntry(names[k], numbers[k]);
+						}
+						h.consume(fresh.size());
+					}
+				});
+
+				h.run(label + " addEntries", new BenchmarkHarness.Workload() {
+					public int operations() {
+						return 1;
+					}
+
+					public void op(int i) {
+						Phonebook fresh = new Phonebook(byName, resolver);
+						fresh.addEntries(names, numbers);
+						h.consume(fresh.size());
+					}
+				});
+			}
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		BenchmarkHarness h = new BenchmarkHarness();
+		h.header();
+		run(h);
+	}
+}
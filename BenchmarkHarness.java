@@ -0,0 +1,166 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * <p>{@link BenchmarkHarness} is the small measuring loop shared by the benchmarks of this package. A
+ * {@link Workload} is run for a number of warm-up iterations and then for a number of measured iterations. Every
+ * iteration starts with an untimed {@link Workload#setUp()} and then times each of its operations individually,
+ * which gives us three numbers per workload:</p>
+ *
+ * <ul>
+ *     <li><b>ops/s</b>: operations per second over the measured iterations;</li>
+ *     <li><b>B/op</b>: bytes allocated by the benchmark thread per operation, as reported by HotSpot's
+ *     {@code com.sun.management.ThreadMXBean} (shown as {@code n/a} on JVMs without it);</li>
+ *     <li><b>p50 / p99</b>: the median and 99th percentile latency of a single operation, in nanoseconds.</li>
+ * </ul>
+ *
+ * <p>Timing every operation adds a few tens of nanoseconds of {@link System#nanoTime()} overhead to each, so
+ * ops/s of very cheap operations should be compared between structures rather than read in absolute terms.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see AllBenchmarks
+ */
+public final class BenchmarkHarness {
+
+	/**
+	 * A parameterized unit of work: {@link #operations()} calls to {@link #op(int)} per iteration.
+	 */
+	public abstract static class Workload {
+
+		/**
+		 * Returns the number of operations in one iteration.
+		 * @return The number of times {@link #op(int)} is called per iteration.
+		 */
+		public abstract int operations();
+
+		/**
+		 * Prepares one iteration. Not timed.
+		 * @throws Exception if the workload cannot be set up.
+		 */
+		public void setUp() throws Exception {
+		}
+
+		/**
+		 * Runs one timed operation.
+		 * @param i The index of the operation within the iteration, in {@code [0, operations())}.
+		 * @throws Exception if the operation fails, which aborts the benchmark.
+		 */
+		public abstract void op(int i) throws Exception;
+	}
+
+	private static final java.lang.management.ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+	/* com.sun.management.ThreadMXBean#getCurrentThreadAllocatedBytes(), or null before JDK 14 and on other JVMs. */
+	private static final MethodHandle CURRENT_THREAD_ALLOCATED_BYTES = currentThreadAllocatedBytes();
+
+	private final int warmups, iterations;
+	private long sink;
+
+	/**
+	 * Creates a harness with the provided iteration counts.
+	 * @param warmups The number of untimed warm-up iterations per workload.
+	 * @param iterations The number of measured iterations per workload.
+	 */
+	public BenchmarkHarness(int warmups, int iterations) {
+		this.warmups = warmups;
+		this.iterations = iterations;
+	}
+
+	/**
+	 * Creates a harness with 3 warm-up and 5 measured iterations.
+	 */
+	public BenchmarkHarness() {
+		this(3, 5);
+	}
+
+	/**
+	 * Prints the column headers of {@link #run(String, Workload)}.
+	 */
+	public void header() {
+		System.out.printf("%-58s %14s %10s %10s %10s%n", "benchmark", "ops/s", "B/op", "p50 ns", "p99 ns");
+	}
+
+	/**
+	 * Lets benchmarks hand over results that the JIT must not treat as dead code.
+	 * @param value Any value computed by a benchmark.
+	 */
+	public void consume(long value) {
+		sink += value;
+	}
+
+	private static MethodHandle currentThreadAllocatedBytes() {
+		if (!(THREADS instanceof com.sun.management.ThreadMXBean)) {
+			return null;
+		}
+		try {
+			return MethodHandles.publicLookup().findVirtual(com.sun.management.ThreadMXBean.class,
+					"getCurrentThreadAllocatedBytes", MethodType.methodType(long.class));
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+	/* Bytes allocated so far by the calling thread, or -1 if the JVM does not tell. Thread#getId() is deprecated
+	 * from JDK 19 on, but the fallback that calls it only runs before JDK 14. */
+	@SuppressWarnings("deprecation")
+	private static long allocatedBytes() {
+		if (!(THREADS instanceof com.sun.management.ThreadMXBean)) {
+			return -1;
+		}
+		com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) THREADS;
+		if (CURRENT_THREAD_ALLOCATED_BYTES != null) {
+			try {
+				return (long) CURRENT_THREAD_ALLOCATED_BYTES.invokeExact(bean);
+			} catch (Throwable e) {
+				return -1;
+			}
+		}
+		return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * Runs and reports the provided workload.
+	 * @param name The label printed in the first column.
+	 * @param w The workload to measure.
+	 * @throws Exception if the workload throws.
+	 */
+	public void run(String name, Workload w) throws Exception {
+		int ops = w.operations();
+		for (int it = 0; it < warmups; it ++) {
+			w.setUp();
+			for (int i = 0; i < ops; i ++) {
+				w.op(i);
+			}
+		}
+
+		long[] latencies = new long[ops * iterations];
+		long elapsed = 0, allocated = 0;
+		int k = 0;
+		for (int it = 0; it < iterations; it ++) {
+			w.setUp();
+			long bytesBefore = allocatedBytes();
+			long start = System.nanoTime();
+			for (int i = 0; i < ops; i ++) {
+				long t0 = System.nanoTime();
+				w.op(i);
+				latencies[k ++] = System.nanoTime() - t0;
+			}
+			elapsed += System.nanoTime() - start;
+			allocated += allocatedBytes() - bytesBefore;
+		}
+
+		Arrays.sort(latencies);
+		double opsPerSec = latencies.length / (elapsed / 1e9);
+		String bytesPerOp = (allocatedBytes() < 0) ? "n/a" : String.format("%.1f", (double) allocated / latencies.length);
+		System.out.printf("%-58s %14.0f %10s %10d %10d%n", name, opsPerSec, bytesPerOp,
+				latencies[latencies.length / 2], latencies[(int) (latencies.length * 0.99)]);
+		if (sink == 42) {
+			System.out.print("");	// Keeps sink observable.
+		}
+	}
+}
@@ -0,0 +1,240 @@
+package phonebook.hashes;
+
+import java.util.Arrays;
+
+/**
+ * <p>{@link BidirectionalHashIndex} is a one-to-one map between names and phone numbers that stores every entry
+ * <b>once</b>. Entries live in an <em>arena</em> of parallel arrays (name, number, and the cached hash of each),
+ * and each direction is an open-addressed table of {@code int} indices into the arena, with linear probing.
+ * Compared to two independent {@link HashTable}s, an entry costs two references, two cached hashes and two index
+ * slots instead of two key/value node objects, and a lookup compares cached hashes before touching a
+ * {@link String}.</p>
+ *
+ * <p>Deletions leave no tombstones: the index slots are removed by backward shift, and the last arena entry is
+ * moved into the freed arena slot, so the arena stays dense.</p>
+ *
+ * <p>No {@code null} names or numbers are allowed.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see phonebook.Phonebook#Phonebook()
+ */
+public class BidirectionalHashIndex {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int EMPTY = 0;     // Index slots hold arena index + 1, so that 0 means empty.
+
+    private String[] names, numbers;
+    private int[] nameHashes, numberHashes;
+    private int count;
+
+    private int[] byName, byNumber;
+    private int mask;
+    private final HashStrategy strategy;
+
+    /**
+     * Creates an empty index, which hashes names and numbers with {@link HashStrategy#SPREAD}.
+     */
+    public BidirectionalHashIndex() {
+        this(HashStrategy.SPREAD);
+    }
+
+    /**
+     * Creates an empty index.
+     * @param strategy The hash function of names and numbers.
+     * @throws IllegalArgumentException If strategy is {@code null}.
+     */
+    public BidirectionalHashIndex(HashStrategy strategy) {
+        if (strategy == null) {
+            throw new IllegalArgumentException("Provided: strategy=null");
+        }
+        this.strategy = strategy;
+        names = new String[INITIAL_CAPACITY];
+        numbers = new String[INITIAL_CAPACITY];
+        nameHashes = new int[INITIAL_CAPACITY];
+        numberHashes = new int[INITIAL_CAPACITY];
+        byName = new int[2 * INITIAL_CAPACITY];
+        byNumber = new int[2 * INITIAL_CAPACITY];
+        mask = byName.length - 1;
+    }
+
+    /* The slot of table that holds the entry with the provided key, or -1. */
+    private int find(int[] table, String[] keys, int[] hashes, String key, int h) {
+        for (int i = h & mask; ; i = (i + 1) & mask) {
+            int e = table[i];
+            if (e == EMPTY) {
+                return -1;
+            }
+            if (hashes[e - 1] == h && keys[e - 1].equals(key)) {
+                return i;
+            }
+        }
+    }
+
+    /* The slot of table that points to arena entry a. */
+    private int slotOf(int[] table, int[] hashes, int a) {
+        int i = hashes[a] & mask;
+        while (table[i] != a + 1) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void insert(int[] table, int h, int a) {
+        int i = h & mask;
+        while (table[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        table[i] = a + 1;
+    }
+
+    /* Empties slot i, shifting back the entries of its run that may move closer to their home slot. */
+    private void deleteSlot(int[] table, int[] hashes, int i) {
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            int e = table[j];
+            if (e == EMPTY) {
+                break;
+            }
+            int home = hashes[e - 1] & mask;
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                table[i] = e;
+                i = j;
+            }
+        }
+        table[i] = EMPTY;
+    }
+
+    /* Deletes arena entry a from both tables, and moves the last arena entry into its place. */
+    private void removeEntry(int a) {
+        deleteSlot(byName, nameHashes, slotOf(byName, nameHashes, a));
+        deleteSlot(byNumber, numberHashes, slotOf(byNumber, numberHashes, a));
+        int last = -- count;
+        if (a != last) {
+            byName[slotOf(byName, nameHashes, last)] = a + 1;
+            byNumber[slotOf(byNumber, numberHashes, last)] = a + 1;
+            names[a] = names[last];
+            numbers[a] = numbers[last];
+            nameHashes[a] = nameHashes[last];
+            numberHashes[a] = numberHashes[last];
+        }
+        names[last] = null;
+        numbers[last] = null;
+    }
+
+    private void grow() {
+        int sz = 2 * names.length;
+        names = Arrays.copyOf(names, sz);
+        numbers = Arrays.copyOf(numbers, sz);
+        nameHashes = Arrays.copyOf(nameHashes, sz);
+        numberHashes = Arrays.copyOf(numberHashes, sz);
+        byName = new int[2 * sz];
+        byNumber = new int[2 * sz];
+        mask = byName.length - 1;
+        for (int a = 0; a < count; a ++) {
+            insert(byName, nameHashes[a], a);
+            insert(byNumber, numberHashes[a], a);
+        }
+    }
+
+    /**
+     * Returns the number associated with the provided name.
+     * @param name A full name.
+     * @return The number of name, or {@code null} if name is not in the index.
+     */
+    public String getNumberOf(String name) {
+        int i = find(byName, names, nameHashes, name, strategy.hash(name));
+        return (i < 0) ? null : numbers[byName[i] - 1];
+    }
+
+    /**
+     * Returns the name associated with the provided number.
+     * @param number A phone number.
+     * @return The owner of number, or {@code null} if number is not in the index.
+     */
+    public String getOwnerOf(String number) {
+        int i = find(byNumber, numbers, numberHashes, number, strategy.hash(number));
+        return (i < 0) ? null : names[byNumber[i] - 1];
+    }
+
+    /**
+     * Associates name with number in both directions. Any entry that held either of them before is removed
+     * first, so the index stays one-to-one.
+     * @param name A full name.
+     * @param number A phone number.
+     */
+    public void put(String name, String number) {
+        int nameHash = strategy.hash(name), numberHash = strategy.hash(number);
+        int i = find(byName, names, nameHashes, name, nameHash);
+        if (i >= 0) {
+            int a = byName[i] - 1;
+            if (numberHashes[a] == numberHash && numbers[a].equals(number)) {
+                return;
+            }
+            removeEntry(a);
+        }
+        i = find(byNumber, numbers, numberHashes, number, numberHash);
+        if (i >= 0) {
+            removeEntry(byNumber[i] - 1);
+        }
+        if (count == names.length) {
+            grow();
+        }
+        int a = count ++;
+        names[a] = name;
+        numbers[a] = number;
+        nameHashes[a] = nameHash;
+        numberHashes[a] = numberHash;
+        insert(byName, nameHash, a);
+        insert(byNumber, numberHash, a);
+    }
+
+    /**
+     * Removes the entry of the provided name, in both directions.
+     * @param name A full name.
+     * @return The number that name was associated with, or {@code null} if name was not in the index.
+     */
+    public String removeName(String name) {
+        int i = find(byName, names, nameHashes, name, strategy.hash(name));
+        if (i < 0) {
+            return null;
+        }
+        int a = byName[i] - 1;
+        String number = numbers[a];
+        removeEntry(a);
+        return number;
+    }
+
+    /**
+     * Removes the entry of the provided number, in both directions.
+     * @param number A phone number.
+     * @return The name that number was associated with, or {@code null} if number was not in the index.
+     */
+    public String removeNumber(String number) {
+        int i = find(byNumber, numbers, numberHashes, number, strategy.hash(number));
+        if (i < 0) {
+            return null;
+        }
+        int a = byNumber[i] - 1;
+        String name = names[a];
+        removeEntry(a);
+        return name;
+    }
+
+    /**
+     * Returns the number of entries in the index.
+     * @return The number of &lt; name, number &gt; pairs.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns the number of entries the arena can hold before it grows.
+     * @return The length of the arena arrays.
+     */
+    public int capacity() {
+        return names.length;
+    }
+}
@@ -0,0 +1,315 @@
+package pqueue.priorityqueues;
+
+import pqueue.exceptions.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>{@link BlockingMinHeapPriorityQueue} is a thread-safe {@link PriorityQueue} whose consumers can wait for
+ * elements instead of polling {@link #isEmpty()}. It guards a {@link MinHeapPriorityQueue} with a single
+ * {@link ReentrantLock}, and adds {@link #take()}, which waits as long as it takes, and
+ * {@link #poll(long, TimeUnit)}, which gives up after a timeout. Waiting consumers park on a {@link Condition}
+ * rather than on an object monitor, so they also release their carrier thread when run on virtual threads.</p>
+ *
+ * <p>In <em>delay</em> mode, priorities are deadlines: a priority of p means "due p ticks after the queue was
+ * created", where the length of a tick is given to the constructor and {@link #now()} is the current tick. An
+ * element can only be dequeued once it is due, so the queue works as the core of a scheduler. Only one
+ * waiting consumer (the "leader") sleeps until the earliest deadline; the others wait until they are signalled,
+ * so a due element wakes up a single thread.</p>
+ *
+ * <p><b>Deadlines are {@code int} ticks, so a queue in delay mode has a limited lifetime:</b> {@link #now()} reaches
+ * {@link Integer#MAX_VALUE} after 2<sup>31</sup> ticks, which is about 24.8 days with
+ * {@link TimeUnit#MILLISECONDS} ticks and 68 years with {@link TimeUnit#SECONDS} ones. From then on {@link #now()}
+ * stays there, and a deadline such as {@code now() + 50} overflows into a priority that is rejected. Pick a tick
+ * long enough for the lifetime of the queue, or replace the queue before it runs out.</p>
+ *
+ * <p>{@link #dequeue()} never waits. {@link #getFirst()} returns the earliest element even when it is not due
+ * yet. {@link #iterator()} is a snapshot taken under the lock, in priority order (earliest deadline first in delay
+ * mode), and FIFO order within a priority.</p>
+ *
+ * @param <T> The type held by the container.
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see MinHeapPriorityQueue
+ * @see ConcurrentLinearPriorityQueue
+ */
+public class BlockingMinHeapPriorityQueue<T> implements PriorityQueue<T> {
+
+	private final MinHeapPriorityQueue<T> heap;
+	private final ReentrantLock lock;
+	private final Condition available;
+	private final TimeUnit tick;		// null unless in delay mode
+	private final long origin;
+	private Thread leader;
+
+	/**
+	 * Default constructor, which creates a queue in which every element is immediately available.
+	 */
+	public BlockingMinHeapPriorityQueue() {
+		this(null);
+	}
+
+	/**
+	 * Constructor which creates a queue in delay mode.
+	 * @param tick The length of one unit of priority, e.g. {@link TimeUnit#MILLISECONDS}. {@code null} creates
+	 *             a queue in which every element is immediately available. The queue can schedule deadlines up to
+	 *             2<sup>31</sup> - 1 ticks after its creation, about 24.8 days with milliseconds.
+	 */
+	public BlockingMinHeapPriorityQueue(TimeUnit tick) {
+		heap = new MinHeapPriorityQueue<T>();
+		lock = new ReentrantLock();
+		available = lock.newCondition();
+		this.tick = tick;
+		/* Start the clock one tick in the past, so that now() is always a valid priority. */
+		origin = System.nanoTime() - (tick == null ? 0 : tick.toNanos(1));
+	}
+
+	/**
+	 * Queries the queue for delay mode.
+	 * @return {@code true} if priorities are deadlines, {@code false} otherwise.
+	 */
+	public boolean isDelayed() {
+		return tick != null;
+	}
+
+	/**
+	 * Returns the current tick of a queue in delay mode, so that {@code enqueue(e, now() + 50)} makes e due 50
+	 * ticks from now.
+	 * @return The number of ticks since the queue was created, plus one, capped at {@link Integer#MAX_VALUE}: once
+	 * that is reached, no deadline after now can be expressed any more.
+	 * @throws IllegalStateException if the queue is not in delay mode.
+	 */
+	public int now() {
+		if (tick == null) {
+			throw new IllegalStateException("Queue is not in delay mode");
+		}
+		return (int) Math.min(Integer.MAX_VALUE, tick.convert(System.nanoTime() - origin, TimeUnit.NANOSECONDS));
+	}
+
+	/* Nanoseconds until the head is due; 0 or less if it is. Requires the lock and a non-empty heap. */
+	private long headDelay() throws EmptyPriorityQueueException {
+		if (tick == null) {
+			return 0;
+		}
+		return tick.toNanos(heap.getFirstPriority()) - (System.nanoTime() - origin);
+	}
+
+	/* Dequeues the head and lets the next consumer look at the new one. Requires the lock. */
+	private T dequeueHead() throws EmptyPriorityQueueException {
+		T element = heap.dequeue();
+		if (!heap.isEmpty()) {
+			available.signal();
+		}
+		return element;
+	}
+
+	@Override
+	public void enqueue(T element, int priority) throws InvalidPriorityException {
+		lock.lock();
+		try {
+			boolean newHead = heap.isEmpty() || priority < heap.getFirstPriority();
+			heap.enqueue(element, priority);
+			if (newHead) {
+				/* The leader is sleeping until an older deadline. */
+				leader = null;
+				available.signal();
+			}
+		} catch (EmptyPriorityQueueException e) {
+			throw new IllegalStateException(e);	// Not reachable: the heap was checked for emptiness.
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns <b>and deletes</b> the top element of the queue, without waiting.
+	 * @return The element at the top of the queue.
+	 * @throws EmptyPriorityQueueException if the queue is empty or, in delay mode, no element is due yet.
+	 */
+	@Override
+	public T dequeue() throws EmptyPriorityQueueException {
+		lock.lock();
+		try {
+			if (heap.isEmpty() || headDelay() > 0) {
+				throw EmptyPriorityQueueExceptions.empty();
+			}
+			return dequeueHead();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns <b>and deletes</b> the top element of the queue, without waiting or throwing.
+	 * @return The element at the top of the queue, or {@code null} if the queue is empty or, in delay mode, no
+	 * element is due yet.
+	 */
+	public T poll() {
+		lock.lock();
+		try {
+			if (heap.isEmpty() || headDelay() > 0) {
+				return null;
+			}
+			return dequeueHead();
+		} catch (EmptyPriorityQueueException e) {
+			throw new IllegalStateException(e);	// Not reachable: the heap was checked for emptiness.
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns, <b>but does not delete</b> the top element of the queue, without throwing. In delay mode, this is
+	 * the element with the earliest deadline, whether or not it is due.
+	 * @return The element at the top of the queue, or {@code null} if it is empty.
+	 */
+	public T peek() {
+		lock.lock();
+		try {
+			return heap.peek();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns <b>and deletes</b> the top element of the queue, waiting until there is one and, in delay mode,
+	 * until it is due.
+	 * @return The element at the top of the queue.
+	 * @throws InterruptedException if the calling thread is interrupted while waiting.
+	 */
+	public T take() throws InterruptedException {
+		T element = poll(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		while (element == null) {		// Only after waiting for about 292 years.
+			element = poll(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		}
+		return element;
+	}
+
+	/**
+	 * Returns <b>and deletes</b> the top element of the queue, waiting up to the provided timeout until there is
+	 * one and, in delay mode, until it is due.
+	 * @param timeout How long to wait before giving up, in units of unit.
+	 * @param unit The unit of timeout.
+	 * @return The element at the top of the queue, or {@code null} if the timeout elapsed first.
+	 * @throws InterruptedException if the calling thread is interrupted while waiting.
+	 */
+	public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+		long nanos = unit.toNanos(timeout);
+		lock.lockInterruptibly();
+		try {
+			for (;;) {
+				if (heap.isEmpty()) {
+					if (nanos <= 0) {
+						return null;
+					}
+					nanos = available.awaitNanos(nanos);
+					continue;
+				}
+				long delay = headDelay();
+				if (delay <= 0) {
+					return dequeueHead();
+				}
+				if (nanos <= 0) {
+					return null;
+				}
+				if (leader != null || nanos < delay) {
+					nanos = available.awaitNanos(nanos);
+				} else {
+					Thread self = Thread.currentThread();
+					leader = self;
+					try {
+						nanos -= delay - available.awaitNanos(delay);
+					} finally {
+						if (leader == self) {
+							leader = null;
+						}
+					}
+				}
+			}
+		} catch (EmptyPriorityQueueException e) {
+			throw new IllegalStateException(e);	// Not reachable: the heap was checked for emptiness.
+		} finally {
+			if (leader == null && !heap.isEmpty()) {
+				available.signal();
+			}
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Dequeues up to max available elements, in priority order, and adds them to target, without waiting.
+	 * @param target The {@link Collection} to add the dequeued elements to.
+	 * @param max The maximum number of elements to dequeue.
+	 * @return The number of elements actually dequeued.
+	 */
+	public int drainTo(Collection<? super T> target, int max) {
+		lock.lock();
+		try {
+			int drained = 0;
+			while (drained < max && !heap.isEmpty() && headDelay() <= 0) {
+				target.add(heap.dequeue());
+				drained ++;
+			}
+			return drained;
+		} catch (EmptyPriorityQueueException e) {
+			throw new IllegalStateException(e);	// Not reachable: the heap was checked for emptiness.
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns, <b>but does not delete</b> the top element of the queue. In delay mode, this is the element with
+	 * the earliest deadline, whether or not it is due.
+	 * @return The element at the top of the queue.
+	 * @throws EmptyPriorityQueueException if the queue is empty.
+	 */
+	@Override
+	public T getFirst() throws EmptyPriorityQueueException {
+		lock.lock();
+		try {
+			return heap.getFirst();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int size() {
+		lock.lock();
+		try {
+			return heap.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		List<T> snapshot;
+		lock.lock();
+		try {
+			snapshot = new ArrayList<T>(heap.size());
+			for (T element : heap) {
+				snapshot.add(element);
+			}
+		} finally {
+			lock.unlock();
+		}
+		return Collections.unmodifiableList(snapshot).iterator();
+	}
+}
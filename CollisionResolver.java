@@ -0,0 +1,50 @@
+package phonebook.hashes;
+
+/**
+ * <p>{@link CollisionResolver} enumerates the collision resolution strategies of the {@link HashTable}s that a
+ * {@link phonebook.Phonebook} can use, independently, for each of its two directions.</p>
+ *
+ * @author <a href="https://github.com/JasonFil">Jason Filippou</a>
+ *
+ * @see HashTable
+ * @see phonebook.Phonebook
+ */
+public enum CollisionResolver {
+
+    /**
+     * Every slot holds a chain of the keys hashed to it: {@link SeparateChainingHashTable}.
+     */
+    SEPARATE_CHAINING,
+
+    /**
+     * Open addressing with linear probing: {@link LinearProbingHashTable}.
+     */
+    LINEAR_PROBING,
+
+    /**
+     * Open addressing with linear probing, keeping each run in key order: {@link OrderedLinearProbingHashTable}.
+     */
+    ORDERED_LINEAR_PROBING,
+
+    /**
+     * Open addressing with quadratic probing: {@link QuadraticProbingHashTable}.
+     */
+    QUADRATIC_PROBING,
+
+    /**
+     * Open addressing with Robin Hood linear probing and backward-shift deletion: {@link RobinHoodHashTable}.
+     */
+    ROBIN_HOOD,
+
+    /**
+     * Open addressing over groups of slots, matched a group at a time through 7-bit hash tags:
+     * {@link SwissHashTable}.
+     */
+    SWISS_TABLE,
+
+    /**
+     * Open addressing over phone numbers packed into {@code long}s, for the table with numbers as keys:
+     * {@link PackedNumberHashTable}. {@link phonebook.Phonebook} rejects it for the table with names as keys.
+     */
+    PACKED_NUMBERS
+}
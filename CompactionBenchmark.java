@@ -0,0 +1,105 @@
+package benchmarks;
+
+import phonebook.hashes.CollisionResolver;
+import phonebook.hashes.HashStrategy;
+import phonebook.hashes.HashTableStats;
+import phonebook.hashes.IncrementalProbingHashTable;
+import phonebook.hashes.InstrumentedHashTable;
+
+import java.util.Random;
+
+/**
+ * <p>{@link CompactionBenchmark} measures how well compactions keep tombstones in check under a long churn of
+ * deletions and insertions. It keeps n keys in an {@link IncrementalProbingHashTable} that deletes softly, with each
+ * of the three probing schemes, and replaces a random key by a new one 20 n times, looking up a present and an absent key after each
+ * replacement. Each compaction threshold is compared with a threshold of 1, with which only resizes clear
+ * tombstones. A line ending in {@code probes} reports, over the whole churn, the mean probe length of hits and of
+ * misses in the first two columns, and the mean tombstone ratio and the final capacity of the table in the last
+ * two. A line ending in {@code compactions} gives the number of compactions and the probes that they reclaimed
+ * per key moved. The churn and lookups of absent keys are then timed.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see BenchmarkHarness
+ * @see IncrementalProbingHashTable
+ */
+public class CompactionBenchmark {
+
+	private static final int N = 100_000;
+	private static final int ROUNDS = 20;
+	private static final double[] THRESHOLDS = {1.0, 0.25, IncrementalProbingHashTable.DEFAULT_COMPACTION_THRESHOLD};
+	private static final CollisionResolver[] PROBING = {CollisionResolver.LINEAR_PROBING,
+			CollisionResolver.ORDERED_LINEAR_PROBING, CollisionResolver.QUADRATIC_PROBING};
+
+	public static void run(final BenchmarkHarness h) throws Exception {
+		final String[] absent = new String[N];
+		for (int i = 0; i < N; i ++) {
+			absent[i] = "Absent " + PhonebookBenchmark.name(i);
+		}
+		for (CollisionResolver probing : PROBING) {
+			for (double threshold : THRESHOLDS) {
+				String label = String.format("tombstones %s threshold=%.3f n=%d", probing, threshold, N);
+				final IncrementalProbingHashTable table = new IncrementalProbingHashTable(probing, true,
+						HashStrategy.SPREAD, threshold);
+				final String[] live = new String[N];
+				for (int i = 0; i < N; i ++) {
+					live[i] = PhonebookBenchmark.name(i);
+					table.put(live[i], live[i]);
+				}
+				final Random r = new Random(29);
+				final int[] next = {N};
+
+				/* Probe lengths and tombstones vary along the cycle of compactions, so they are averaged over the churn. */
+				InstrumentedHashTable instrumented = new InstrumentedHashTable(table);
+				double tombstones = 0;
+				int samples = 0;
+				for (int i = 0; i < ROUNDS * N; i ++) {
+					int k = r.nextInt(N);
+					instrumented.remove(live[k]);
+					live[k] = PhonebookBenchmark.name(next[0] ++);
+					instrumented.put(live[k], live[k]);
+					instrumented.get(live[r.nextInt(N)]);
+					instrumented.get(absent[i % N]);
+					if ((i & 1023) == 0) {
+						tombstones += table.tombstones() / (double) table.capacity();
+						samples ++;
+					}
+				}
+				HashTableStats stats = instrumented.getStatistics();
+				System.out.printf("%-58s %14.2f %10.2f %10.3f %10d%n", label + " probes",
+						stats.getMeanSuccessfulProbes(), stats.getMeanUnsuccessfulProbes(), tombstones / samples,
+						stats.getCapacity());
+				System.out.printf("%-58s %14d %10.2f%n", label + " compactions", stats.getCompactions(),
+						stats.getReclaimedProbes() / (double) Math.max(1, stats.getCompactions() * (long) N));
+
+				h.run(label + " delete+add churn", new BenchmarkHarness.Workload() {
+					public int operations() {
+						return N;
+					}
+
+					public void op(int i) {
+						int k = r.nextInt(N);
+						table.remove(live[k]);
+						live[k] = PhonebookBenchmark.name(next[0] ++);
+						table.put(live[k], live[k]);
+					}
+				});
+				h.run(label + " get miss", new BenchmarkHarness.Workload() {
+					public int operations() {
+						return N;
+					}
+
+					public void op(int i) {
+						h.consume(table.get(absent[i]).probes);
+					}
+				});
+			}
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		BenchmarkHarness h = new BenchmarkHarness();
+		h.header();
+		run(h);
+	}
+}
@@ -0,0 +1,433 @@
+package pqueue.priorityqueues;
+
+import pqueue.exceptions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>{@link ConcurrentLinearPriorityQueue} is a thread-safe {@link PriorityQueue} for many producers and many
+ * consumers. Like {@link LinearPriorityQueue}, it keeps one FIFO bucket per priority, but every bucket has its
+ * own lock, so threads working on different priorities never contend with each other. Elements with the same
+ * priority are dequeued in the order in which they were enqueued.</p>
+ *
+ * <p>Buckets live in pages of {@value #PAGE_SIZE} priorities that are created on first use, in a directory that
+ * grows geometrically. Each page keeps an occupancy bitmap, a summary bitmap over the directory marks the pages
+ * that hold anything, and the queue keeps an atomically maintained hint for the lowest priority that may be
+ * non-empty, so consumers start their search from there instead of from priority 1 and skip empty pages a word of
+ * the summary at a time. A page that empties out is dropped once the hint moves past it, so priorities that only
+ * ever go up do not leave a trail of empty pages behind.</p>
+ *
+ * <p>Priorities are limited to {@link #MAX_PRIORITY}, which bounds the directory and its summary. Rebase ever
+ * increasing priorities, such as deadlines, below that limit, or use a {@link TimingWheelPriorityQueue} for
+ * them.</p>
+ *
+ * <p>In the default <em>strict</em> mode, a consumer waits for the lock of the lowest non-empty bucket it finds.
+ * In <em>relaxed</em> mode, a consumer that finds that bucket locked moves on to the next non-empty one instead,
+ * trading strict priority order across concurrent consumers for throughput. FIFO order within a priority is
+ * kept in both modes.</p>
+ *
+ * <p>{@link #size()} and {@link #iterator()} are weakly consistent: they reflect some state of the queue that
+ * existed during the call, and the iterator is a snapshot that never throws
+ * {@link java.util.ConcurrentModificationException}.</p>
+ *
+ * @param <T> The type held by the container.
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see LinearPriorityQueue
+ * @see PriorityQueue
+ */
+public class ConcurrentLinearPriorityQueue<T> implements PriorityQueue<T> {
+
+	private static final int PAGE_SHIFT = 10;
+	private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+	private static final int PAGE_MASK = PAGE_SIZE - 1;
+	private static final int WORDS_PER_PAGE = PAGE_SIZE >>> 6;
+	private static final Object EMPTY = new Object();
+
+	/**
+	 * The highest priority that a {@link ConcurrentLinearPriorityQueue} accepts, the same as
+	 * {@link LinearPriorityQueue#MAX_PRIORITY}.
+	 */
+	public static final int MAX_PRIORITY = LinearPriorityQueue.MAX_PRIORITY;
+
+	private static final int MAX_PAGES = (MAX_PRIORITY >>> PAGE_SHIFT) + 1;
+
+	private static final class Bucket<T> extends ReentrantLock {
+		private final RingBufferFIFO<T> items = new RingBufferFIFO<T>();
+	}
+
+	private static final class Page<T> {
+		private final AtomicReferenceArray<Bucket<T>> buckets = new AtomicReferenceArray<Bucket<T>>(PAGE_SIZE);
+		private final AtomicLongArray occupied = new AtomicLongArray(WORDS_PER_PAGE);
+		private final AtomicInteger nonEmpty = new AtomicInteger();	// -1 once the page is retired.
+	}
+
+	/* Directory of pages; slots are null before their page is created and after it is retired. Both the slots and
+	 * the directory itself are only written while holding growLock. */
+	private volatile AtomicReferenceArray<Page<T>> pages;
+	/* One bit per page, set while the page may have a non-empty bucket. */
+	private final AtomicLongArray summary;
+	private final ReentrantLock growLock;
+	private final AtomicInteger hint;
+	private final AtomicInteger total;
+	private final boolean relaxed;
+
+	/**
+	 * Default constructor, which creates a queue in strict mode.
+	 */
+	public ConcurrentLinearPriorityQueue() {
+		this(false);
+	}
+
+	/**
+	 * Constructor which selects between strict and relaxed dequeue ordering.
+	 * @param relaxed {@code true} if consumers may skip a non-empty bucket that another consumer is holding,
+	 *                {@code false} for strict lowest-priority-first dequeues.
+	 */
+	public ConcurrentLinearPriorityQueue(boolean relaxed) {
+		this.relaxed = relaxed;
+		pages = new AtomicReferenceArray<Page<T>>(1);
+		summary = new AtomicLongArray((MAX_PAGES + 63) >>> 6);
+		growLock = new ReentrantLock();
+		hint = new AtomicInteger(Integer.MAX_VALUE);
+		total = new AtomicInteger();
+	}
+
+	/**
+	 * Queries the dequeue mode of this queue.
+	 * @return {@code true} if this queue was created in relaxed mode, {@code false} otherwise.
+	 */
+	public boolean isRelaxed() {
+		return relaxed;
+	}
+
+	/* The page of priority, or null if it has none. With create, a missing or retired page is replaced by a new one. */
+	private Page<T> page(int priority, boolean create) {
+		int idx = priority >>> PAGE_SHIFT;
+		AtomicReferenceArray<Page<T>> dir = pages;
+		Page<T> p = (idx < dir.length()) ? dir.get(idx) : null;
+		if (!create || (p != null && p.nonEmpty.get() >= 0)) {
+			return p;
+		}
+		growLock.lock();
+		try {
+			dir = pages;
+			if (idx >= dir.length()) {
+				AtomicReferenceArray<Page<T>> grown = new AtomicReferenceArray<Page<T>>(
+						Math.min(Math.max(idx + 1, 2 * dir.length()), MAX_PAGES));
+				for (int i = 0; i < dir.length(); i ++) {
+					grown.set(i, dir.get(i));
+				}
+				pages = dir = grown;
+			}
+			p = dir.get(idx);
+			if (p == null || p.nonEmpty.get() < 0) {
+				p = new Page<T>();
+				dir.set(idx, p);
+			}
+			return p;
+		} finally {
+			growLock.unlock();
+		}
+	}
+
+	/*
+	 * Drops the page at idx from the directory if none of its buckets holds anything. Producers that still hold
+	 * the page see it retired when they try to occupy it, and look their page up again.
+	 */
+	private void retire(int idx) {
+		Page<T> page = page(idx << PAGE_SHIFT, false);
+		if (page == null || !page.nonEmpty.compareAndSet(0, -1)) {
+			return;
+		}
+		growLock.lock();
+		try {
+			AtomicReferenceArray<Page<T>> dir = pages;
+			if (dir.get(idx) == page) {
+				clearBit(summary, idx);
+				dir.set(idx, null);
+			}
+		} finally {
+			growLock.unlock();
+		}
+	}
+
+	private Bucket<T> bucket(Page<T> page, int priority) {
+		int slot = priority & PAGE_MASK;
+		Bucket<T> b = page.buckets.get(slot);
+		if (b == null) {
+			Bucket<T> created = new Bucket<T>();
+			b = page.buckets.compareAndSet(slot, null, created) ? created : page.buckets.get(slot);
+		}
+		return b;
+	}
+
+	/* Bits are only flipped by the holder of the bucket's lock, but share words with other buckets. */
+	private static void setBit(AtomicLongArray words, int slot) {
+		int w = slot >>> 6;
+		long mask = 1L << (slot & 63);
+		long old;
+		do {
+			old = words.get(w);
+		} while (!words.compareAndSet(w, old, old | mask));
+	}
+
+	private static void clearBit(AtomicLongArray words, int slot) {
+		int w = slot >>> 6;
+		long mask = 1L << (slot & 63);
+		long old;
+		do {
+			old = words.get(w);
+		} while (!words.compareAndSet(w, old, old & ~mask));
+	}
+
+	/* Index of the lowest bit at or above from that is set in words, or -1. */
+	private static int nextSetBit(AtomicLongArray words, int from) {
+		int w = from >>> 6;
+		if (w >= words.length()) {
+			return -1;
+		}
+		long bits = words.get(w) & (-1L << (from & 63));
+		while (bits == 0) {
+			if (++ w == words.length()) {
+				return -1;
+			}
+			bits = words.get(w);
+		}
+		return (w << 6) | Long.numberOfTrailingZeros(bits);
+	}
+
+	/* Counts a bucket of page that is no longer empty, unless the page was retired. Requires that bucket's lock. */
+	private boolean occupy(Page<T> page, int idx) {
+		int n;
+		do {
+			n = page.nonEmpty.get();
+			if (n < 0) {
+				return false;
+			}
+		} while (!page.nonEmpty.compareAndSet(n, n + 1));
+		if (n == 0) {
+			setBit(summary, idx);
+		}
+		return true;
+	}
+
+	/* Counts a bucket of page that just emptied out. Requires that bucket's lock. */
+	private void vacate(Page<T> page, int idx) {
+		if (page.nonEmpty.decrementAndGet() > 0) {
+			return;
+		}
+		clearBit(summary, idx);
+		/* A producer may have occupied this page, or a new one in its place, since the decrement, and set the bit
+		 * before the clear: restore the bit, and lower the hint in case a consumer raised it past that producer. */
+		Page<T> now = page(idx << PAGE_SHIFT, false);
+		if (now != null && now.nonEmpty.get() > 0) {
+			setBit(summary, idx);
+			lowerHint(Math.max(1, idx << PAGE_SHIFT));
+		}
+	}
+
+	private void lowerHint(int priority) {
+		int h;
+		do {
+			h = hint.get();
+		} while (priority < h && !hint.compareAndSet(h, priority));
+	}
+
+	/* Smallest priority >= from whose occupancy bit is set, or -1. Only pages marked in the summary are looked at. */
+	private int findNext(int from) {
+		int first = from >>> PAGE_SHIFT;
+		for (int idx = nextSetBit(summary, first); idx >= 0; idx = nextSetBit(summary, idx + 1)) {
+			Page<T> page = page(idx << PAGE_SHIFT, false);
+			if (page == null || page.nonEmpty.get() <= 0) {
+				continue;
+			}
+			int slot = nextSetBit(page.occupied, (idx == first) ? (from & PAGE_MASK) : 0);
+			if (slot >= 0) {
+				return (idx << PAGE_SHIFT) | slot;
+			}
+		}
+		return -1;
+	}
+
+	/*
+	 * Raises the hint from expected to priority once everything below priority was seen empty. An enqueuer that
+	 * read the old hint has already published its occupancy bit, so re-scanning [expected, priority) after the
+	 * raise catches it and lowers the hint back. A page that the hint leaves behind is retired if it is empty.
+	 */
+	private void raiseHint(int expected, int priority) {
+		if (priority <= expected || !hint.compareAndSet(expected, priority)) {
+			return;
+		}
+		int missed = findNext(expected);
+		if (missed >= 0 && missed < priority) {
+			lowerHint(missed);
+		}
+		if ((expected >>> PAGE_SHIFT) < (priority >>> PAGE_SHIFT)) {
+			retire(expected >>> PAGE_SHIFT);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @throws InvalidPriorityException if the priority provided is less than 1 or greater than
+	 * {@link #MAX_PRIORITY}.
+	 */
+	@Override
+	public void enqueue(T element, int priority) throws InvalidPriorityException {
+		if (priority <= 0) {
+			throw new InvalidPriorityException("Priority must be >= 1");
+		}
+		if (priority > MAX_PRIORITY) {
+			throw new InvalidPriorityException("Priority must be <= " + MAX_PRIORITY);
+		}
+		while (true) {
+			Page<T> page = page(priority, true);
+			Bucket<T> b = bucket(page, priority);
+			b.lock();
+			try {
+				if (b.items.isEmpty()) {
+					if (!occupy(page, priority >>> PAGE_SHIFT)) {
+						continue;	// Retired meanwhile.
+					}
+					setBit(page.occupied, priority & PAGE_MASK);
+				}
+				b.items.add(element);
+				total.incrementAndGet();
+			} finally {
+				b.unlock();
+			}
+			lowerHint(priority);
+			return;
+		}
+	}
+
+	/* Removes (or just reads, if remove is false) the head of the lowest available bucket; EMPTY if there is none. */
+	private Object removeOrPeek(boolean remove) {
+		int h = hint.get();
+		int from = (h == Integer.MAX_VALUE) ? 1 : h;
+		while (true) {
+			int p = findNext(from);
+			if (p < 0) {
+				return EMPTY;
+			}
+			Page<T> page = page(p, false);
+			if (page == null) {
+				from = p + 1;	// Retired meanwhile.
+				continue;
+			}
+			Bucket<T> b = bucket(page, p);
+			if (relaxed && remove) {
+				if (!b.tryLock()) {
+					/* Someone is already draining this bucket; try the next one, or wait if it was the last. */
+					int next = findNext(p + 1);
+					if (next >= 0) {
+						from = next;
+						continue;
+					}
+					b.lock();
+				}
+			} else {
+				b.lock();
+			}
+			T res;
+			try {
+				if (b.items.isEmpty()) {
+					from = p + 1;
+					continue;
+				}
+				if (!remove) {
+					return b.items.peek();
+				}
+				res = b.items.poll();
+				total.decrementAndGet();
+				if (b.items.isEmpty()) {
+					clearBit(page.occupied, p & PAGE_MASK);
+					vacate(page, p >>> PAGE_SHIFT);
+				}
+			} finally {
+				b.unlock();
+			}
+			raiseHint(h, p);
+			return res;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T orThrow(Object res) throws EmptyPriorityQueueException {
+		if (res == EMPTY) {
+			throw EmptyPriorityQueueExceptions.empty();
+		}
+		return (T) res;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T orNull(Object res) {
+		return (res == EMPTY) ? null : (T) res;
+	}
+
+	@Override
+	public T dequeue() throws EmptyPriorityQueueException {
+		return orThrow(removeOrPeek(true));
+	}
+
+	@Override
+	public T getFirst() throws EmptyPriorityQueueException {
+		return orThrow(removeOrPeek(false));
+	}
+
+	/**
+	 * Returns <b>and deletes</b> the top element of the PriorityQueue, without throwing when it is empty.
+	 * @return The element at the top of the PriorityQueue, or {@code null} if it is empty.
+	 */
+	public T poll() {
+		return orNull(removeOrPeek(true));
+	}
+
+	/**
+	 * Returns, <b>but does not delete</b> the top element of the PriorityQueue, without throwing when it is empty.
+	 * @return The element at the top of the PriorityQueue, or {@code null} if it is empty.
+	 */
+	public T peek() {
+		return orNull(removeOrPeek(false));
+	}
+
+	@Override
+	public int size() {
+		return total.get();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return total.get() == 0;
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		List<T> snapshot = new ArrayList<T>();
+		for (int p = findNext(1); p >= 0; p = findNext(p + 1)) {
+			Page<T> page = page(p, false);
+			if (page == null) {
+				continue;
+			}
+			Bucket<T> b = bucket(page, p);
+			b.lock();
+			try {
+				for (int i = 0; i < b.items.slots(); i ++) {
+					snapshot.add(b.items.slot(i));
+				}
+			} finally {
+				b.unlock();
+			}
+		}
+		return Collections.unmodifiableList(snapshot).iterator();
+	}
+}
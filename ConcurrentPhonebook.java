@@ -0,0 +1,282 @@
+package phonebook;
+
+import phonebook.hashes.*;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * <p>{@link ConcurrentPhonebook} is a thread-safe counterpart of {@link Phonebook}. Its entries are spread over a
+ * number of <em>stripes</em>, each with a {@link StampedLock} and a {@link HashTable} for each direction: the
+ * name-to-number mapping of an entry lives in the stripe of its name, and the number-to-name mapping in the stripe
+ * of its number.</p>
+ *
+ * <p>Lookups in {@link RobinHoodHashTable}s and {@link SwissHashTable}s take no lock at all in the common case. They
+ * run optimistically against their stripe and only retry under its read lock if a writer got in the way, so any
+ * number of readers proceed in parallel with each other and with writers to other stripes. Lookups in the tables of
+ * the other {@link CollisionResolver}s always take the read lock of their stripe, so they still proceed in parallel
+ * with each other, but not with writers to their stripe. Writers lock the (at most four) stripes that an update touches, in stripe order,
+ * and apply both directions before unlocking any of them, so no reader ever sees half of an update. Like the
+ * {@link Phonebook} created by {@link Phonebook#Phonebook()}, and unlike the one created by
+ * {@link Phonebook#Phonebook(CollisionResolver, CollisionResolver)}, names and numbers are kept in one-to-one
+ * correspondence: adding an entry whose name or number is already present replaces the old entry as a whole.</p>
+ *
+ * <p>An optimistic lookup may observe a table in the middle of an update, and must still end for its result to be
+ * thrown away. The probe loops of {@link RobinHoodHashTable} and {@link SwissHashTable} are bounded whatever they
+ * read, by the probe distance of {@link RobinHoodHashTable} and by the number of groups of {@link SwissHashTable}:
+ * such a lookup ends, possibly in an exception, which is discarded. The probe loops of the other tables stop only
+ * at an empty slot or a matching key, which a half-updated table need not have, so they are never read
+ * optimistically.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see Phonebook
+ * @see StampedLock
+ */
+public class ConcurrentPhonebook {
+
+    private static final int DEFAULT_STRIPES = 64;
+
+    private static final class Stripe {
+        private final StampedLock lock = new StampedLock();
+        private final HashTable namesToNumbers;
+        private final HashTable numbersToNames;
+
+        private Stripe(HashTable namesToNumbers, HashTable numbersToNames) {
+            this.namesToNumbers = namesToNumbers;
+            this.numbersToNames = numbersToNames;
+        }
+    }
+
+    private final Stripe[] stripes;
+    private final int mask;
+    private final boolean optimisticByName, optimisticByNumber;   // Whether lookups may skip the read lock.
+    private final AtomicInteger count = new AtomicInteger();
+
+    /**
+     * Instantiates a new {@link ConcurrentPhonebook} with {@value #DEFAULT_STRIPES} stripes of
+     * {@link RobinHoodHashTable}s.
+     */
+    public ConcurrentPhonebook() {
+        this(CollisionResolver.ROBIN_HOOD, CollisionResolver.ROBIN_HOOD, DEFAULT_STRIPES);
+    }
+
+    /**
+     * Instantiates a new {@link ConcurrentPhonebook}. The first two parameters provide the collision resolution
+     * strategy for lookups based on name or number, respectively, as in
+     * {@link Phonebook#Phonebook(CollisionResolver, CollisionResolver)}.
+     *
+     * @param namesToNumbersHash The {@link CollisionResolver} of the tables with <b>peoples' names</b> as keys.
+     * @param numbersToNamesHash The {@link CollisionResolver} of the tables with <b>phone numbers</b> as keys.
+     * @param stripes The number of stripes, rounded up to a power of two. About four times the number of cores
+     *                that write concurrently keeps writers from waiting on each other.
+     * @throws IllegalArgumentException If stripes is not in [1, 65536], or if namesToNumbersHash is
+     *                                  {@link CollisionResolver#PACKED_NUMBERS}, which only suits phone numbers as
+     *                                  keys.
+     */
+    public ConcurrentPhonebook(CollisionResolver namesToNumbersHash, CollisionResolver numbersToNamesHash,
+                               int stripes) {
+        if (stripes <= 0 || stripes > (1 << 16)) {
+            throw new IllegalArgumentException("Number of stripes must be in [1, 65536], provided: " + stripes);
+        }
+        int n = Integer.highestOneBit(stripes);
+        n = (n < stripes) ? 2 * n : n;
+        this.stripes = new Stripe[n];
+        for (int i = 0; i < n; i ++) {
+            this.stripes[i] = new Stripe(newTable(namesToNumbersHash, false), newTable(numbersToNamesHash, true));
+        }
+        mask = n - 1;
+        optimisticByName = boundedProbes(namesToNumbersHash);
+        optimisticByNumber = boundedProbes(numbersToNamesHash);
+    }
+
+    /* Whether every lookup in a table of resolver ends, even if the table changes under it. */
+    private static boolean boundedProbes(CollisionResolver resolver) {
+        return resolver == CollisionResolver.ROBIN_HOOD || resolver == CollisionResolver.SWISS_TABLE;
+    }
+
+    /* A table of resolver, for keys that are phone numbers if byNumber and names otherwise. */
+    private static HashTable newTable(CollisionResolver resolver, boolean byNumber) {
+        switch (resolver) {
+            case SEPARATE_CHAINING:
+                return new SeparateChainingHashTable();
+            case LINEAR_PROBING:
+                return new LinearProbingHashTable(false);
+            case ORDERED_LINEAR_PROBING:
+                return new OrderedLinearProbingHashTable(false);
+            case QUADRATIC_PROBING:
+                return new QuadraticProbingHashTable(false);
+            case ROBIN_HOOD:
+                return new RobinHoodHashTable();
+            case SWISS_TABLE:
+                return new SwissHashTable();
+            case PACKED_NUMBERS:
+                if (!byNumber) {
+                    throw new IllegalArgumentException("PACKED_NUMBERS only applies to the tables with phone numbers "
+                            + "as keys.");
+                }
+                return new PackedNumberHashTable();
+            default:
+                throw new RuntimeException("Encountered unsupported CollisionResolver argument: " + resolver + ".");
+        }
+    }
+
+    /* Stripes use the high bits of a mix of the hash, since the tables use the low bits of another one. */
+    private int stripeOf(String key) {
+        return ((key.hashCode() * 0x85EBCA6B) >>> 16) & mask;
+    }
+
+    /* The value of key in the names-to-numbers (or numbers-to-names) table of stripe s, read optimistically if that
+     * table allows it. */
+    private String lookup(Stripe s, String key, boolean byName) {
+        HashTable table = byName ? s.namesToNumbers : s.numbersToNames;
+        long stamp = (byName ? optimisticByName : optimisticByNumber) ? s.lock.tryOptimisticRead() : 0;
+        if (stamp != 0) {
+            try {
+                String value = table.get(key).getValue();
+                if (s.lock.validate(stamp)) {
+                    return value;
+                }
+            } catch (RuntimeException e) {
+                if (s.lock.validate(stamp)) {
+                    throw e;
+                }
+            }
+        }
+        stamp = s.lock.readLock();
+        try {
+            return table.get(key).getValue();
+        } finally {
+            s.lock.unlockRead(stamp);
+        }
+    }
+
+    /** Retrieves the phone number associated with the provided full name. If the name is not in the database,
+     * this method returns {@code null}.
+     * @param name The full name of the owner of the phone number that is being searched for.
+     * @return The phone number associated with name, or {@code null} if name is {@code null} or if name
+     * is not in the {@link ConcurrentPhonebook}.
+     */
+    public String getNumberOf(String name) {
+        return (name == null) ? null : lookup(stripes[stripeOf(name)], name, true);
+    }
+
+    /** Retrieves the full name of the owner of the provided phone number. If the phone number is not in the database,
+     * this method returns {@code null}.
+     * @param number The phone number whose owner is being searched for.
+     * @return The full name of the owner of number, or {@code null} if number is {@code null} or if number
+     * is not in the {@link ConcurrentPhonebook}.
+     */
+    public String getOwnerOf(String number) {
+        return (number == null) ? null : lookup(stripes[stripeOf(number)], number, false);
+    }
+
+    /* Write-locks the distinct stripes among the provided ones, in stripe order. Returns the stamps by stripe. */
+    private long[] lockAll(int... ids) {
+        Arrays.sort(ids);
+        long[] stamps = new long[ids.length];
+        for (int i = 0; i < ids.length; i ++) {
+            if (i == 0 || ids[i] != ids[i - 1]) {
+                stamps[i] = stripes[ids[i]].lock.writeLock();
+            }
+        }
+        return stamps;
+    }
+
+    private void unlockAll(int[] ids, long[] stamps) {
+        for (int i = ids.length - 1; i >= 0; i --) {
+            if (stamps[i] != 0) {
+                stripes[ids[i]].lock.unlockWrite(stamps[i]);
+            }
+        }
+    }
+
+    /* Removes the entry of name, whose number is number, from both directions. Requires both stripes locked. */
+    private void unlink(String name, String number) {
+        stripes[stripeOf(name)].namesToNumbers.remove(name);
+        stripes[stripeOf(number)].numbersToNames.remove(number);
+        count.decrementAndGet();
+    }
+
+    /** Adds the tuple &lt; name, number &gt; in the {@link ConcurrentPhonebook}. Any entry that held name or number
+     * before is removed, atomically with the addition.
+     * @param name The full name of the number's owner.
+     * @param number The phone number of the person.
+     * @throws IllegalArgumentException if either name or number is {@code null}.
+     */
+    public void addEntry(String name, String number) {
+        if(name == null || number == null)
+            throw new IllegalArgumentException("Provided: name=" + name + " and number= " + number);
+        Stripe byName = stripes[stripeOf(name)], byNumber = stripes[stripeOf(number)];
+        while (true) {
+            /* The old number of name and the old owner of number may live in yet other stripes. */
+            String oldNumber = getNumberOf(name), oldName = getOwnerOf(number);
+            int[] ids = {stripeOf(name), stripeOf(number), stripeOf((oldNumber == null) ? number : oldNumber),
+                    stripeOf((oldName == null) ? name : oldName)};
+            long[] stamps = lockAll(ids);
+            try {
+                String n = byName.namesToNumbers.get(name).getValue();
+                String o = byNumber.numbersToNames.get(number).getValue();
+                if (!equal(n, oldNumber) || !equal(o, oldName)) {
+                    continue;   // Another writer got there between the lookups and the locks.
+                }
+                if (number.equals(oldNumber)) {
+                    return;     // Already there.
+                }
+                if (oldNumber != null) {
+                    unlink(name, oldNumber);
+                }
+                if (oldName != null) {
+                    unlink(oldName, number);
+                }
+                byName.namesToNumbers.put(name, number);
+                byNumber.numbersToNames.put(number, name);
+                count.incrementAndGet();
+                return;
+            } finally {
+                unlockAll(ids, stamps);
+            }
+        }
+    }
+
+    private static boolean equal(String a, String b) {
+        return (a == null) ? b == null : a.equals(b);
+    }
+
+    /** Deletes the entry characterized by the arguments provided. If the entry is <b>not</b> contained by this
+     * {@link ConcurrentPhonebook} instance, that is, if name is not associated with number, this method has
+     * <b>no effect</b>.
+     * @param name The &quot;owner&quot; part of the &lt; owner, phone number &gt; tuple.
+     * @param number The &quot;number&quot; part of the &lt; owner, phone number &gt; tuple.
+     * @throws IllegalArgumentException if either name or number is {@code null}.
+     */
+    public void deleteEntry(String name, String number) {
+        if(number == null || name == null)
+            throw new IllegalArgumentException("Provided: name=" + name + " and number= " + number);
+        int[] ids = {stripeOf(name), stripeOf(number)};
+        long[] stamps = lockAll(ids);
+        try {
+            if (number.equals(stripes[stripeOf(name)].namesToNumbers.get(name).getValue())) {
+                unlink(name, number);
+            }
+        } finally {
+            unlockAll(ids, stamps);
+        }
+    }
+
+    /** Returns the number of entries in the phonebook.
+     * @return the number of entries in the phonebook.
+     */
+    public int size() {
+        return count.get();
+    }
+
+    /** Queries the phonebook for emptiness.
+     * @return {@code true} if, and only if, there are 0 entries in this {@link ConcurrentPhonebook}, {@code false}
+     * otherwise.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+}
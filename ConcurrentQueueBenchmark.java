@@ -0,0 +1,129 @@
+package benchmarks;
+
+import pqueue.exceptions.InvalidPriorityException;
+import pqueue.priorityqueues.ConcurrentLinearPriorityQueue;
+import pqueue.priorityqueues.EmptyPriorityQueueException;
+import pqueue.priorityqueues.LinearPriorityQueue;
+import pqueue.priorityqueues.PriorityQueue;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>{@link ConcurrentQueueBenchmark} measures the throughput of {@link ConcurrentLinearPriorityQueue}, in both
+ * strict and relaxed mode, against a {@link LinearPriorityQueue} guarded by a single monitor, which is how the
+ * non-thread-safe queues have to be shared today. Every worker thread alternates between enqueueing and
+ * dequeueing on a pre-filled queue, for thread counts from 1 to 32.</p>
+ *
+ * <p>Correctness under contention is checked by {@code ConcurrentLinearPriorityQueueTest}, not here.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see ConcurrentLinearPriorityQueue
+ */
+public class ConcurrentQueueBenchmark {
+
+	private static final int PRIORITIES = 256;
+	private static final int PREFILL = 100_000;
+	private static final long MEASURE_NANOS = 1_000_000_000L;
+
+	/* What callers do today: one monitor around a LinearPriorityQueue. */
+	private static final class SynchronizedQueue<T> implements PriorityQueue<T> {
+		private final PriorityQueue<T> q;
+
+		private SynchronizedQueue(PriorityQueue<T> q) {
+			this.q = q;
+		}
+
+		public synchronized void enqueue(T element, int priority) throws InvalidPriorityException {
+			q.enqueue(element, priority);
+		}
+
+		public synchronized T dequeue() throws EmptyPriorityQueueException {
+			return q.dequeue();
+		}
+
+		public synchronized T getFirst() throws EmptyPriorityQueueException {
+			return q.getFirst();
+		}
+
+		public synchronized int size() {
+			return q.size();
+		}
+
+		public synchronized boolean isEmpty() {
+			return q.isEmpty();
+		}
+
+		public Iterator<T> iterator() {
+			return q.iterator();
+		}
+	}
+
+	private static PriorityQueue<Long> create(String name) {
+		switch (name) {
+			case "synchronized Linear":
+				return new SynchronizedQueue<Long>(new LinearPriorityQueue<Long>());
+			case "Concurrent strict":
+				return new ConcurrentLinearPriorityQueue<Long>(false);
+			case "Concurrent relaxed":
+				return new ConcurrentLinearPriorityQueue<Long>(true);
+			default:
+				throw new IllegalArgumentException("Unknown queue: " + name);
+		}
+	}
+
+	private static double throughput(final PriorityQueue<Long> q, int threads) throws Exception {
+		Random seed = new Random(7);
+		for (int i = 0; i < PREFILL; i ++) {
+			q.enqueue((long) i, 1 + seed.nextInt(PRIORITIES));
+		}
+		final AtomicBoolean stop = new AtomicBoolean();
+		final AtomicLong ops = new AtomicLong();
+		final CountDownLatch start = new CountDownLatch(1);
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t ++) {
+			final int id = t;
+			workers[t] = new Thread(new Runnable() {
+				public void run() {
+					Random r = new Random(id);
+					long local = 0;
+					try {
+						start.await();
+						while (!stop.get()) {
+							q.enqueue(local, 1 + r.nextInt(PRIORITIES));
+							q.dequeue();
+							local += 2;
+						}
+					} catch (Exception e) {
+						throw new RuntimeException(e);
+					}
+					ops.addAndGet(local);
+				}
+			});
+			workers[t].start();
+		}
+		start.countDown();
+		Thread.sleep(MEASURE_NANOS / 1_000_000);
+		stop.set(true);
+		for (Thread w : workers) {
+			w.join();
+		}
+		return ops.get() / (MEASURE_NANOS / 1e9);
+	}
+
+	public static void main(String[] args) throws Exception {
+		String[] names = {"synchronized Linear", "Concurrent strict", "Concurrent relaxed"};
+		int[] threadCounts = {1, 2, 4, 8, 16, 32};
+		System.out.printf("%-22s %8s %14s%n", "queue", "threads", "Mops/s");
+		for (String name : names) {
+			throughput(create(name), 4);	// Warm-up.
+			for (int threads : threadCounts) {
+				System.out.printf("%-22s %8d %14.2f%n", name, threads, throughput(create(name), threads) / 1e6);
+			}
+		}
+	}
+}
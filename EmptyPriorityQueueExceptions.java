@@ -0,0 +1,52 @@
+package pqueue.priorityqueues;
+
+/**
+ * <p>{@link EmptyPriorityQueueExceptions} creates the {@link EmptyPriorityQueueException}s thrown by the queues
+ * of this package. By default, every call to {@link #empty()} creates a new exception, with a stack trace
+ * pointing to the empty dequeue. When the system property {@value #STACKLESS_PROPERTY} is {@code true} at
+ * startup, {@link #empty()} instead returns one preallocated instance with no stack trace, so that an empty
+ * dequeue costs no more than a branch. The shared instance must not be modified by callers
+ * (e.g. through {@link Throwable#addSuppressed(Throwable)} or {@link Throwable#initCause(Throwable)}).</p>
+ *
+ * <p>Code for which emptiness is the normal case should rather call the {@code poll()} and {@code peek()}
+ * methods of the queues, which return {@code null} instead of throwing.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see EmptyPriorityQueueException
+ */
+final class EmptyPriorityQueueExceptions {
+
+	/**
+	 * The system property that selects the shared, stackless exception.
+	 */
+	static final String STACKLESS_PROPERTY = "pqueue.stacklessEmptyException";
+
+	private static final class Stackless extends EmptyPriorityQueueException {
+		private Stackless() {
+			super("Queue is empty");
+		}
+
+		@Override
+		public synchronized Throwable fillInStackTrace() {
+			return this;
+		}
+	}
+
+	private static final EmptyPriorityQueueException SHARED =
+			Boolean.getBoolean(STACKLESS_PROPERTY) ? new Stackless() : null;
+
+	private EmptyPriorityQueueExceptions() {
+	}
+
+	/**
+	 * Returns the exception to throw for an empty queue.
+	 * @return The shared, stackless instance if {@value #STACKLESS_PROPERTY} is set, a new exception otherwise.
+	 */
+	static EmptyPriorityQueueException empty() {
+		if (SHARED != null) {
+			return SHARED;
+		}
+		return new EmptyPriorityQueueException("Queue is empty");
+	}
+}
@@ -0,0 +1,104 @@
+package benchmarks;
+
+import pqueue.priorityqueues.EmptyPriorityQueueException;
+import pqueue.priorityqueues.LinearPriorityQueue;
+import pqueue.priorityqueues.MinHeapPriorityQueue;
+
+/**
+ * <p>{@link EmptyQueueBenchmark} measures the cost of finding a queue empty, which is how every drain loop ends.
+ * For {@link LinearPriorityQueue} and {@link MinHeapPriorityQueue} it times three ways of doing it:</p>
+ *
+ * <ul>
+ *     <li><b>new exception</b>: catching a freshly created {@link EmptyPriorityQueueException}, which is what every
+ *     empty {@code dequeue()} used to cost;</li>
+ *     <li><b>dequeue()</b>: catching whatever {@code dequeue()} throws now, which is a fresh exception by default
+ *     and a shared, stackless one when run with {@code -Dpqueue.stacklessEmptyException=true};</li>
+ *     <li><b>poll()</b>: checking the {@code null} returned by {@code poll()}.</li>
+ * </ul>
+ *
+ * <p>Run it once with and once without the system property to compare the two modes of {@code dequeue()}.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see BenchmarkHarness
+ */
+public class EmptyQueueBenchmark {
+
+	private static final int OPS = 1_000_000;
+
+	private static void exceptionPath(final BenchmarkHarness h, String name) throws Exception {
+		h.run(name + " empty: new exception", new BenchmarkHarness.Workload() {
+			public int operations() {
+				return OPS;
+			}
+
+			public void op(int i) {
+				try {
+					throw new EmptyPriorityQueueException("Queue is empty");
+				} catch (EmptyPriorityQueueException e) {
+					h.consume(e.getMessage().length());
+				}
+			}
+		});
+	}
+
+	public static void run(final BenchmarkHarness h) throws Exception {
+		final String mode = Boolean.getBoolean("pqueue.stacklessEmptyException") ? "stackless" : "default";
+		final LinearPriorityQueue<Integer> linear = new LinearPriorityQueue<Integer>();
+		final MinHeapPriorityQueue<Integer> heap = new MinHeapPriorityQueue<Integer>();
+
+		exceptionPath(h, "linear");
+		h.run("linear empty: dequeue() " + mode, new BenchmarkHarness.Workload() {
+			public int operations() {
+				return OPS;
+			}
+
+			public void op(int i) {
+				try {
+					h.consume(linear.dequeue());
+				} catch (EmptyPriorityQueueException e) {
+					h.consume(e.getMessage().length());
+				}
+			}
+		});
+		h.run("linear empty: poll()", new BenchmarkHarness.Workload() {
+			public int operations() {
+				return OPS;
+			}
+
+			public void op(int i) {
+				h.consume(linear.poll() == null ? 0 : 1);
+			}
+		});
+
+		exceptionPath(h, "minheap");
+		h.run("minheap empty: dequeue() " + mode, new BenchmarkHarness.Workload() {
+			public int operations() {
+				return OPS;
+			}
+
+			public void op(int i) {
+				try {
+					h.consume(heap.dequeue());
+				} catch (EmptyPriorityQueueException e) {
+					h.consume(e.getMessage().length());
+				}
+			}
+		});
+		h.run("minheap empty: poll()", new BenchmarkHarness.Workload() {
+			public int operations() {
+				return OPS;
+			}
+
+			public void op(int i) {
+				h.consume(heap.poll() == null ? 0 : 1);
+			}
+		});
+	}
+
+	public static void main(String[] args) throws Exception {
+		BenchmarkHarness h = new BenchmarkHarness();
+		h.header();
+		run(h);
+	}
+}
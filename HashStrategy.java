@@ -0,0 +1,78 @@
+package phonebook.hashes;
+
+/**
+ * <p>{@link HashStrategy} is the hash function that a {@link HashTable} applies to its keys. The open-addressing
+ * tables of this package have power-of-two capacities and take the slot of a key from the low bits of its hash, so
+ * every bit of the hash must depend on every character of the key: the phone numbers of a phonebook often differ
+ * only in their last digits, and their {@link String#hashCode()}s then differ only in their low bits, which crowds
+ * them into neighboring slots.</p>
+ *
+ * <p>{@link #SPREAD}, the default of every table, mixes the bits of {@link String#hashCode()}. It is cheap, but keys
+ * with equal {@link String#hashCode()}s, which are easy to craft, still collide. {@link #seeded()} hashes the
+ * characters themselves with a 64-bit function and a random seed, so which keys collide differs from table to
+ * table and cannot be predicted from outside.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see SeededHashStrategy
+ */
+public interface HashStrategy {
+
+    /**
+     * The bits of {@link String#hashCode()}, as they are. Kept as a baseline: consecutive numbers get consecutive
+     * hashes.
+     */
+    HashStrategy STRING_HASH_CODE = new HashStrategy() {
+        @Override
+        public int hash(String key) {
+            return key.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "STRING_HASH_CODE";
+        }
+    };
+
+    /**
+     * {@link String#hashCode()}, multiplied by the 32-bit golden ratio and with its high half folded into its low
+     * half. The default strategy of the tables. It also hashes the keys stored in the files of
+     * {@link phonebook.MappedPhonebook}, so it is part of their format and must not change.
+     */
+    HashStrategy SPREAD = new HashStrategy() {
+        @Override
+        public int hash(String key) {
+            int h = key.hashCode() * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+
+        @Override
+        public String toString() {
+            return "SPREAD";
+        }
+    };
+
+    /**
+     * Returns a well-spread 32-bit hash of the provided key.
+     * @param key A non-{@code null} key.
+     * @return The hash of key, with all of its bits mixed into the low ones.
+     */
+    int hash(String key);
+
+    /**
+     * Returns a strategy that hashes the characters of keys with a random seed, drawn anew by every call.
+     * @return A new {@link SeededHashStrategy}.
+     */
+    static HashStrategy seeded() {
+        return new SeededHashStrategy();
+    }
+
+    /**
+     * Returns a strategy that hashes the characters of keys with the provided seed, for reproducible layouts.
+     * @param seed The seed of the hash function.
+     * @return A new {@link SeededHashStrategy}.
+     */
+    static HashStrategy seeded(long seed) {
+        return new SeededHashStrategy(seed);
+    }
+}
@@ -0,0 +1,187 @@
+package benchmarks;
+
+import phonebook.hashes.CollisionResolver;
+import phonebook.hashes.HashStrategy;
+import phonebook.hashes.HashTable;
+import phonebook.hashes.HashTableStats;
+import phonebook.hashes.IncrementalProbingHashTable;
+import phonebook.hashes.InstrumentedHashTable;
+import phonebook.hashes.RobinHoodHashTable;
+import phonebook.hashes.SwissHashTable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * <p>{@link HashStrategyBenchmark} compares the {@link HashStrategy}s of the open-addressing tables on sets of
+ * phone numbers shaped like real ones: a block of consecutive numbers of one exchange, random numbers of a few
+ * area codes, and the same numbers written with a country code and separators. A last set of keys all share one
+ * {@link String#hashCode()}, as keys crafted by an attacker would. Every strategy is run behind
+ * {@link RobinHoodHashTable}, {@link SwissHashTable} and a linear probing {@link IncrementalProbingHashTable}.</p>
+ *
+ * <p>For each pairing it times the strategy alone, then lookups of n keys, half of them misses, and then reports,
+ * on a line ending in {@code probes}, the probe lengths gathered by an {@link InstrumentedHashTable} over the same
+ * lookups: the mean of hits and of misses, in the first two columns, and the 99th percentile and maximum of misses,
+ * in the last two. Probe lengths of {@value HashTableStats#MAX_PROBES} or more are reported as
+ * {@value HashTableStats#MAX_PROBES}.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see BenchmarkHarness
+ * @see HashStrategy
+ */
+public class HashStrategyBenchmark {
+
+	private static final int N = 1_000_000;
+	private static final int COLLIDING_BLOCKS = 13;	// 2^13 keys, half of them inserted.
+
+	private static final String[] TABLES = {"ROBIN_HOOD", "SWISS_TABLE", "LINEAR_PROBING"};
+	private static final String[] STRATEGIES = {"STRING_HASH_CODE", "SPREAD", "SEEDED"};
+
+	private static HashStrategy strategy(String name) {
+		switch (name) {
+			case "STRING_HASH_CODE":
+				return HashStrategy.STRING_HASH_CODE;
+			case "SPREAD":
+				return HashStrategy.SPREAD;
+			default:
+				return HashStrategy.seeded();
+		}
+	}
+
+	private static HashTable table(String name, HashStrategy strategy) {
+		switch (name) {
+			case "ROBIN_HOOD":
+				return new RobinHoodHashTable(strategy);
+			case "SWISS_TABLE":
+				return new SwissHashTable(strategy);
+			default:
+				return new IncrementalProbingHashTable(CollisionResolver.LINEAR_PROBING, false, strategy);
+		}
+	}
+
+	/* 2n distinct ten-digit numbers of a few area codes, in random order. */
+	private static String[] areaCodes(int n) {
+		int[] codes = {202, 212, 240, 301, 310, 312, 410, 415, 443, 617, 646, 703, 718, 917};
+		Random r = new Random(17);
+		Set<String> seen = new HashSet<String>();
+		String[] numbers = new String[2 * n];
+		for (int i = 0; i < numbers.length; ) {
+			String number = String.format("%d%03d%04d", codes[r.nextInt(codes.length)], 200 + r.nextInt(800),
+					r.nextInt(10_000));
+			if (seen.add(number)) {
+				numbers[i ++] = number;
+			}
+		}
+		return numbers;
+	}
+
+	private static String[] formatted(String[] numbers) {
+		String[] out = new String[numbers.length];
+		for (int i = 0; i < numbers.length; i ++) {
+			String s = numbers[i];
+			out[i] = "+1 (" + s.substring(0, 3) + ") " + s.substring(3, 6) + "-" + s.substring(6);
+		}
+		return out;
+	}
+
+	/* Every string of blocks "Aa" or "BB": "Aa" and "BB" have equal hashCodes, so all of these do. */
+	private static String[] colliding(int blocks) {
+		String[] keys = new String[1 << blocks];
+		for (int i = 0; i < keys.length; i ++) {
+			StringBuilder sb = new StringBuilder(2 * blocks);
+			for (int b = 0; b < blocks; b ++) {
+				sb.append(((i >>> b) & 1) == 0 ? "Aa" : "BB");
+			}
+			keys[i] = sb.toString();
+		}
+		Collections.shuffle(Arrays.asList(keys), new Random(19));
+		return keys;
+	}
+
+	private static int percentile(long[] histogram, double p) {
+		long n = 0;
+		for (long c : histogram) {
+			n += c;
+		}
+		long seen = 0;
+		for (int i = 0; i < histogram.length; i ++) {
+			seen += histogram[i];
+			if (seen >= p * n) {
+				return i;
+			}
+		}
+		return histogram.length - 1;
+	}
+
+	private static int max(long[] histogram) {
+		for (int i = histogram.length - 1; i > 0; i --) {
+			if (histogram[i] != 0) {
+				return i;
+			}
+		}
+		return 0;
+	}
+
+	private static void dataset(final BenchmarkHarness h, String set, final String[] keys) throws Exception {
+		final int n = keys.length / 2;	// keys[n..] are never inserted.
+		for (String s : STRATEGIES) {
+			final HashStrategy hashing = strategy(s);
+			h.run(String.format("hashing %s %s n=%d hash", set, s, n), new BenchmarkHarness.Workload() {
+				public int operations() {
+					return n;
+				}
+
+				public void op(int i) {
+					h.consume(hashing.hash(keys[i]));
+				}
+			});
+			for (String t : TABLES) {
+				String label = String.format("hashing %s %s/%s n=%d", set, t, s, n);
+				final HashTable table = table(t, strategy(s));
+				for (int i = 0; i < n; i ++) {
+					table.put(keys[i], keys[i]);
+				}
+				h.run(label + " get", new BenchmarkHarness.Workload() {
+					public int operations() {
+						return n;
+					}
+
+					public void op(int i) {
+						h.consume(table.get(keys[((i & 1) == 0) ? i : n + i]).getValue() == null ? 0 : 1);
+					}
+				});
+
+				InstrumentedHashTable instrumented = new InstrumentedHashTable(table);
+				for (int i = 0; i < keys.length; i ++) {
+					instrumented.get(keys[i]);
+				}
+				HashTableStats stats = instrumented.getStatistics();
+				long[] misses = stats.getUnsuccessfulProbes();
+				System.out.printf("%-58s %14.2f %10.2f %10d %10d%n", label + " probes", stats.getMeanSuccessfulProbes(),
+						stats.getMeanUnsuccessfulProbes(), percentile(misses, 0.99), max(misses));
+			}
+		}
+	}
+
+	public static void run(final BenchmarkHarness h) throws Exception {
+		String[] block = new String[2 * N];
+		for (int i = 0; i < block.length; i ++) {
+			block[i] = PhonebookBenchmark.number(i);
+		}
+		dataset(h, "block", block);
+		String[] areaCodes = areaCodes(N);
+		dataset(h, "areacodes", areaCodes);
+		dataset(h, "formatted", formatted(areaCodes));
+		dataset(h, "colliding", colliding(COLLIDING_BLOCKS));
+	}
+
+	public static void main(String[] args) throws Exception {
+		BenchmarkHarness h = new BenchmarkHarness();
+		h.header();
+		run(h);
+	}
+}
@@ -0,0 +1,208 @@
+package phonebook.hashes;
+
+import java.util.Arrays;
+
+/**
+ * <p>{@link HashTableStats} is a snapshot of the statistics that an {@link InstrumentedHashTable} gathered about
+ * the table it wraps: the distribution of the probe lengths of successful and unsuccessful lookups, the load
+ * factor and tombstone ratio at the time of the snapshot, the distribution of chain lengths of a chaining table,
+ * the number of resizes along with the time spent in the operations that triggered them, and the number of
+ * compactions along with the probe length that they reclaimed.</p>
+ *
+ * <p>Probe lengths are counted in the unit of the {@link Probe}s that the table reports, and lengths of
+ * {@value #MAX_PROBES} or more share the last bucket of their histogram.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see InstrumentedHashTable
+ * @see phonebook.Phonebook#getStatistics()
+ */
+public final class HashTableStats {
+
+    /**
+     * The probe length from which lookups share the last bucket of a histogram.
+     */
+    public static final int MAX_PROBES = 64;
+
+    private final long[] successful, unsuccessful;
+    private final int size, capacity, tombstones;
+    private final int[] chainLengths;
+    private final long resizes, resizeNanos;
+    private final long compactions, reclaimedProbes;
+
+    HashTableStats(long[] successful, long[] unsuccessful, int size, int capacity, int tombstones,
+                   int[] chainLengths, long resizes, long resizeNanos, long compactions, long reclaimedProbes) {
+        this.successful = successful.clone();
+        this.unsuccessful = unsuccessful.clone();
+        this.size = size;
+        this.capacity = capacity;
+        this.tombstones = tombstones;
+        this.chainLengths = (chainLengths == null) ? null : chainLengths.clone();
+        this.resizes = resizes;
+        this.resizeNanos = resizeNanos;
+        this.compactions = compactions;
+        this.reclaimedProbes = reclaimedProbes;
+    }
+
+    /**
+     * Combines the statistics of two tables, such as the two directions of a {@link phonebook.Phonebook}:
+     * histograms, sizes, capacities, tombstones, resizes and compactions are summed.
+     * @param a The statistics of a table.
+     * @param b The statistics of another table.
+     * @return The statistics of both tables, as one.
+     */
+    public static HashTableStats merge(HashTableStats a, HashTableStats b) {
+        long[] s = a.successful.clone(), u = a.unsuccessful.clone();
+        for (int i = 0; i <= MAX_PROBES; i ++) {
+            s[i] += b.successful[i];
+            u[i] += b.unsuccessful[i];
+        }
+        int[] chains = null;
+        if (a.chainLengths != null || b.chainLengths != null) {
+            int[] x = (a.chainLengths == null) ? new int[0] : a.chainLengths;
+            int[] y = (b.chainLengths == null) ? new int[0] : b.chainLengths;
+            chains = Arrays.copyOf(x, Math.max(x.length, y.length));
+            for (int i = 0; i < y.length; i ++) {
+                chains[i] += y[i];
+            }
+        }
+        int tombstones = (a.tombstones < 0 || b.tombstones < 0) ? -1 : a.tombstones + b.tombstones;
+        return new HashTableStats(s, u, a.size + b.size, a.capacity + b.capacity, tombstones, chains,
+                a.resizes + b.resizes, a.resizeNanos + b.resizeNanos, a.compactions + b.compactions,
+                a.reclaimedProbes + b.reclaimedProbes);
+    }
+
+    /**
+     * Returns the histogram of the probe lengths of successful lookups.
+     * @return An array whose element i is the number of lookups that found their key in i probes.
+     */
+    public long[] getSuccessfulProbes() {
+        return successful.clone();
+    }
+
+    /**
+     * Returns the histogram of the probe lengths of unsuccessful lookups.
+     * @return An array whose element i is the number of lookups that missed their key after i probes.
+     */
+    public long[] getUnsuccessfulProbes() {
+        return unsuccessful.clone();
+    }
+
+    private static double mean(long[] histogram) {
+        long n = 0, sum = 0;
+        for (int i = 0; i < histogram.length; i ++) {
+            n += histogram[i];
+            sum += i * histogram[i];
+        }
+        return (n == 0) ? 0 : sum / (double) n;
+    }
+
+    /**
+     * Returns the mean probe length of successful lookups.
+     * @return The mean, or 0 if no lookup succeeded.
+     */
+    public double getMeanSuccessfulProbes() {
+        return mean(successful);
+    }
+
+    /**
+     * Returns the mean probe length of unsuccessful lookups.
+     * @return The mean, or 0 if no lookup failed.
+     */
+    public double getMeanUnsuccessfulProbes() {
+        return mean(unsuccessful);
+    }
+
+    /**
+     * Returns the number of keys in the table.
+     * @return The size of the table.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the capacity of the table.
+     * @return The capacity of the table, as reported by {@link HashTable#capacity()}.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the load factor of the table.
+     * @return The size of the table over its capacity.
+     */
+    public double getLoadFactor() {
+        return (capacity == 0) ? 0 : size / (double) capacity;
+    }
+
+    /**
+     * Returns the number of tombstones in the table.
+     * @return The number of tombstones, or -1 if the table is not an {@link InspectableHashTable}.
+     */
+    public int getTombstones() {
+        return tombstones;
+    }
+
+    /**
+     * Returns the fraction of the slots of the table that hold tombstones.
+     * @return The number of tombstones over the capacity, or {@link Double#NaN} if the table is not an
+     * {@link InspectableHashTable}.
+     */
+    public double getTombstoneRatio() {
+        return (tombstones < 0) ? Double.NaN : (capacity == 0) ? 0 : tombstones / (double) capacity;
+    }
+
+    /**
+     * Returns the distribution of the chain lengths of a chaining table.
+     * @return An array whose element i is the number of chains of length i, or {@code null} if the table does not
+     * report chains.
+     * @see InspectableHashTable#chainLengths()
+     */
+    public int[] getChainLengths() {
+        return (chainLengths == null) ? null : chainLengths.clone();
+    }
+
+    /**
+     * Returns the number of times the table was resized.
+     * @return The number of operations during which the capacity of the table changed.
+     */
+    public long getResizes() {
+        return resizes;
+    }
+
+    /**
+     * Returns the time spent in the operations that resized the table.
+     * @return The total duration, in nanoseconds, of the operations during which the capacity changed.
+     */
+    public long getResizeNanos() {
+        return resizeNanos;
+    }
+
+    /**
+     * Returns the number of times the table was rebuilt at the same capacity to clear its tombstones.
+     * @return The number of compactions since the table was created.
+     * @see InspectableHashTable#compactions()
+     */
+    public long getCompactions() {
+        return compactions;
+    }
+
+    /**
+     * Returns by how much compactions have shortened the probe sequences of the keys they moved.
+     * @return The total decrease of the probe lengths of the keys moved by compactions since the table was created.
+     * @see InspectableHashTable#reclaimedProbes()
+     */
+    public long getReclaimedProbes() {
+        return reclaimedProbes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("size=%d capacity=%d load=%.3f tombstones=%.3f probes(hit)=%.2f probes(miss)=%.2f "
+                        + "resizes=%d (%.3f ms) compactions=%d (%d probes reclaimed)", size, capacity,
+                getLoadFactor(), getTombstoneRatio(), getMeanSuccessfulProbes(), getMeanUnsuccessfulProbes(), resizes,
+                resizeNanos / 1e6, compactions, reclaimedProbes);
+    }
+}
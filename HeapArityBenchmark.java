@@ -0,0 +1,148 @@
+package benchmarks;
+
+import pqueue.exceptions.InvalidPriorityException;
+import pqueue.heaps.ArrayMinHeap;
+import pqueue.heaps.EmptyHeapException;
+import pqueue.priorityqueues.EmptyPriorityQueueException;
+import pqueue.priorityqueues.MinHeapPriorityQueue;
+import pqueue.priorityqueues.PrimitiveMinHeapPriorityQueue;
+import pqueue.priorityqueues.PriorityQueue;
+
+import java.util.Random;
+
+/**
+ * <p>{@link HeapArityBenchmark} compares {@link MinHeapPriorityQueue} at arities 2, 4 and 8 (and
+ * {@link PrimitiveMinHeapPriorityQueue}) against a plain {@link ArrayMinHeap} of comparable nodes, the heap that
+ * {@link MinHeapPriorityQueue} was originally built on.</p>
+ *
+ * <p>The workload is a timer queue in steady state: the heap is filled with n elements, after which every
+ * operation is one dequeue followed by one enqueue with a later random priority. Heap sizes range from
+ * 10<sup>4</sup> to 10<sup>7</sup> elements; run with a large enough heap, e.g.
+ * {@code java -Xmx8g benchmarks.HeapArityBenchmark}. Optional arguments override the sizes.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see MinHeapPriorityQueue
+ */
+public class HeapArityBenchmark {
+
+	private static final int OPS = 2_000_000;
+	private static final int ROUNDS = 5;
+
+	/* What a pre-d-ary MinHeapPriorityQueue stored in its ArrayMinHeap. */
+	private static final class Node implements Comparable<Node> {
+		private final int priority, called;
+		private final Object data;
+
+		private Node(int priority, int called, Object data) {
+			this.priority = priority;
+			this.called = called;
+			this.data = data;
+		}
+
+		@Override
+		public int compareTo(Node o) {
+			if (priority != o.priority) {
+				return priority < o.priority ? -1 : 1;
+			}
+			return Integer.compare(called, o.called);
+		}
+	}
+
+	private interface Workload {
+		void fill(int n, Random r) throws Exception;
+		long churn(int ops, Random r) throws Exception;
+	}
+
+	private static final class QueueWorkload implements Workload {
+		private final PriorityQueue<Integer> q;
+
+		private QueueWorkload(PriorityQueue<Integer> q) {
+			this.q = q;
+		}
+
+		public void fill(int n, Random r) throws InvalidPriorityException {
+			for (int i = 0; i < n; i ++) {
+				q.enqueue(i, 1 + r.nextInt(1 << 24));
+			}
+		}
+
+		public long churn(int ops, Random r) throws InvalidPriorityException, EmptyPriorityQueueException {
+			long sink = 0;
+			for (int i = 0; i < ops; i ++) {
+				sink += q.dequeue();
+				q.enqueue(i, 1 + r.nextInt(1 << 24));
+			}
+			return sink;
+		}
+	}
+
+	private static final class ArrayMinHeapWorkload implements Workload {
+		private final ArrayMinHeap<Node> heap = new ArrayMinHeap<Node>();
+		private int called = 0;
+
+		public void fill(int n, Random r) {
+			for (int i = 0; i < n; i ++) {
+				heap.insert(new Node(1 + r.nextInt(1 << 24), called ++, i));
+			}
+		}
+
+		public long churn(int ops, Random r) throws EmptyHeapException {
+			long sink = 0;
+			for (int i = 0; i < ops; i ++) {
+				sink += (Integer) heap.deleteMin().data;
+				heap.insert(new Node(1 + r.nextInt(1 << 24), called ++, i));
+			}
+			return sink;
+		}
+	}
+
+	private static Workload create(String name) {
+		switch (name) {
+			case "ArrayMinHeap":
+				return new ArrayMinHeapWorkload();
+			case "MinHeapPQ(d=2)":
+				return new QueueWorkload(new MinHeapPriorityQueue<Integer>(2));
+			case "MinHeapPQ(d=4)":
+				return new QueueWorkload(new MinHeapPriorityQueue<Integer>(4));
+			case "MinHeapPQ(d=8)":
+				return new QueueWorkload(new MinHeapPriorityQueue<Integer>(8));
+			case "PrimitiveMinHeapPQ":
+				return new QueueWorkload(new PrimitiveMinHeapPriorityQueue<Integer>());
+			default:
+				throw new IllegalArgumentException("Unknown workload: " + name);
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		int[] sizes = {10_000, 100_000, 1_000_000, 10_000_000};
+		if (args.length > 0) {
+			sizes = new int[args.length];
+			for (int i = 0; i < args.length; i ++) {
+				sizes[i] = Integer.parseInt(args[i]);
+			}
+		}
+		String[] names = {"ArrayMinHeap", "MinHeapPQ(d=2)", "MinHeapPQ(d=4)", "MinHeapPQ(d=8)", "PrimitiveMinHeapPQ"};
+
+		System.out.printf("%-20s %10s %14s%n", "heap", "n", "ns/(deq+enq)");
+		long sink = 0;
+		for (int n : sizes) {
+			for (String name : names) {
+				Workload w = create(name);
+				Random r = new Random(42);
+				w.fill(n, r);
+				sink += w.churn(OPS, r);	// Warm-up.
+				long best = Long.MAX_VALUE;
+				for (int round = 0; round < ROUNDS; round ++) {
+					long start = System.nanoTime();
+					sink += w.churn(OPS, r);
+					best = Math.min(best, System.nanoTime() - start);
+				}
+				System.out.printf("%-20s %10d %14.1f%n", name, n, (double) best / OPS);
+			}
+		}
+		if (sink == 42) {
+			System.out.println();	// Keeps the results observable to the JIT.
+		}
+	}
+}
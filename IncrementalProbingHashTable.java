@@ -0,0 +1,418 @@
+package phonebook.hashes;
+
+/**
+ * <p>{@link IncrementalProbingHashTable} is an open-addressing {@link HashTable} that resizes <em>incrementally</em>.
+ * When it runs out of room, it allocates the larger table next to the current one, and every following
+ * {@link #put(String, String)} and {@link #remove(String)} moves the entries of a bounded number of old slots into
+ * the new table. Lookups consult the new table, and then the old one until it has been drained. No single
+ * operation ever rehashes the whole table, so the latency of a write stays bounded however large the table
+ * grows.</p>
+ *
+ * <p>The number of slots migrated per operation is at least {@value #MIGRATION_STEP}, and is set when a resize
+ * starts so that the old table is always drained before the new one needs to be resized in turn: the old
+ * capacity, divided by the number of keys and tombstones that the new table can take before that. That is 2 when
+ * the table doubles, and at most the inverse of the compaction threshold when it is compacted.</p>
+ *
+ * <p>It probes the same three ways as {@link LinearProbingHashTable}, {@link OrderedLinearProbingHashTable} and
+ * {@link QuadraticProbingHashTable}, chosen by the {@link CollisionResolver} it is built with, and deletes softly
+ * (leaving a tombstone) or, under linear probing, hard (re-inserting the keys that follow the deleted one) just
+ * like them. Quadratic probe sequences cross anywhere in the table, so a hard delete would have to rebuild all of
+ * it: under quadratic probing, it always deletes softly, and tombstones are cleared by compaction. Unlike them,
+ * its capacities are powers of two, so that quadratic probing by triangular numbers visits every slot. The table
+ * is resized once half of its slots hold keys or tombstones: doubled if at least a quarter hold keys, and rebuilt
+ * at the same size otherwise.</p>
+ *
+ * <p>Tombstones lengthen the probe sequences of unsuccessful lookups as much as keys do. So once they fill a
+ * given fraction of the slots (the <em>compaction threshold</em>, {@value #DEFAULT_COMPACTION_THRESHOLD} by
+ * default), the table is also rebuilt at the same size, through the same incremental migration as a resize, which
+ * leaves the tombstones behind. Such <em>compactions</em> are counted by {@link #compactions()}, and
+ * {@link #reclaimedProbes()} sums by how much they shortened the probe sequences of the keys they moved.</p>
+ *
+ * <p>Probe counts reported in {@link Probe}s are the number of slots inspected, in both tables while a resize is
+ * under way.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see phonebook.Phonebook#Phonebook(CollisionResolver, CollisionResolver, boolean)
+ */
+public class IncrementalProbingHashTable implements InspectableHashTable {
+
+    private static final int INITIAL_CAPACITY = 8;
+    private static final int MIGRATION_STEP = 8;
+
+    /**
+     * The fraction of the slots that tombstones must fill for a compaction to start, unless another one is given.
+     */
+    public static final double DEFAULT_COMPACTION_THRESHOLD = 0.125;
+
+    /* Marks a deleted slot, and a slot of the old table whose entry has been migrated. Compared by reference. */
+    private static final String TOMBSTONE = new String("<tombstone>");
+
+    /* One power-of-two array of slots, probed in the way of the enclosing table. */
+    private final class Slots {
+        private final String[] keys, values;
+        private final int mask;
+        private int count, tombstones;
+
+        private Slots(int capacity) {
+            keys = new String[capacity];
+            values = new String[capacity];
+            mask = capacity - 1;
+        }
+
+        /* The k-th slot (from 0) of the probe sequence that starts at home. */
+        private int slot(int home, int k) {
+            return (probing == CollisionResolver.QUADRATIC_PROBING) ? (home + k * (k + 1) / 2) & mask
+                    : (home + k) & mask;
+        }
+
+        /* The slot of key, or -1. Adds the number of slots inspected to probes[0]. */
+        private int find(String key, int h, int[] probes) {
+            int home = h & mask;
+            for (int k = 0; k <= mask; k ++) {
+                int i = slot(home, k);
+                String s = keys[i];
+                probes[0] ++;
+                if (s == null) {
+                    return -1;
+                }
+                if (s != TOMBSTONE) {
+                    int cmp = (probing == CollisionResolver.ORDERED_LINEAR_PROBING) ? s.compareTo(key)
+                            : (s.equals(key) ? 0 : -1);
+                    if (cmp == 0) {
+                        return i;
+                    }
+                    if (cmp > 0) {
+                        return -1;  // Runs are in key order, so key would have come before s.
+                    }
+                }
+            }
+            return -1;
+        }
+
+        /* Stores a key known to be absent. Tombstones are skipped, never reused. Returns the slots inspected. */
+        private int insert(String key, String value) {
+            int home = strategy.hash(key) & mask;
+            int probes = 0;
+            for (int k = 0; ; k ++) {
+                int i = slot(home, k);
+                String s = keys[i];
+                probes ++;
+                if (s == null) {
+                    keys[i] = key;
+                    values[i] = value;
+                    count ++;
+                    return probes;
+                }
+                if (s != TOMBSTONE && probing == CollisionResolver.ORDERED_LINEAR_PROBING && s.compareTo(key) > 0) {
+                    String v = values[i];   // Take the slot of the greater key, and carry on inserting that.
+                    keys[i] = key;
+                    values[i] = value;
+                    key = s;
+                    value = v;
+                }
+            }
+        }
+
+        /* The number of slots that a search for a key with this home slot inspects to reach slot i. */
+        private int probesTo(int home, int i) {
+            int k = 0;
+            while (k < mask && slot(home, k) != i) {
+                k ++;
+            }
+            return k + 1;
+        }
+
+        /* Leaves a tombstone in slot i. */
+        private void bury(int i) {
+            keys[i] = TOMBSTONE;
+            values[i] = null;
+            count --;
+            tombstones ++;
+        }
+
+        /* Empties slot i and re-inserts every key of the run that follows it. Linear probing only. */
+        private void delete(int i) {
+            keys[i] = null;
+            values[i] = null;
+            count --;
+            for (int j = (i + 1) & mask; keys[j] != null; j = (j + 1) & mask) {
+                String key = keys[j], value = values[j];
+                keys[j] = null;
+                values[j] = null;
+                if (key == TOMBSTONE) {
+                    tombstones --;
+                } else {
+                    count --;
+                    insert(key, value);
+                }
+            }
+        }
+    }
+
+    private final CollisionResolver probing;
+    private final boolean soft;
+    private final HashStrategy strategy;
+    private final double compactionThreshold;
+    private Slots current;
+    private Slots old;          // The table being drained into current, or null.
+    private int migrated;       // The slots of old before this one have been drained.
+    private int migrationStep;  // The slots of old to drain per operation.
+    private boolean compacting; // Whether current has the capacity of old.
+    private long compactions, reclaimedProbes;
+    private long reclaiming;    // The probes reclaimed so far by the compaction under way, possibly negative.
+
+    /**
+     * Creates an empty table, which hashes its keys with {@link HashStrategy#SPREAD}.
+     * @param probing One of {@link CollisionResolver#LINEAR_PROBING},
+     *                {@link CollisionResolver#ORDERED_LINEAR_PROBING} and {@link CollisionResolver#QUADRATIC_PROBING}.
+     * @param soft {@code true} to delete by leaving tombstones, {@code false} to delete by re-inserting the keys
+     *             that follow the deleted one. Ignored under quadratic probing, which always leaves tombstones.
+     * @throws IllegalArgumentException If probing is not one of the open addressing schemes above.
+     */
+    public IncrementalProbingHashTable(CollisionResolver probing, boolean soft) {
+        this(probing, soft, HashStrategy.SPREAD);
+    }
+
+    /**
+     * Creates an empty table.
+     * @param probing One of {@link CollisionResolver#LINEAR_PROBING},
+     *                {@link CollisionResolver#ORDERED_LINEAR_PROBING} and {@link CollisionResolver#QUADRATIC_PROBING}.
+     * @param soft {@code true} to delete by leaving tombstones, {@code false} to delete by re-inserting the keys
+     *             that follow the deleted one. Ignored under quadratic probing, which always leaves tombstones.
+     * @param strategy The hash function of the keys.
+     * @throws IllegalArgumentException If probing is not one of the open addressing schemes above, or if strategy
+     * is {@code null}.
+     */
+    public IncrementalProbingHashTable(CollisionResolver probing, boolean soft, HashStrategy strategy) {
+        this(probing, soft, strategy, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Creates an empty table.
+     * @param probing One of {@link CollisionResolver#LINEAR_PROBING},
+     *                {@link CollisionResolver#ORDERED_LINEAR_PROBING} and {@link CollisionResolver#QUADRATIC_PROBING}.
+     * @param soft {@code true} to delete by leaving tombstones, {@code false} to delete by re-inserting the keys
+     *             that follow the deleted one. Ignored under quadratic probing, which always leaves tombstones.
+     * @param strategy The hash function of the keys.
+     * @param compactionThreshold The fraction of the slots, in (0, 1], that tombstones must fill for the table to
+     *                            be compacted. At 1/2 or more, only resizes ever clear tombstones.
+     * @throws IllegalArgumentException If probing is not one of the open addressing schemes above, if strategy
+     * is {@code null}, or if compactionThreshold is not in (0, 1].
+     */
+    public IncrementalProbingHashTable(CollisionResolver probing, boolean soft, HashStrategy strategy,
+                                       double compactionThreshold) {
+        if (probing != CollisionResolver.LINEAR_PROBING && probing != CollisionResolver.ORDERED_LINEAR_PROBING
+                && probing != CollisionResolver.QUADRATIC_PROBING) {
+            throw new IllegalArgumentException("Unsupported probing scheme: " + probing + ".");
+        }
+        if (strategy == null) {
+            throw new IllegalArgumentException("Provided: strategy=null");
+        }
+        if (!(compactionThreshold > 0 && compactionThreshold <= 1)) {
+            throw new IllegalArgumentException("Provided: compactionThreshold=" + compactionThreshold);
+        }
+        this.probing = probing;
+        this.soft = soft || probing == CollisionResolver.QUADRATIC_PROBING;
+        this.strategy = strategy;
+        this.compactionThreshold = compactionThreshold;
+        current = new Slots(INITIAL_CAPACITY);
+    }
+
+    /* Moves the entries of up to steps slots of old into current. */
+    private void migrate(int steps) {
+        if (old == null) {
+            return;
+        }
+        int end = migrated + Math.min(steps, old.keys.length - migrated);
+        for (; migrated < end; migrated ++) {
+            String key = old.keys[migrated];
+            if (key != null && key != TOMBSTONE) {
+                int probes = current.insert(key, old.values[migrated]);
+                if (compacting) {
+                    reclaiming += old.probesTo(strategy.hash(key) & old.mask, migrated) - probes;
+                }
+                old.bury(migrated);     // Keeps the probe sequences of the old table intact.
+            }
+        }
+        if (migrated == old.keys.length) {
+            if (compacting) {
+                reclaimedProbes += Math.max(0, reclaiming);
+                reclaiming = 0;
+            }
+            old = null;
+            compacting = false;
+        }
+    }
+
+    /* Starts draining current into a new table of the provided capacity. */
+    private void rebuild(int capacity) {
+        old = current;
+        migrated = 0;
+        current = new Slots(capacity);
+        /* Each operation adds at most one key or tombstone to current, besides the old.count keys migrated into it,
+         * and ensureRoom() resizes again once current is half full: old must be drained within that headroom. */
+        int headroom = Math.max(1, capacity / 2 - old.count - 1);
+        migrationStep = Math.max(MIGRATION_STEP, (old.keys.length + headroom - 1) / headroom);
+        compacting = capacity == old.keys.length;
+        if (compacting) {
+            compactions ++;
+        }
+    }
+
+    /* Starts a compaction once tombstones fill the threshold fraction of current, unless a rebuild is under way. */
+    private void compactIfNeeded() {
+        if (old == null && current.tombstones > 0
+                && current.tombstones >= compactionThreshold * current.keys.length) {
+            rebuild(current.keys.length);
+        }
+    }
+
+    /* Starts a resize once half of current holds keys or tombstones. The migration step of the previous one has
+     * drained it by then. */
+    private void ensureRoom() {
+        if ((current.count + current.tombstones + 1) * 2L <= current.keys.length) {
+            return;
+        }
+        if (old != null) {
+            throw new IllegalStateException("Resize needed before the previous one ended.");   // Not reachable.
+        }
+        int capacity = current.keys.length;
+        rebuild((current.count * 4L >= capacity) ? 2 * capacity : capacity);
+    }
+
+    @Override
+    public Probe put(String key, String value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Provided: key=" + key + " and value=" + value);
+        }
+        migrate(migrationStep);
+        int h = strategy.hash(key);
+        int[] probes = new int[1];
+        int i = current.find(key, h, probes);
+        if (i >= 0) {
+            current.values[i] = value;
+            return new Probe(value, probes[0]);
+        }
+        if (old != null && (i = old.find(key, h, probes)) >= 0) {
+            old.values[i] = value;
+            return new Probe(value, probes[0]);
+        }
+        ensureRoom();
+        return new Probe(value, probes[0] + current.insert(key, value));
+    }
+
+    @Override
+    public Probe get(String key) {
+        if (key == null) {
+            return new Probe(null, 0);
+        }
+        int h = strategy.hash(key);
+        int[] probes = new int[1];
+        int i = current.find(key, h, probes);
+        if (i >= 0) {
+            return new Probe(current.values[i], probes[0]);
+        }
+        if (old != null && (i = old.find(key, h, probes)) >= 0) {
+            return new Probe(old.values[i], probes[0]);
+        }
+        return new Probe(null, probes[0]);
+    }
+
+    @Override
+    public Probe remove(String key) {
+        if (key == null) {
+            return new Probe(null, 0);
+        }
+        migrate(migrationStep);
+        int h = strategy.hash(key);
+        int[] probes = new int[1];
+        int i = current.find(key, h, probes);
+        if (i >= 0) {
+            String value = current.values[i];
+            if (soft) {
+                current.bury(i);
+                compactIfNeeded();
+            } else {
+                current.delete(i);
+            }
+            return new Probe(value, probes[0]);
+        }
+        if (old != null && (i = old.find(key, h, probes)) >= 0) {
+            String value = old.values[i];
+            old.bury(i);
+            return new Probe(value, probes[0]);
+        }
+        return new Probe(null, probes[0]);
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return get(key).getValue() != null;
+    }
+
+    @Override
+    public boolean containsValue(String value) {
+        for (Slots t : new Slots[] {current, old}) {
+            if (t != null) {
+                for (int i = 0; i < t.keys.length; i ++) {
+                    if (t.keys[i] != null && t.keys[i] != TOMBSTONE && t.values[i].equals(value)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return current.count + ((old == null) ? 0 : old.count);
+    }
+
+    @Override
+    public int capacity() {
+        return current.keys.length;
+    }
+
+    /**
+     * Returns the number of tombstones, in the previous table as well while a resize is under way. Every migrated
+     * entry leaves one there, until the previous table is dropped.
+     * @return The number of slots that hold a tombstone.
+     */
+    @Override
+    public int tombstones() {
+        return current.tombstones + ((old == null) ? 0 : old.tombstones);
+    }
+
+    /**
+     * Returns whether a resize or a compaction is under way, that is, whether lookups still consult the previous
+     * table.
+     * @return {@code true} if entries remain to be migrated out of the previous table.
+     */
+    public boolean isResizing() {
+        return old != null;
+    }
+
+    /**
+     * Returns the number of rebuilds at the same capacity, whether started by the compaction threshold or by a
+     * resize of a table in which fewer than a quarter of the slots hold keys.
+     * @return The number of compactions since the table was created.
+     */
+    @Override
+    public long compactions() {
+        return compactions;
+    }
+
+    /**
+     * Returns by how much compactions have shortened the probe sequences of the keys they moved: for each key, the
+     * number of slots that a search for it inspected in the table being drained, minus the number that its
+     * insertion into the new table inspected. A compaction counts once it has ended, and counts as zero if it
+     * made the probe sequences longer overall, as keys inserted during it can, so the total never decreases.
+     * @return The total number of probes reclaimed by compactions since the table was created, never negative.
+     */
+    @Override
+    public long reclaimedProbes() {
+        return reclaimedProbes;
+    }
+}
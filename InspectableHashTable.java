@@ -0,0 +1,48 @@
+package phonebook.hashes;
+
+/**
+ * <p>{@link InspectableHashTable} is a {@link HashTable} that reports the parts of its occupancy that cannot be
+ * observed through {@link HashTable} itself, for {@link HashTableStats}. An open addressing table reports its
+ * tombstones, and how often it has rebuilt itself to clear them; a table that chains its collisions reports the
+ * distribution of its chain lengths.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see InstrumentedHashTable
+ */
+public interface InspectableHashTable extends HashTable {
+
+    /**
+     * Returns the number of slots that hold a deletion marker.
+     * @return The number of tombstones in the table; 0 for a table that never leaves any.
+     */
+    default int tombstones() {
+        return 0;
+    }
+
+    /**
+     * Returns the distribution of chain lengths, for a table that chains its collisions.
+     * @return An array whose element i is the number of chains of length i (the last element counting every longer
+     * chain), or {@code null} for a table without chains.
+     */
+    default int[] chainLengths() {
+        return null;
+    }
+
+    /**
+     * Returns the number of times the table has been rebuilt at the same capacity to clear its tombstones.
+     * @return The number of compactions since the table was created; 0 for a table that never compacts.
+     */
+    default long compactions() {
+        return 0;
+    }
+
+    /**
+     * Returns by how much compactions have shortened the probe sequences of the keys they moved.
+     * @return The sum, over every key moved by a compaction, of its probe length before the compaction minus its
+     * probe length after; 0 for a table that never compacts.
+     */
+    default long reclaimedProbes() {
+        return 0;
+    }
+}
@@ -0,0 +1,157 @@
+package phonebook.hashes;
+
+import java.util.Arrays;
+
+/**
+ * <p>{@link InstrumentedHashTable} wraps any {@link HashTable} and gathers statistics about it, which
+ * {@link #getStatistics()} returns as a {@link HashTableStats} snapshot. Every {@link #get(String)} and
+ * {@link #containsKey(String)} adds the probe count of its {@link Probe} to the histogram of successful or
+ * unsuccessful lookups, and every write that changes the {@link HashTable#capacity() capacity} of the table counts
+ * as a resize, along with its duration. Tombstones, compactions and chain lengths are reported if the wrapped table
+ * is an {@link InspectableHashTable}.</p>
+ *
+ * <p>The overhead is an array increment per lookup, and two {@link System#nanoTime()} calls per write. Batch
+ * lookups through {@link #getAll(String[], String[], int)} are passed straight to the wrapped table when it is a
+ * {@link BatchHashTable}, and are not counted then, since such a table does not report their probe counts.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see HashTableStats
+ * @see phonebook.Phonebook#enableStatistics()
+ */
+public class InstrumentedHashTable implements BatchHashTable {
+
+    private final HashTable table;
+    private final long[] successful = new long[HashTableStats.MAX_PROBES + 1];
+    private final long[] unsuccessful = new long[HashTableStats.MAX_PROBES + 1];
+    private long resizes, resizeNanos;
+
+    /**
+     * Wraps a table.
+     * @param table The table to gather statistics about. It should not be used other than through this
+     *              {@link InstrumentedHashTable} anymore.
+     */
+    public InstrumentedHashTable(HashTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Returns the wrapped table.
+     * @return The table that this {@link InstrumentedHashTable} gathers statistics about.
+     */
+    public HashTable getTable() {
+        return table;
+    }
+
+    private Probe lookedUp(Probe p) {
+        long[] histogram = (p.getValue() == null) ? unsuccessful : successful;
+        histogram[Math.min(p.probes, HashTableStats.MAX_PROBES)] ++;
+        return p;
+    }
+
+    private Probe wrote(Probe p, int capacityBefore, long start) {
+        if (table.capacity() != capacityBefore) {
+            resizes ++;
+            resizeNanos += System.nanoTime() - start;
+        }
+        return p;
+    }
+
+    @Override
+    public Probe put(String key, String value) {
+        int capacity = table.capacity();
+        long start = System.nanoTime();
+        return wrote(table.put(key, value), capacity, start);
+    }
+
+    @Override
+    public Probe get(String key) {
+        return lookedUp(table.get(key));
+    }
+
+    @Override
+    public Probe remove(String key) {
+        int capacity = table.capacity();
+        long start = System.nanoTime();
+        return wrote(table.remove(key), capacity, start);
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return key != null && get(key).getValue() != null;
+    }
+
+    @Override
+    public boolean containsValue(String value) {
+        return table.containsValue(value);
+    }
+
+    @Override
+    public int size() {
+        return table.size();
+    }
+
+    @Override
+    public int capacity() {
+        return table.capacity();
+    }
+
+    @Override
+    public void getAll(String[] batch, String[] out, int n) {
+        if (table instanceof BatchHashTable) {
+            ((BatchHashTable) table).getAll(batch, out, n);
+            return;
+        }
+        for (int i = 0; i < n; i ++) {
+            out[i] = (batch[i] == null) ? null : get(batch[i]).getValue();
+        }
+    }
+
+    @Override
+    public void putAll(String[] batch, String[] vals, int n) {
+        if (table instanceof BatchHashTable) {
+            int capacity = table.capacity();
+            long start = System.nanoTime();
+            ((BatchHashTable) table).putAll(batch, vals, n);
+            wrote(null, capacity, start);
+            return;
+        }
+        for (int i = 0; i < n; i ++) {
+            if (batch[i] == null || vals[i] == null) {
+                throw new IllegalArgumentException("Provided: key=" + batch[i] + " and value=" + vals[i]);
+            }
+        }
+        for (int i = 0; i < n; i ++) {
+            put(batch[i], vals[i]);
+        }
+    }
+
+    /**
+     * Returns a snapshot of the statistics gathered so far, and of the current occupancy of the table.
+     * @return The statistics of the wrapped table.
+     */
+    public HashTableStats getStatistics() {
+        int tombstones = -1;
+        int[] chains = null;
+        long compactions = 0, reclaimed = 0;
+        if (table instanceof InspectableHashTable) {
+            InspectableHashTable inspectable = (InspectableHashTable) table;
+            tombstones = inspectable.tombstones();
+            chains = inspectable.chainLengths();
+            compactions = inspectable.compactions();
+            reclaimed = inspectable.reclaimedProbes();
+        }
+        return new HashTableStats(successful, unsuccessful, table.size(), table.capacity(), tombstones, chains,
+                resizes, resizeNanos, compactions, reclaimed);
+    }
+
+    /**
+     * Clears the histograms and the resize counts, for example at the start of a measurement period.
+     */
+    public void resetStatistics() {
+        Arrays.fill(successful, 0);
+        Arrays.fill(unsuccessful, 0);
+        resizes = 0;
+        resizeNanos = 0;
+    }
+}
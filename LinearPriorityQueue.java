@@ -12,6 +12,9 @@ import pqueue.fifoqueues.FIFOQueue;
 import pqueue.heaps.ArrayMinHeap;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 /**
  * <p>{@link LinearPriorityQueue} is a {@link PriorityQueue} implemented as a linear {@link java.util.Collection}
  * of common {@link FIFOQueue}s, where the {@link FIFOQueue}s themselves hold objects
@@ -24,6 +27,18 @@ import java.util.*;
  * if you intend to do so. Note that, unlike {@link ArrayMinHeap}, we do not insist that you use a contiguous storage
  * {@link Collection}, but any one available (including {@link LinkedList}) </p>
  *
+ * <p>A queue created with a capacity holds at most that many elements per priority. What happens to an element
+ * whose bucket is full is decided by the queue's {@link OverflowPolicy}, and counted in its
+ * {@link OverflowMetrics}.</p>
+ *
+ * <p>Buckets are kept in an array indexed by priority, so priorities are limited to {@link #MAX_PRIORITY}. Use a
+ * {@link TimingWheelPriorityQueue} for priorities over the whole positive {@code int} range.</p>
+ *
+ * <p>A queue created with a capacity may be shared between producer and consumer threads: each of its operations
+ * holds a private lock, and a producer that {@link OverflowPolicy#BLOCK blocks} on a full bucket waits on a condition
+ * of that lock until a consumer takes an element. Iterating over such a queue still requires that no other thread
+ * modifies it. A queue created without a capacity is not thread-safe.</p>
+ *
  * @param <T> The type held by the container.
  *
  * @author  ---- Shane Purnell ----
@@ -37,27 +52,196 @@ public class LinearPriorityQueue<T> implements PriorityQueue<T> {
 	/* ***********************************************************************************
 	 * Write any private data elements or private methods for LinearPriorityQueue here...*
 	 * ***********************************************************************************/
-	private Object[] main_arr;
+	private static final int INITIAL_BUCKETS = 64;
+
+	/**
+	 * The highest priority that a {@link LinearPriorityQueue} accepts: the array of buckets of a queue that holds
+	 * it takes 64 MiB or more of references.
+	 */
+	public static final int MAX_PRIORITY = 1 << 24;
+
+	/* Buckets are created lazily: main_arr[p] stays null until priority p is first used. */
+	private RingBufferFIFO<T>[] main_arr;
+	private OccupancyBitmap occupied;
 	private int total, cap, realModCount;
+	private final OverflowPolicy policy;
+	private final PriorityQueue<T> overflow;
+	private final OverflowMetrics metrics;	// Capped queues only.
+	/* Capped queues only: every operation holds lock, and producers waiting for room await roomMade. */
+	private final ReentrantLock lock;
+	private final Condition roomMade;
+	private int waiters;	// Producers awaiting roomMade.
+	
+	@SuppressWarnings("unchecked")
+	private static <T> RingBufferFIFO<T>[] newBuckets(int sz) {
+		return (RingBufferFIFO<T>[]) new RingBufferFIFO[sz];
+	}
+	
+	private RingBufferFIFO<T> bucket(int priority) {
+		RingBufferFIFO<T> b = main_arr[priority];
+		if (b == null) {
+			b = new RingBufferFIFO<T>();
+			main_arr[priority] = b;
+		}
+		return b;
+	}
 	
 	private int getFirstList() {
-		for (int i = 0; i < main_arr.length; i ++) {
-			if (((LinkedList<T>)main_arr[i]).size() > 0) {
-				return i;
-			}
+		int i = occupied.nextSetBit(1);
+		return (i < 0) ? 0 : i;
+	}
+	
+	private int getNextList(int start) {
+		if (start == Integer.MAX_VALUE) {
+			return -1;
+		}
+		return occupied.nextSetBit(start + 1);
+	}
+	
+	private class LinearHandle implements PriorityQueueHandle<T> {
+		private T element;
+		private int priority;
+		private long ticket;
+		
+		private LinearHandle(T element, int priority, long ticket) {
+			this.element = element;
+			this.priority = priority;
+			this.ticket = ticket;
+		}
+		
+		private LinearPriorityQueue<T> queue() {
+			return LinearPriorityQueue.this;
+		}
+		
+		public T getElement() {
+			return element;
 		}
 		
-		return 0;
+		public int getPriority() {
+			return priority;
+		}
+		
+		public boolean isEnqueued() {
+			acquire();
+			try {
+				return priority < main_arr.length && main_arr[priority] != null && main_arr[priority].contains(ticket);
+			} finally {
+				release();
+			}
+		}
 	}
 	
-	private int getNextList(int start) {
-		for (int i = start + 1; i < main_arr.length; i ++) {
-			if (((LinkedList<T>)main_arr[i]).size() > 0) {
-				return i;
+	/* Returns the handle as one of ours if its element is still in this queue, null otherwise. */
+	@SuppressWarnings("unchecked")
+	private LinearHandle live(PriorityQueueHandle<T> handle) {
+		if (!(handle instanceof LinearPriorityQueue.LinearHandle)) {
+			return null;
+		}
+		LinearHandle h = (LinearHandle) handle;
+		return (h.queue() == this && h.isEnqueued()) ? h : null;
+	}
+	
+	/* Grows main_arr (and the occupancy bitmap) so that priority is a valid bucket index. */
+	private void ensureBucket(int priority) throws InvalidPriorityException {
+		if (priority < main_arr.length) {
+			return;
+		}
+		if (priority > MAX_PRIORITY) {
+			throw new InvalidPriorityException("Priority must be <= " + MAX_PRIORITY);
+		}
+		int sz = Math.min(Math.max(priority + 1, 2 * main_arr.length), MAX_PRIORITY + 1);
+		main_arr = Arrays.copyOf(main_arr, sz);
+		occupied.ensureCapacity(sz);
+	}
+	
+	private boolean full(int priority) {
+		return cap != -1 && main_arr[priority] != null && main_arr[priority].size() >= cap;
+	}
+	
+	private void acquire() {
+		if (lock != null) {
+			lock.lock();
+		}
+	}
+	
+	private void release() {
+		if (lock != null) {
+			lock.unlock();
+		}
+	}
+	
+	/* Waits until the bucket of priority has room, for at most nanos (Long.MAX_VALUE: forever). Requires lock. */
+	private boolean awaitRoom(int priority, long nanos) {
+		long start = System.nanoTime();
+		long left = nanos;
+		waiters ++;
+		try {
+			while (full(priority)) {
+				if (left <= 0) {
+					return false;
+				}
+				if (nanos == Long.MAX_VALUE) {
+					roomMade.await();
+				} else {
+					left = roomMade.awaitNanos(left);
+				}
 			}
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} finally {
+			waiters --;
+			metrics.block(priority, System.nanoTime() - start);
 		}
-		
-		return -1; 
+	}
+	
+	/* Applies the overflow policy to an element of priority, and tells whether it may now be added to its bucket.
+	 * Requires ensureBucket(priority). */
+	private boolean admit(T element, int priority, long nanos) {
+		if (cap == -1) {
+			return true;
+		}
+		if (full(priority)) {
+			switch (policy) {
+				case EVICT_OLDEST:
+					main_arr[priority].poll();
+					total --;
+					realModCount ++;
+					metrics.drop(priority);
+					break;
+				case SPILL:
+					try {
+						overflow.enqueue(element, priority);
+					} catch (InvalidPriorityException e) {
+						throw new IllegalStateException(e);	// Not reachable: the priority was already checked.
+					}
+					metrics.spill(priority);
+					return false;
+				case BLOCK:
+					if (awaitRoom(priority, nanos)) {
+						break;
+					}
+					metrics.drop(priority);
+					return false;
+				default:
+					metrics.drop(priority);
+					return false;
+			}
+		}
+		metrics.accept(priority);
+		return true;
+	}
+	
+	/* Called, with lock held if there is one, after elements leave a bucket, to wake up producers blocked on it. */
+	private void madeRoom() {
+		if (waiters > 0) {
+			roomMade.signalAll();
+		}
+	}
+	
+	private PriorityQueueFullException refused(int priority) {
+		return new PriorityQueueFullException("The bucket of priority " + priority + " is full (" + cap + " elements).");
 	}
 
 
@@ -71,16 +255,19 @@ public class LinearPriorityQueue<T> implements PriorityQueue<T> {
 	 * underlying element structure that you will choose to use to implement this class.
 	 */
 	public LinearPriorityQueue(){
-		int sz = 10000;
+		int sz = INITIAL_BUCKETS;
 		total = 0;
 		// No cap on inner element
 		cap = -1;
 		realModCount = 0;
+		policy = OverflowPolicy.DROP;
+		overflow = null;
 		 
-		main_arr = new Object[sz];
-		for (int i = 0; i < sz; i ++) {
-			main_arr[i] = new LinkedList<T>();
-		}
+		main_arr = newBuckets(sz);
+		occupied = new OccupancyBitmap(sz);
+		metrics = null;
+		lock = null;
+		roomMade = null;
 	}
 
 	/**
@@ -92,87 +279,415 @@ public class LinearPriorityQueue<T> implements PriorityQueue<T> {
 	 * @throws InvalidCapacityException if the capacity provided is less than 1.
 	 */
 	public LinearPriorityQueue(int capacity) throws InvalidCapacityException{	// DO *NOT* ERASE THE "THROWS" DECLARATION!
+		this(capacity, OverflowPolicy.DROP, null);
+	}
+
+	/**
+	 * Constructor for a queue that holds at most capacity elements per priority, and handles the elements that
+	 * find their bucket full according to policy.
+	 * @param capacity The maximum number of elements per priority.
+	 * @param policy What to do with an element whose bucket is full. Must not be {@link OverflowPolicy#SPILL},
+	 *               which needs an overflow queue.
+	 * @throws InvalidCapacityException if the capacity provided is less than 1.
+	 * @throws IllegalArgumentException if policy is {@link OverflowPolicy#SPILL}.
+	 * @see #LinearPriorityQueue(int, PriorityQueue)
+	 */
+	public LinearPriorityQueue(int capacity, OverflowPolicy policy) throws InvalidCapacityException {
+		this(capacity, policy, null);
+		if (policy == OverflowPolicy.SPILL) {
+			throw new IllegalArgumentException("SPILL needs an overflow queue.");
+		}
+	}
+
+	/**
+	 * Constructor for a queue that holds at most capacity elements per priority, and moves the elements that
+	 * find their bucket full, with their priority, to the provided overflow queue ({@link OverflowPolicy#SPILL}).
+	 * @param capacity The maximum number of elements per priority.
+	 * @param overflow The queue that receives the elements that do not fit.
+	 * @throws InvalidCapacityException if the capacity provided is less than 1.
+	 */
+	public LinearPriorityQueue(int capacity, PriorityQueue<T> overflow) throws InvalidCapacityException {
+		this(capacity, OverflowPolicy.SPILL, Objects.requireNonNull(overflow));
+	}
+
+	private LinearPriorityQueue(int capacity, OverflowPolicy policy, PriorityQueue<T> overflow)
+			throws InvalidCapacityException {
 		if (capacity < 1) {
 			throw new InvalidCapacityException("Capacity must be >= 1");
 		}
 		total = 0;
 		cap = capacity;
 		realModCount = 0;
-		main_arr = new Object[10000];
-		
-		for (int i = 0; i < 10000; i ++) {
-			main_arr[i] = new LinkedList<T>();
-		}
+		this.policy = Objects.requireNonNull(policy);
+		this.overflow = overflow;
+		main_arr = newBuckets(INITIAL_BUCKETS);
+		occupied = new OccupancyBitmap(INITIAL_BUCKETS);
+		metrics = new OverflowMetrics();
+		lock = new ReentrantLock();
+		roomMade = lock.newCondition();
 	}
 
-	@SuppressWarnings("unchecked")
+	/**
+	 * Enqueues the provided element taking into account its priority. If this queue was created with a capacity
+	 * and the bucket of the priority is full, the element is handled by the queue's {@link OverflowPolicy}.
+	 * @param element The element to enqueue.
+	 * @param priority The priority of the element that will be enqueued.
+	 * @throws InvalidPriorityException if the priority provided is less than 1 or greater than {@link #MAX_PRIORITY}.
+	 * @throws PriorityQueueFullException if the bucket is full and the policy is {@link OverflowPolicy#REJECT},
+	 * or the policy is {@link OverflowPolicy#BLOCK} and the calling thread was interrupted while waiting.
+	 */
 	@Override
 	public void enqueue(T element, int priority) throws InvalidPriorityException{	// DO *NOT* ERASE THE "THROWS" DECLARATION!
 		if (priority <= 0) {
 			throw new InvalidPriorityException("Priority must be >= 1");
 		}
 		if (cap == -1) {
-			((LinkedList<T>)main_arr[priority]).add(element);
+			ensureBucket(priority);
+			bucket(priority).add(element);
+			occupied.set(priority);
 			total++;
 			realModCount ++;
 			return;
 		}
 		
-		if (((LinkedList<T>)main_arr[priority]).size() >= cap) {
-			realModCount ++;
-			return;
-		} else {
-			((LinkedList<T>)main_arr[priority]).add(element);
+		if (!offer(element, priority, Long.MAX_VALUE, TimeUnit.NANOSECONDS)
+				&& (policy == OverflowPolicy.REJECT || policy == OverflowPolicy.BLOCK)) {
+			throw refused(priority);
+		}
+	}
+
+	/**
+	 * Enqueues the provided element if its bucket has room, or if the queue's {@link OverflowPolicy} makes room
+	 * for it. Under {@link OverflowPolicy#BLOCK}, waits for room as long as it takes.
+	 * @param element The element to enqueue.
+	 * @param priority The priority of the element that will be enqueued.
+	 * @return {@code true} if the element was added to this queue, {@code false} if it was dropped, rejected or
+	 * spilled to the overflow queue.
+	 * @throws InvalidPriorityException if the priority provided is less than 1 or greater than {@link #MAX_PRIORITY}.
+	 */
+	public boolean offer(T element, int priority) throws InvalidPriorityException {
+		return offer(element, priority, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Enqueues the provided element like {@link #offer(Object, int)} does, but under {@link OverflowPolicy#BLOCK}
+	 * waits at most the provided timeout for room.
+	 * @param element The element to enqueue.
+	 * @param priority The priority of the element that will be enqueued.
+	 * @param timeout How long to wait for room, in units of unit. Ignored by the other policies.
+	 * @param unit The unit of timeout.
+	 * @return {@code true} if the element was added to this queue, {@code false} otherwise.
+	 * @throws InvalidPriorityException if the priority provided is less than 1 or greater than {@link #MAX_PRIORITY}.
+	 */
+	public boolean offer(T element, int priority, long timeout, TimeUnit unit) throws InvalidPriorityException {
+		if (priority <= 0) {
+			throw new InvalidPriorityException("Priority must be >= 1");
+		}
+		acquire();
+		try {
+			ensureBucket(priority);
+			if (!admit(element, priority, unit.toNanos(timeout))) {
+				return false;
+			}
+			bucket(priority).add(element);
+			occupied.set(priority);
 			realModCount ++;
 			total ++;
+			return true;
+		} finally {
+			release();
 		}
 	}
 
-	@SuppressWarnings("unchecked")
-	@Override
-	public T dequeue() throws EmptyPriorityQueueException { 	// DO *NOT* ERASE THE "THROWS" DECLARATION!
-		int ind = getFirstList();
-		if (total == 0 || ind == 0) {
-			throw new EmptyPriorityQueueException("Queue is empty");
-		}
-		
-		if (ind <= 0) {
+	/**
+	 * Returns the counters of accepted, dropped, spilled and blocked elements of this queue, per priority.
+	 * @return A snapshot of the {@link OverflowMetrics} of this queue, taken under its lock, or {@code null} if it
+	 * was created without a capacity: such a queue never overflows, and does not count what it accepts.
+	 */
+	public OverflowMetrics getOverflowMetrics() {
+		if (metrics == null) {
 			return null;
 		}
+		acquire();
+		try {
+			return metrics.snapshot();
+		} finally {
+			release();
+		}
+	}
+
+	/**
+	 * Returns the policy that handles elements whose bucket is full.
+	 * @return The {@link OverflowPolicy} of this queue; {@link OverflowPolicy#DROP} for queues without a capacity,
+	 * which never overflow.
+	 */
+	public OverflowPolicy getOverflowPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Enqueues the provided element like {@link #enqueue(Object, int)} does, and returns a handle to it which can be
+	 * passed to {@link #updatePriority(PriorityQueueHandle, int)} and {@link #remove(PriorityQueueHandle)}.
+	 * @param element The element to enqueue.
+	 * @param priority The priority of the element that will be enqueued.
+	 * @return A handle to the enqueued element, or {@code null} if this queue was created with a capacity and
+	 * the element was dropped or spilled because its bucket is full.
+	 * @throws InvalidPriorityException if the priority provided is less than 1 or greater than {@link #MAX_PRIORITY}.
+	 * @throws PriorityQueueFullException under the same conditions as {@link #enqueue(Object, int)}.
+	 */
+	public PriorityQueueHandle<T> enqueueWithHandle(T element, int priority) throws InvalidPriorityException {
+		if (priority <= 0) {
+			throw new InvalidPriorityException("Priority must be >= 1");
+		}
+		acquire();
+		try {
+			ensureBucket(priority);
+			if (!admit(element, priority, Long.MAX_VALUE)) {
+				if (policy == OverflowPolicy.REJECT || policy == OverflowPolicy.BLOCK) {
+					throw refused(priority);
+				}
+				return null;
+			}
+			long ticket = bucket(priority).add(element);
+			occupied.set(priority);
+			realModCount ++;
+			total ++;
+			return new LinearHandle(element, priority, ticket);
+		} finally {
+			release();
+		}
+	}
 	
-		T res = ((LinkedList<T>)main_arr[ind]).getFirst();
-		((LinkedList<T>)main_arr[ind]).remove();
-		realModCount ++;
+	/* Unlinks a live handle's element from its bucket in O(1). */
+	private void unlink(LinearHandle h) {
+		RingBufferFIFO<T> b = main_arr[h.priority];
+		b.removeAt(h.ticket);
+		if (b.isEmpty()) {
+			occupied.clear(h.priority);
+		}
 		total --;
-		return res;
+		realModCount ++;
+		madeRoom();
+	}
+	
+	/**
+	 * Moves the element referred to by handle to a new priority in O(1). The element is appended to the tail of
+	 * its new bucket, so it is dequeued after every element that already had that priority. If the new priority
+	 * equals the current one, the element keeps its place.
+	 * @param handle A handle returned by {@link #enqueueWithHandle(Object, int)} on this queue.
+	 * @param newPriority The new priority of the element.
+	 * @return {@code true} if the element now has the new priority, {@code false} if the handle is stale, belongs
+	 * to another queue, or if this queue has a capacity and the bucket of the new priority is full (whatever the
+	 * {@link OverflowPolicy}: the element then simply keeps its current priority).
+	 * @throws InvalidPriorityException if the priority provided is less than 1 or greater than {@link #MAX_PRIORITY}.
+	 */
+	public boolean updatePriority(PriorityQueueHandle<T> handle, int newPriority) throws InvalidPriorityException {
+		if (newPriority <= 0) {
+			throw new InvalidPriorityException("Priority must be >= 1");
+		}
+		acquire();
+		try {
+			LinearHandle h = live(handle);
+			if (h == null) {
+				return false;
+			}
+			if (h.priority == newPriority) {
+				return true;
+			}
+			ensureBucket(newPriority);
+			if (full(newPriority)) {
+				return false;
+			}
+			unlink(h);
+			h.ticket = bucket(newPriority).add(h.element);
+			h.priority = newPriority;
+			occupied.set(newPriority);
+			total ++;
+			return true;
+		} finally {
+			release();
+		}
+	}
+	
+	/**
+	 * Removes the element referred to by handle from the queue in O(1).
+	 * @param handle A handle returned by {@link #enqueueWithHandle(Object, int)} on this queue.
+	 * @return {@code true} if the element was removed, {@code false} if the handle is stale or belongs to
+	 * another queue.
+	 */
+	public boolean remove(PriorityQueueHandle<T> handle) {
+		acquire();
+		try {
+			LinearHandle h = live(handle);
+			if (h == null) {
+				return false;
+			}
+			unlink(h);
+			return true;
+		} finally {
+			release();
+		}
+	}
+
+	@Override
+	public T dequeue() throws EmptyPriorityQueueException { 	// DO *NOT* ERASE THE "THROWS" DECLARATION!
+		acquire();
+		try {
+			if (total == 0) {
+				throw EmptyPriorityQueueExceptions.empty();
+			}
+			return poll();
+		} finally {
+			release();
+		}
 	}
 
 	@Override
 	public T getFirst() throws EmptyPriorityQueueException {	// DO *NOT* ERASE THE "THROWS" DECLARATION!
-		int ind = getFirstList();
-		if (total == 0 || ind == 0) {
-			throw new EmptyPriorityQueueException("Queue is empty");
+		acquire();
+		try {
+			if (total == 0) {
+				throw EmptyPriorityQueueExceptions.empty();
+			}
+			return peek();
+		} finally {
+			release();
+		}
+	}
+
+	/**
+	 * Returns <b>and deletes</b> the top element of the PriorityQueue, without throwing when it is empty.
+	 * @return The element at the top of the PriorityQueue, or {@code null} if it is empty.
+	 */
+	public T poll() {
+		acquire();
+		try {
+			int ind = getFirstList();
+			if (total == 0 || ind == 0) {
+				return null;
+			}
+			T res = main_arr[ind].poll();
+			if (main_arr[ind].isEmpty()) {
+				occupied.clear(ind);
+			}
+			realModCount ++;
+			total --;
+			madeRoom();
+			return res;
+		} finally {
+			release();
+		}
+	}
+
+	/**
+	 * Returns, <b>but does not delete</b> the top element of the PriorityQueue, without throwing when it is empty.
+	 * @return The element at the top of the PriorityQueue, or {@code null} if it is empty.
+	 */
+	public T peek() {
+		acquire();
+		try {
+			int ind = getFirstList();
+			if (total == 0 || ind == 0) {
+				return null;
+			}
+			return main_arr[ind].peek();
+		} finally {
+			release();
 		}
-	
-		T res = ((LinkedList<T>)main_arr[ind]).getFirst();
-		return res;
 	}
 
 	@Override
 	public int size() {
-		return total;
+		acquire();
+		try {
+			return total;
+		} finally {
+			release();
+		}
 	}
 
 	@Override
 	public boolean isEmpty() {
-		if (total == 0) {
-			return true;
-		} else {
-			return false;
+		return size() == 0;
+	}
+
+	/**
+	 * Enqueues a batch of elements. The i-th element of elements (in iteration order) gets the i-th priority.
+	 * Elements are appended straight to the tail of their bucket, so elements that share a priority keep their
+	 * batch order and come after elements already enqueued with that priority. If this queue was created with a
+	 * capacity, elements that find their bucket full are handled by the {@link OverflowPolicy} like
+	 * {@link #offer(Object, int)} does, so a full bucket never interrupts the batch.
+	 * @param elements The elements to enqueue.
+	 * @param priorities The priorities of the elements, one per element.
+	 * @return The number of elements of the batch that were added to this queue.
+	 * @throws InvalidPriorityException if any priority is less than 1 or greater than {@link #MAX_PRIORITY}. In that
+	 * case nothing is enqueued.
+	 * @throws IllegalArgumentException if the number of priorities differs from the number of elements.
+	 */
+	public int enqueueAll(Collection<? extends T> elements, int[] priorities) throws InvalidPriorityException {
+		if (priorities.length != elements.size()) {
+			throw new IllegalArgumentException("Got " + elements.size() + " elements but " + priorities.length + " priorities.");
+		}
+		int highest = 0;
+		for (int priority : priorities) {
+			if (priority <= 0) {
+				throw new InvalidPriorityException("Priority must be >= 1");
+			}
+			highest = Math.max(highest, priority);
+		}
+		acquire();
+		try {
+			ensureBucket(highest);
+			int i = 0, added = 0;
+			for (T element : elements) {
+				int priority = priorities[i ++];
+				if (!admit(element, priority, Long.MAX_VALUE)) {
+					continue;
+				}
+				bucket(priority).add(element);
+				occupied.set(priority);
+				total ++;
+				added ++;
+			}
+			realModCount ++;
+			return added;
+		} finally {
+			release();
+		}
+	}
+	
+	/**
+	 * Dequeues up to max elements, in priority order, and adds them to target. Each bucket is drained in one pass.
+	 * @param target The {@link Collection} to add the dequeued elements to.
+	 * @param max The maximum number of elements to dequeue.
+	 * @return The number of elements actually dequeued, which is 0 if the queue is empty or max is not positive.
+	 */
+	public int drainTo(Collection<? super T> target, int max) {
+		acquire();
+		try {
+			int drained = 0;
+			for (int ind = getFirstList(); ind > 0 && drained < max; ind = getNextList(ind)) {
+				RingBufferFIFO<T> b = main_arr[ind];
+				while (drained < max && !b.isEmpty()) {
+					target.add(b.poll());
+					drained ++;
+				}
+				if (b.isEmpty()) {
+					occupied.clear(ind);
+				}
+			}
+			total -= drained;
+			if (drained > 0) {
+				realModCount ++;
+				madeRoom();
+			}
+			return drained;
+		} finally {
+			release();
 		}
 	}
 
-	class LinearPQIter<T> implements Iterator<T> {
+	class LinearPQIter implements Iterator<T> {
 		int curr_outer, curr_inner, expected, numNodes;
 		
 		LinearPQIter(int out, int in, int inModCount) {
@@ -209,12 +724,14 @@ public class LinearPriorityQueue<T> implements PriorityQueue<T> {
 			if (total == 0) {
 				return null;
 			}
-			T res = ((LinkedList<T>)main_arr[curr_outer]).get(curr_inner);
-			if (curr_inner + 1 > ((LinkedList<T>)main_arr[curr_outer]).size() - 1) {// || ((LinkedList<T>)main_arr[curr_outer]).get(curr_inner + 1) == null) {
+			RingBufferFIFO<T> b = main_arr[curr_outer];
+			T res = b.slot(curr_inner);
+			do {
+				curr_inner ++;	// Skip the tombstones of removed elements.
+			} while (curr_inner < b.slots() && !b.isLive(curr_inner));
+			if (curr_inner >= b.slots()) {
 				curr_inner = 0;
 				curr_outer = getNextList(curr_outer);
-			} else {
-				curr_inner ++;
 			}
 			
 			numNodes --;
@@ -227,7 +744,7 @@ public class LinearPriorityQueue<T> implements PriorityQueue<T> {
 	@Override
 	public Iterator<T> iterator() {
 		int i = getFirstList();
-		return new LinearPQIter<T>(i, 0, realModCount);
+		return new LinearPQIter(i, 0, realModCount);
 	}
 
 }
@@ -0,0 +1,527 @@
+package phonebook;
+
+import phonebook.hashes.HashStrategy;
+import phonebook.hashes.HashTable;
+import phonebook.hashes.RobinHoodHashTable;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>{@link MappedPhonebook} is a persistent phonebook that lives in a file written by {@link PhonebookFileWriter}.
+ * The file is memory-mapped with {@link FileChannel#map(FileChannel.MapMode, long, long)} rather than read, and
+ * lookups probe its open-addressed tables and compare keys straight in the mapped buffers, so opening even a very
+ * large phonebook takes milliseconds and only the pages that lookups touch are ever loaded.</p>
+ *
+ * <p>The file itself is never modified in place. {@link #addEntry(String, String)} and
+ * {@link #deleteEntry(String, String)} append their update to a <em>log</em> next to it (the file name followed by
+ * {@code .log}) and record it in two small in-memory tables that lookups consult before the file. Opening the
+ * phonebook replays the log. Once the log grows to half the size of the file, {@link #compact()} writes a new
+ * file with every update applied, atomically replaces the old one with it, and starts an empty log. The file and
+ * its log carry a generation number, so a log left behind by a compaction that was interrupted after replacing
+ * the file is recognized and discarded.</p>
+ *
+ * <p>Names and numbers are kept in one-to-one correspondence: adding an entry whose name or number is already
+ * present replaces the old entry as a whole. Updates are written to the log before they take effect, but are not
+ * forced to the storage device. A {@link MappedPhonebook} is not thread-safe.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see PhonebookFileWriter
+ * @see Phonebook
+ */
+public class MappedPhonebook implements Closeable {
+
+    static final int MAGIC = 0x5048424B;    // "PHBK"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final int ENTRY_BYTES = 24;      // name offset, name length, number offset, number length, 2 hashes.
+
+    private static final int LOG_HEADER_BYTES = 8;
+    private static final byte ADD = 'A', DELETE = 'D';
+    private static final long MIN_COMPACTION_BYTES = 1 << 20;
+
+    /* Marks a name or number deleted since the file was written. Compared by reference. */
+    private static final String DELETED = new String("<deleted>");
+
+    private final Path file, log;
+    private long generation, fileBytes;
+    private int baseCount, mask, count;
+    private ByteBuffer entries, byName, byNumber, arena;
+    private HashTable namesToNumbers, numbersToNames;   // Updates since the file was written.
+    private FileChannel logChannel;
+
+    /* The hash of a key, as stored in the file; also used by PhonebookFileWriter. Files written by one version of
+     * HashStrategy#SPREAD are only readable with the same one: changing it requires a new VERSION. */
+    static int hash(String key) {
+        return HashStrategy.SPREAD.hash(key);
+    }
+
+    /**
+     * Opens the phonebook stored in file, and replays its log if it has one.
+     * @param file A file written by {@link PhonebookFileWriter#write(Path)}.
+     * @throws IOException If file cannot be read or is not a phonebook file, or if its log cannot be written.
+     */
+    public MappedPhonebook(Path file) throws IOException {
+        this.file = file;
+        this.log = file.resolveSibling(file.getFileName() + ".log");
+        map();
+        openLog();
+    }
+
+    private void map() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            fileBytes = channel.size();
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(HEADER_BYTES, fileBytes));
+            if (header.limit() < HEADER_BYTES || header.getInt(0) != MAGIC) {
+                throw new IOException("Not a phonebook file: " + file + ".");
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException("Unsupported phonebook file version: " + header.getInt(4) + ".");
+            }
+            generation = header.getLong(8);
+            baseCount = header.getInt(16);
+            int capacity = header.getInt(20);
+            entries = section(channel, header.getLong(24), (long) baseCount * ENTRY_BYTES);
+            byName = section(channel, header.getLong(32), 4L * capacity);
+            byNumber = section(channel, header.getLong(40), 4L * capacity);
+            arena = section(channel, header.getLong(48), header.getLong(56));
+            mask = capacity - 1;
+        }
+        count = baseCount;
+        namesToNumbers = new RobinHoodHashTable();
+        numbersToNames = new RobinHoodHashTable();
+    }
+
+    /* The mapping stays valid after its channel is closed. */
+    private MappedByteBuffer section(FileChannel channel, long offset, long length) throws IOException {
+        if (offset < 0 || length < 0 || length > Integer.MAX_VALUE || offset + length > fileBytes) {
+            throw new IOException("Corrupt phonebook file: " + file + ".");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+    }
+
+    /* Replays the log of the current generation, or starts a new one, and leaves it open for appending. */
+    private void openLog() throws IOException {
+        logChannel = FileChannel.open(log, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        long valid = 0;
+        if (logChannel.size() >= LOG_HEADER_BYTES) {
+            ByteBuffer buf = readLog(logChannel.size());
+            if (buf.getLong(0) == generation) {
+                valid = replay(buf, null);
+            }
+        }
+        if (valid == 0) {   // A new log, or one already compacted into the file.
+            ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_BYTES).putLong(0, generation);
+            logChannel.truncate(0);
+            writeFully(header, 0);
+            valid = LOG_HEADER_BYTES;
+        }
+        logChannel.truncate(valid);     // Drops a record cut short by a crash.
+        logChannel.position(valid);
+    }
+
+    /* The first length bytes of the log. */
+    private ByteBuffer readLog(long length) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Phonebook log too large: " + log + ".");
+        }
+        ByteBuffer buf = ByteBuffer.allocate((int) length);
+        while (buf.hasRemaining() && logChannel.read(buf, buf.position()) >= 0) {
+            // Keep reading.
+        }
+        buf.flip();
+        return buf;
+    }
+
+    /* Applies the records of the log in buf or, during a compaction, passes them to compacted. Returns the length
+     * of its complete records. */
+    private long replay(ByteBuffer buf, Compacted compacted) {
+        int pos = LOG_HEADER_BYTES;
+        while (true) {
+            String[] record = readRecord(buf, pos);
+            if (record == null) {
+                return pos;
+            }
+            boolean add = record[0].charAt(0) == ADD;
+            if (compacted != null) {
+                compacted.logged(record[1], record[2], add);
+            } else if (add) {
+                added(record[1], record[2]);
+            } else {
+                deleted(record[1], record[2]);
+            }
+            pos = buf.position();
+        }
+    }
+
+    /* The record at pos as {op, name, number}, or null if pos does not hold a complete record. */
+    private static String[] readRecord(ByteBuffer buf, int pos) {
+        if (buf.limit() - pos < 9) {
+            return null;
+        }
+        byte op = buf.get(pos);
+        int nameLength = buf.getInt(pos + 1);
+        if (nameLength < 0 || buf.limit() - pos - 9 < nameLength) {
+            return null;
+        }
+        int numberLength = buf.getInt(pos + 5 + nameLength);
+        if (numberLength < 0 || buf.limit() - pos - 9 - nameLength < numberLength) {
+            return null;
+        }
+        String name = decode(buf, pos + 5, nameLength);
+        String number = decode(buf, pos + 9 + nameLength, numberLength);
+        buf.position(pos + 9 + nameLength + numberLength);
+        return new String[] {String.valueOf((char) op), name, number};
+    }
+
+    private void append(byte op, String name, String number) throws IOException {
+        byte[] n = name.getBytes(StandardCharsets.UTF_8), m = number.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(9 + n.length + m.length);
+        record.put(op).putInt(n.length).put(n).putInt(m.length).put(m).flip();
+        writeFully(record, logChannel.position());
+    }
+
+    private void writeFully(ByteBuffer buf, long position) throws IOException {
+        logChannel.position(position);
+        while (buf.hasRemaining()) {
+            logChannel.write(buf);
+        }
+    }
+
+    private static String decode(ByteBuffer buf, int offset, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buf.duplicate();
+        view.position(offset);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /* Whether the UTF-8 encoding of key is the length bytes at offset of the arena. */
+    private boolean matches(int offset, int length, String key) {
+        int n = key.length();
+        if (length < n) {
+            return false;   // UTF-8 takes at least a byte per char.
+        }
+        for (int j = 0; j < n; j ++) {
+            char c = key.charAt(j);
+            if (c >= 0x80) {    // Not ASCII: compare encodings.
+                byte[] k = key.getBytes(StandardCharsets.UTF_8);
+                if (k.length != length) {
+                    return false;
+                }
+                for (int b = j; b < length; b ++) {
+                    if (arena.get(offset + b) != k[b]) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            if (arena.get(offset + j) != c) {
+                return false;
+            }
+        }
+        return length == n;
+    }
+
+    /* The index of the entry of the file whose name (or number, unless byName) is key, or -1. */
+    private int findEntry(String key, boolean byName) {
+        ByteBuffer table = byName ? this.byName : byNumber;
+        int h = hash(key);
+        int keyField = byName ? 0 : 8;
+        for (int i = h & mask; ; i = (i + 1) & mask) {
+            int e = table.getInt(4 * i);
+            if (e == 0) {
+                return -1;
+            }
+            int at = (e - 1) * ENTRY_BYTES;
+            if (entries.getInt(at + (byName ? 16 : 20)) == h
+                    && matches(entries.getInt(at + keyField), entries.getInt(at + keyField + 4), key)) {
+                return e - 1;
+            }
+        }
+    }
+
+    /* The value of key in the file: the number of a name if byName, the name of a number otherwise. */
+    private String lookupFile(String key, boolean byName) {
+        int e = findEntry(key, byName);
+        if (e < 0) {
+            return null;
+        }
+        int at = e * ENTRY_BYTES + (byName ? 8 : 0);
+        return decode(arena, entries.getInt(at), entries.getInt(at + 4));
+    }
+
+    /** Retrieves the phone number associated with the provided full name. If the name is not in the database,
+     * this method returns {@code null}.
+     * @param name The full name of the owner of the phone number that is being searched for.
+     * @return The phone number associated with name, or {@code null} if name is {@code null} or if name
+     * is not in the {@link MappedPhonebook}.
+     */
+    public String getNumberOf(String name) {
+        if (name == null) {
+            return null;
+        }
+        String number = namesToNumbers.get(name).getValue();
+        if (number != null) {
+            return (number == DELETED) ? null : number;
+        }
+        return lookupFile(name, true);
+    }
+
+    /** Retrieves the full name of the owner of the provided phone number. If the phone number is not in the database,
+     * this method returns {@code null}.
+     * @param number The phone number whose owner is being searched for.
+     * @return The full name of the owner of number, or {@code null} if number is {@code null} or if number
+     * is not in the {@link MappedPhonebook}.
+     */
+    public String getOwnerOf(String number) {
+        if (number == null) {
+            return null;
+        }
+        String name = numbersToNames.get(number).getValue();
+        if (name != null) {
+            return (name == DELETED) ? null : name;
+        }
+        return lookupFile(number, false);
+    }
+
+    /* Applies the addition of < name, number >. */
+    private void added(String name, String number) {
+        String oldNumber = getNumberOf(name), oldName = getOwnerOf(number);
+        if (number.equals(oldNumber)) {
+            return;
+        }
+        if (oldNumber != null) {
+            numbersToNames.put(oldNumber, DELETED);
+            count --;
+        }
+        if (oldName != null) {
+            namesToNumbers.put(oldName, DELETED);
+            count --;
+        }
+        namesToNumbers.put(name, number);
+        numbersToNames.put(number, name);
+        count ++;
+    }
+
+    /* Applies the deletion of < name, number >. */
+    private void deleted(String name, String number) {
+        if (number.equals(getNumberOf(name))) {
+            namesToNumbers.put(name, DELETED);
+            numbersToNames.put(number, DELETED);
+            count --;
+        }
+    }
+
+    /** Adds the tuple &lt; name, number &gt; in the {@link MappedPhonebook}. Any entry that held name or number
+     * before is removed.
+     * @param name The full name of the number's owner.
+     * @param number The phone number of the person.
+     * @throws IllegalArgumentException if either name or number is {@code null}.
+     * @throws IOException if the update cannot be logged, or if the compaction it triggered fails.
+     */
+    public void addEntry(String name, String number) throws IOException {
+        if(name == null || number == null)
+            throw new IllegalArgumentException("Provided: name=" + name + " and number= " + number);
+        if (number.equals(getNumberOf(name))) {
+            return;
+        }
+        append(ADD, name, number);
+        added(name, number);
+        compactIfNeeded();
+    }
+
+    /** Deletes the entry characterized by the arguments provided. If the entry is <b>not</b> contained by this
+     * {@link MappedPhonebook} instance, this method has <b>no effect</b>.
+     * @param name The &quot;owner&quot; part of the &lt; owner, phone number &gt; tuple.
+     * @param number The &quot;number&quot; part of the &lt; owner, phone number &gt; tuple.
+     * @throws IllegalArgumentException if either name or number is {@code null}.
+     * @throws IOException if the update cannot be logged, or if the compaction it triggered fails.
+     */
+    public void deleteEntry(String name, String number) throws IOException {
+        if(number == null || name == null)
+            throw new IllegalArgumentException("Provided: name=" + name + " and number= " + number);
+        if (!number.equals(getNumberOf(name))) {
+            return;
+        }
+        append(DELETE, name, number);
+        deleted(name, number);
+        compactIfNeeded();
+    }
+
+    private void compactIfNeeded() throws IOException {
+        long logBytes = logChannel.position();
+        if (logBytes > MIN_COMPACTION_BYTES && 2 * logBytes > fileBytes) {
+            compact();
+        }
+    }
+
+    /* The entries of the file that a compaction writes: first the entries of the current file that no logged
+     * update touched, copied from its arena as they are, then the entries that updates added or left in place. Only
+     * the latter are ever decoded, so the heap holds strings in proportion to the log, not to the file. */
+    private final class Compacted implements PhonebookFileWriter.Entries {
+        private final long[] touched = new long[(baseCount + 63) >>> 6];
+        private final List<String> names = new ArrayList<String>(), numbers = new ArrayList<String>();
+        private final HashTable written = new RobinHoodHashTable();
+        private byte[][] nameBytes, numberBytes;
+        private int[] kept;
+        private final byte[] copyBuffer = new byte[1 << 13];
+
+        private void touch(int e) {
+            if (e >= 0) {
+                touched[e >>> 6] |= 1L << e;
+            }
+        }
+
+        private boolean isTouched(int e) {
+            return (touched[e >>> 6] & (1L << e)) != 0;
+        }
+
+        /* Takes note of a record of the log: the entries of the file that hold its name or number may have been
+         * replaced or deleted, and an addition may still be current. */
+        private void logged(String name, String number, boolean add) {
+            touch(findEntry(name, true));
+            touch(findEntry(number, false));
+            if (add) {
+                collect(name, number);
+            }
+        }
+
+        /* Keeps < name, number > if it is still current and was not kept already. */
+        private void collect(String name, String number) {
+            if (!written.containsKey(name) && number.equals(getNumberOf(name))) {
+                names.add(name);
+                numbers.add(number);
+                written.put(name, number);
+            }
+        }
+
+        /* Keeps the touched entries of the file that are still current, and lists the untouched ones. */
+        private void seal() {
+            int untouched = 0;
+            for (int e = 0; e < baseCount; e ++) {
+                if (isTouched(e)) {
+                    int at = e * ENTRY_BYTES;
+                    collect(decode(arena, entries.getInt(at), entries.getInt(at + 4)),
+                            decode(arena, entries.getInt(at + 8), entries.getInt(at + 12)));
+                } else {
+                    untouched ++;
+                }
+            }
+            kept = new int[untouched];
+            for (int e = 0, k = 0; e < baseCount; e ++) {
+                if (!isTouched(e)) {
+                    kept[k ++] = e;
+                }
+            }
+            nameBytes = new byte[names.size()][];
+            numberBytes = new byte[names.size()][];
+            for (int i = 0; i < names.size(); i ++) {
+                nameBytes[i] = names.get(i).getBytes(StandardCharsets.UTF_8);
+                numberBytes[i] = numbers.get(i).getBytes(StandardCharsets.UTF_8);
+            }
+        }
+
+        /* Field f of entry e of the current file, if it is a kept one. */
+        private int field(int e, int f) {
+            return entries.getInt(kept[e] * ENTRY_BYTES + f);
+        }
+
+        public int count() {
+            return kept.length + names.size();
+        }
+
+        public int nameLength(int e) {
+            return (e < kept.length) ? field(e, 4) : nameBytes[e - kept.length].length;
+        }
+
+        public int numberLength(int e) {
+            return (e < kept.length) ? field(e, 12) : numberBytes[e - kept.length].length;
+        }
+
+        public int nameHash(int e) {
+            return (e < kept.length) ? field(e, 16) : hash(names.get(e - kept.length));
+        }
+
+        public int numberHash(int e) {
+            return (e < kept.length) ? field(e, 20) : hash(numbers.get(e - kept.length));
+        }
+
+        public void writeStrings(int e, DataOutputStream out) throws IOException {
+            if (e < kept.length) {
+                copy(field(e, 0), field(e, 4), out);
+                copy(field(e, 8), field(e, 12), out);
+            } else {
+                out.write(nameBytes[e - kept.length]);
+                out.write(numberBytes[e - kept.length]);
+            }
+        }
+
+        /* Copies length bytes at offset of the arena to out. */
+        private void copy(int offset, int length, DataOutputStream out) throws IOException {
+            ByteBuffer view = arena.duplicate();
+            view.position(offset);
+            while (length > 0) {
+                int n = Math.min(length, copyBuffer.length);
+                view.get(copyBuffer, 0, n);
+                out.write(copyBuffer, 0, n);
+                length -= n;
+            }
+        }
+    }
+
+    /**
+     * Writes a new file with every logged update applied, replaces the current file with it and empties the log.
+     * Called automatically once the log grows to half the size of the file. The entries of the current file are
+     * copied from its mapping to the new file; only those touched by the log are read into the heap.
+     * @throws IOException If the new file cannot be written, or the log cannot be reset.
+     */
+    public void compact() throws IOException {
+        Compacted compacted = new Compacted();
+        replay(readLog(logChannel.position()), compacted);
+        compacted.seal();
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        PhonebookFileWriter.write(tmp, generation + 1, compacted, null, null);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logChannel.close();
+        map();
+        openLog();
+    }
+
+    /** Returns the number of entries in the phonebook.
+     * @return the number of entries in the phonebook.
+     */
+    public int size() {
+        return count;
+    }
+
+    /** Queries the phonebook for emptiness.
+     * @return {@code true} if, and only if, there are 0 entries in this {@link MappedPhonebook}, {@code false}
+     * otherwise.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Closes the log. The mapped file is unmapped once this {@link MappedPhonebook} is garbage collected.
+     * @throws IOException If the log cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        logChannel.close();
+    }
+}
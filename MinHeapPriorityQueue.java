@@ -2,35 +2,39 @@ package pqueue.priorityqueues; // ******* <---  DO NOT ERASE THIS LINE!!!! *****
 
 
 /* *****************************************************************************************
- * THE FOLLOWING IMPORTS WILL BE NEEDED BY YOUR CODE, BECAUSE WE REQUIRE THAT YOU USE
- * ANY ONE OF YOUR EXISTING MINHEAP IMPLEMENTATIONS TO IMPLEMENT THIS CLASS. TO ACCESS
- * YOUR MINHEAP'S METHODS YOU NEED THEIR SIGNATURES, WHICH ARE DECLARED IN THE MINHEAP
- * INTERFACE. ALSO, SINCE THE PRIORITYQUEUE INTERFACE THAT YOU EXTEND IS ITERABLE, THE IMPORT OF ITERATOR
+ * SINCE THE PRIORITYQUEUE INTERFACE THAT YOU EXTEND IS ITERABLE, THE IMPORT OF ITERATOR
  * IS NEEDED IN ORDER TO MAKE YOUR CODE COMPILABLE. THE IMPLEMENTATIONS OF CHECKED EXCEPTIONS
  * ARE ALSO MADE VISIBLE BY VIRTUE OF THESE IMPORTS.
  ** ********************************************************************************* */
 
 import pqueue.exceptions.*;
-import pqueue.heaps.ArrayMinHeap;
-import pqueue.heaps.EmptyHeapException;
-import pqueue.heaps.LinkedMinHeap;
-import pqueue.heaps.MinHeap;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 /**
- * <p>{@link MinHeapPriorityQueue} is a {@link PriorityQueue} implemented using a {@link MinHeap}.</p>
+ * <p>{@link MinHeapPriorityQueue} is a {@link PriorityQueue} implemented as a min-heap of its own, rather than on
+ * top of one of the {@link pqueue.heaps.MinHeap} implementations, so that it can index its nodes for handles and
+ * vary its arity.</p>
  *
- * <p>You  <b>must</b> implement the methods of this class! To receive <b>any credit</b> for the unit tests
- * related to this class, your implementation <b>must</b> use <b>whichever</b> {@link MinHeap} implementation
- * among the two that you should have implemented you choose!</p>
+ * <p>The heap is a <em>d</em>-ary heap (d = 2, 4 or 8) kept in two parallel arrays: a {@code long[]} of packed
+ * (priority, insertion counter) keys, which is all that sift-up and sift-down ever compare, and the array of
+ * nodes that carry the data. The root is stored at index d - 1, so that the d children of any node start at a
+ * multiple of d: with d = 8, one sift-down level reads one 64-byte run of keys. The default arity of 2 has the
+ * same shape as {@link pqueue.heaps.ArrayMinHeap}.</p>
  *
  * @author  ---- Shane Purnell ----
  *
  * @param <T> The Type held by the container.
  *
  * @see LinearPriorityQueue
- * @see MinHeap
+ * @see pqueue.heaps.MinHeap
  * @see PriorityQueue
  */
 public class MinHeapPriorityQueue<T> implements PriorityQueue<T>{
@@ -38,37 +42,192 @@ public class MinHeapPriorityQueue<T> implements PriorityQueue<T>{
 	/* ***********************************************************************************
 	 * Write any private data elements or private methods for MinHeapPriorityQueue here...*
 	 * ***********************************************************************************/
-	private class pqNode implements Comparable<pqNode>{
-		private int priority, called;
+	private class pqNode implements PriorityQueueHandle<T> {
+		private int priority, called, index;
 		private T data; 
 		
 		public pqNode(int prio, T element, int call) {
 			priority = prio;
 			data = element;
 			called = call;
+			index = -1;
 		}
 		
-		public int compareTo(pqNode right) {
-			if (this.priority < right.priority) {
-				return -1;
-			} else if (right.priority < this.priority) {
-				return 1;
-			} else {
-				if (this.called < right.called) {
-					return -1;
-				} else if (right.called < this.called) {
-					return 1;
-				} else {
-					return 0;
-				}
-			}
+		private long key() {
+			return ((long) priority << 32) | (called & 0xFFFFFFFFL);
+		}
+		
+		private MinHeapPriorityQueue<T> queue() {
+			return MinHeapPriorityQueue.this;
+		}
+		
+		public T getElement() {
+			return data;
 		}
 		
+		public int getPriority() {
+			return priority;
+		}
+		
+		public boolean isEnqueued() {
+			return index >= root && index < end() && nodes[index] == this;
+		}
 	}
 
+	private static final int DEFAULT_ARITY = 2;
+	private static final int DEFAULT_CAPACITY = 16;
+
 	//MinHeapPQ instance variables
-	private ArrayMinHeap heap;
-	private int called;
+	private long[] keys;
+	private pqNode[] nodes;
+	private int arity, shift, root, count, modCount;
+	private long called;
+	
+	@SuppressWarnings("unchecked")
+	private void init(int d) {
+		if (d != 2 && d != 4 && d != 8) {
+			throw new IllegalArgumentException("Heap arity must be 2, 4 or 8, was: " + d);
+		}
+		arity = d;
+		shift = Integer.numberOfTrailingZeros(d);
+		root = d - 1;
+		count = 0;
+		called = 0;
+		keys = new long[root + DEFAULT_CAPACITY];
+		nodes = (pqNode[]) new MinHeapPriorityQueue.pqNode[root + DEFAULT_CAPACITY];
+	}
+	
+	/* Physical index arithmetic for a heap rooted at index d - 1. */
+	private int parentOf(int pos) {
+		return (pos >>> shift) + arity - 2;
+	}
+	
+	private int firstChildOf(int pos) {
+		return (pos - arity + 2) << shift;
+	}
+	
+	private int end() {
+		return root + count;
+	}
+	
+	private void grow() {
+		int sz = (int) Math.min(2L * keys.length, Integer.MAX_VALUE - 8);
+		if (sz <= keys.length) {
+			throw new IllegalStateException("Queue cannot hold more than " + count + " elements.");
+		}
+		keys = Arrays.copyOf(keys, sz);
+		nodes = Arrays.copyOf(nodes, sz);
+	}
+	
+	/* Insertion counters exhausted: renumber live nodes by rank, which preserves their relative order. */
+	private void renumber() {
+		long[] sorted = Arrays.copyOfRange(keys, root, end());
+		Arrays.sort(sorted);
+		for (int i = root; i < end(); i ++) {
+			nodes[i].called = Arrays.binarySearch(sorted, keys[i]);
+			keys[i] = nodes[i].key();
+		}
+		called = count;
+	}
+	
+	private void siftUp(int pos) {
+		long key = keys[pos];
+		pqNode node = nodes[pos];
+		while (pos > root) {
+			int parent = parentOf(pos);
+			if (keys[parent] <= key) {
+				break;
+			}
+			keys[pos] = keys[parent];
+			nodes[pos] = nodes[parent];
+			nodes[pos].index = pos;
+			pos = parent;
+		}
+		keys[pos] = key;
+		nodes[pos] = node;
+		node.index = pos;
+	}
+	
+	private void siftDown(int pos) {
+		long key = keys[pos];
+		pqNode node = nodes[pos];
+		int last = end();
+		while (true) {
+			int first = firstChildOf(pos);
+			if (first >= last) {
+				break;
+			}
+			int stop = Math.min(first + arity, last);
+			int min = first;
+			long minKey = keys[first];
+			for (int c = first + 1; c < stop; c ++) {
+				if (keys[c] < minKey) {
+					minKey = keys[c];
+					min = c;
+				}
+			}
+			if (key <= minKey) {
+				break;
+			}
+			keys[pos] = minKey;
+			nodes[pos] = nodes[min];
+			nodes[pos].index = pos;
+			pos = min;
+		}
+		keys[pos] = key;
+		nodes[pos] = node;
+		node.index = pos;
+	}
+	
+	/* Moves the node at pos to wherever its (changed) key now belongs. */
+	private void resift(int pos) {
+		if (pos > root && keys[pos] < keys[parentOf(pos)]) {
+			siftUp(pos);
+		} else {
+			siftDown(pos);
+		}
+	}
+	
+	private pqNode removeAt(int pos) {
+		pqNode node = nodes[pos];
+		count --;
+		modCount ++;
+		int last = end();
+		if (pos != last) {
+			keys[pos] = keys[last];
+			nodes[pos] = nodes[last];
+			nodes[last] = null;
+			resift(pos);
+		} else {
+			nodes[last] = null;
+		}
+		node.index = -1;
+		return node;
+	}
+	
+	private pqNode removeRoot() {
+		return removeAt(root);
+	}
+	
+	/* Returns the handle as one of our nodes if it is still in this heap, null otherwise. */
+	@SuppressWarnings("unchecked")
+	private pqNode live(PriorityQueueHandle<T> handle) {
+		if (!(handle instanceof MinHeapPriorityQueue.pqNode)) {
+			return null;
+		}
+		pqNode node = (pqNode) handle;
+		return (node.queue() == this && node.isEnqueued()) ? node : null;
+	}
+	
+	/* Floyd's bottom-up construction: sift down every internal node, deepest first. */
+	private void heapify() {
+		if (count < 2) {
+			return;
+		}
+		for (int pos = parentOf(end() - 1); pos >= root; pos --) {
+			siftDown(pos);
+		}
+	}
 	
 	/* *********************************************************************************************************
 	 * Implement the following public methods. You should erase the throwings of UnimplementedMethodExceptions.*
@@ -77,123 +236,439 @@ public class MinHeapPriorityQueue<T> implements PriorityQueue<T>{
 	 * Simple default constructor.
 	 */
 	public MinHeapPriorityQueue(){
-		heap = new ArrayMinHeap();
-		called = 0;
+		init(DEFAULT_ARITY);
+	}
+
+	/**
+	 * Constructor which selects the arity of the underlying heap. Wider heaps are shallower, so a dequeue
+	 * visits fewer levels, at the cost of more key comparisons per level.
+	 * @param arity The number of children per heap node. Must be 2, 4 or 8.
+	 * @throws IllegalArgumentException if arity is not one of 2, 4 or 8.
+	 */
+	public MinHeapPriorityQueue(int arity){
+		init(arity);
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public void enqueue(T element, int priority) throws InvalidPriorityException {	// DO *NOT* ERASE THE "THROWS" DECLARATION!
+		enqueueWithHandle(element, priority);
+	}
+
+	/**
+	 * Enqueues the provided element like {@link #enqueue(Object, int)} does, and returns a handle to it which can be
+	 * passed to {@link #updatePriority(PriorityQueueHandle, int)} and {@link #remove(PriorityQueueHandle)}.
+	 * @param element The element to enqueue.
+	 * @param priority The priority of the element that will be enqueued.
+	 * @return A handle to the enqueued element.
+	 * @throws InvalidPriorityException if the priority provided is less than 1.
+	 */
+	public PriorityQueueHandle<T> enqueueWithHandle(T element, int priority) throws InvalidPriorityException {
 		if (priority <= 0) {
 			throw new InvalidPriorityException("Priority must be >= 1");
 		}
+		if (called > 0xFFFFFFFFL) {
+			renumber();
+		}
+		if (end() == keys.length) {
+			grow();
+		}
 		
-		pqNode node = new pqNode(priority, element, called);
+		pqNode node = new pqNode(priority, element, (int) called);
 		called ++;
-		heap.insert(node);
+		int pos = end();
+		keys[pos] = node.key();
+		nodes[pos] = node;
+		count ++;
+		modCount ++;
+		siftUp(pos);
+		return node;
+	}
+
+	/**
+	 * Changes the priority of the element referred to by handle in O(log n). The element keeps its original
+	 * insertion order as the tie-breaker, so among elements of its new priority it is placed by when it was
+	 * first enqueued.
+	 * @param handle A handle returned by {@link #enqueueWithHandle(Object, int)} on this queue.
+	 * @param newPriority The new priority of the element.
+	 * @return {@code true} if the element now has the new priority, {@code false} if the handle is stale or
+	 * belongs to another queue.
+	 * @throws InvalidPriorityException if the priority provided is less than 1.
+	 */
+	public boolean updatePriority(PriorityQueueHandle<T> handle, int newPriority) throws InvalidPriorityException {
+		if (newPriority <= 0) {
+			throw new InvalidPriorityException("Priority must be >= 1");
+		}
+		pqNode node = live(handle);
+		if (node == null) {
+			return false;
+		}
+		node.priority = newPriority;
+		keys[node.index] = node.key();
+		modCount ++;
+		resift(node.index);
+		return true;
+	}
+
+	/**
+	 * Removes the element referred to by handle from the queue in O(log n).
+	 * @param handle A handle returned by {@link #enqueueWithHandle(Object, int)} on this queue.
+	 * @return {@code true} if the element was removed, {@code false} if the handle is stale or belongs to
+	 * another queue.
+	 */
+	public boolean remove(PriorityQueueHandle<T> handle) {
+		pqNode node = live(handle);
+		if (node == null) {
+			return false;
+		}
+		removeAt(node.index);
+		return true;
 	}
 
 	@Override
 	public T dequeue() throws EmptyPriorityQueueException {		// DO *NOT* ERASE THE "THROWS" DECLARATION!
-		if (heap.size() == 0) {
-			throw new EmptyPriorityQueueException("Queue is empty");
+		if (count == 0) {
+			throw EmptyPriorityQueueExceptions.empty();
 		}
 		
-		pqNode node;
-		try {
-			node = (MinHeapPriorityQueue<T>.pqNode) heap.deleteMin();
-		} catch (EmptyHeapException e){
-			return null;
-		} 
-		
-		return node.data;
+		return removeRoot().data;
 	}
 
 	@Override
 	public T getFirst() throws EmptyPriorityQueueException {	// DO *NOT* ERASE THE "THROWS" DECLARATION!
-		if (heap.size() == 0) {
-			throw new EmptyPriorityQueueException("Queue is empty");
+		if (count == 0) {
+			throw EmptyPriorityQueueExceptions.empty();
+		}
+		
+		return nodes[root].data;
+	}
+
+	/**
+	 * Returns <b>and deletes</b> the top element of the PriorityQueue, without throwing when it is empty.
+	 * @return The element at the top of the PriorityQueue, or {@code null} if it is empty.
+	 */
+	public T poll() {
+		if (count == 0) {
+			return null;
 		}
 		
-		//T res = null;
-		pqNode node;
-		try {
-			node = (MinHeapPriorityQueue<T>.pqNode) heap.getMin();
-		} catch (EmptyHeapException e) {
+		return removeRoot().data;
+	}
+
+	/**
+	 * Returns, <b>but does not delete</b> the top element of the PriorityQueue, without throwing when it is empty.
+	 * @return The element at the top of the PriorityQueue, or {@code null} if it is empty.
+	 */
+	public T peek() {
+		if (count == 0) {
 			return null;
 		}
 		
-		return node.data;
+		return nodes[root].data;
+	}
+
+	/**
+	 * Returns, <b>but does not delete</b> the priority of the top element of the PriorityQueue.
+	 * @return The priority of the element that {@link #getFirst()} would return.
+	 * @throws EmptyPriorityQueueException if the PriorityQueue is empty.
+	 */
+	public int getFirstPriority() throws EmptyPriorityQueueException {
+		if (count == 0) {
+			throw EmptyPriorityQueueExceptions.empty();
+		}
+		
+		return nodes[root].priority;
 	}
 
 	@Override
 	public int size() {
-		return heap.size();
+		return count;
 	}
 
 	@Override
 	public boolean isEmpty() {
-		if (heap.size() < 1) {
+		if (count < 1) {
 			return true;
 		} else {
 			return false;
 		}
 	}
 	
-	class MinHeapPQIter<T> implements Iterator<T> {
-		private Iterator iter;
-		private int left;
+	/**
+	 * Returns the arity of the underlying heap.
+	 * @return The number of children per heap node: 2, 4 or 8.
+	 */
+	public int getArity() {
+		return arity;
+	}
+	
+	/**
+	 * Enqueues a batch of elements. The i-th element of elements (in iteration order) gets the i-th priority.
+	 * Elements that share a priority keep their batch order, and come after elements already enqueued
+	 * with that priority. When the batch is large compared to the heap, the heap is rebuilt bottom-up
+	 * (Floyd's method) in linear time instead of sifting each element up.
+	 * @param elements The elements to enqueue.
+	 * @param priorities The priorities of the elements, one per element.
+	 * @throws InvalidPriorityException if any priority is less than 1. In that case nothing is enqueued.
+	 * @throws IllegalArgumentException if the number of priorities differs from the number of elements.
+	 */
+	public void enqueueAll(Collection<? extends T> elements, int[] priorities) throws InvalidPriorityException {
+		int k = elements.size();
+		if (priorities.length != k) {
+			throw new IllegalArgumentException("Got " + k + " elements but " + priorities.length + " priorities.");
+		}
+		for (int priority : priorities) {
+			if (priority <= 0) {
+				throw new InvalidPriorityException("Priority must be >= 1");
+			}
+		}
+		if (called + k > 0xFFFFFFFFL + 1) {
+			renumber();
+		}
+		while (end() + k > keys.length) {
+			grow();
+		}
+		
+		int before = count;
+		int i = 0;
+		modCount ++;
+		for (T element : elements) {
+			pqNode node = new pqNode(priorities[i ++], element, (int) called);
+			called ++;
+			node.index = end();
+			keys[end()] = node.key();
+			nodes[end()] = node;
+			count ++;
+		}
+		/* k sift-ups cost about k * log(n) comparisons, a rebuild about n. Pick the cheaper. */
+		if ((long) k * (32 - Integer.numberOfLeadingZeros(count)) > count) {
+			heapify();
+		} else {
+			for (int pos = root + before; pos < end(); pos ++) {
+				siftUp(pos);
+			}
+		}
+	}
+	
+	/**
+	 * Dequeues up to max elements, in priority order, and adds them to target.
+	 * @param target The {@link Collection} to add the dequeued elements to.
+	 * @param max The maximum number of elements to dequeue.
+	 * @return The number of elements actually dequeued, which is 0 if the queue is empty or max is not positive.
+	 */
+	public int drainTo(Collection<? super T> target, int max) {
+		int drained = 0;
+		while (drained < max && count > 0) {
+			target.add(removeRoot().data);
+			drained ++;
+		}
+		return drained;
+	}
+	
+	/**
+	 * Walks the heap in priority order without copying it. A small binary heap of positions (the "frontier")
+	 * holds the nodes that may come next: taking its minimum and adding that node's children yields the first k
+	 * elements in O(k log k) time, so paging through the top of a huge queue only touches what it reads. The
+	 * frontier is split among sub-spliterators by subtree, and each of them yields its own share in priority order.
+	 * A frontier entry ~pos stands for the node at pos without its children, which were handed to another split.
+	 */
+	class MinHeapPQIter implements Iterator<T>, Spliterator<T> {
+		private int[] frontier;
+		private int size;
+		private long remaining;
+		private boolean split;
+		private final int expectedModCount;
 		
 		public MinHeapPQIter() {
-			iter = heap.iterator();
-			left = heap.size();
+			frontier = new int[8];
+			remaining = count;
+			expectedModCount = modCount;
+			if (count > 0) {
+				push(root);
+			}
+		}
+		
+		private MinHeapPQIter(int[] entries, int from, int to, long remaining, int expectedModCount) {
+			frontier = new int[Math.max(8, to - from)];
+			this.remaining = remaining;
+			this.expectedModCount = expectedModCount;
+			split = true;
+			for (int i = from; i < to; i ++) {
+				push(entries[i]);
+			}
+		}
+		
+		private long keyOf(int entry) {
+			return keys[entry < 0 ? ~entry : entry];
+		}
+		
+		private void push(int entry) {
+			if (size == frontier.length) {
+				frontier = Arrays.copyOf(frontier, 2 * size);
+			}
+			int pos = size ++;
+			long key = keyOf(entry);
+			while (pos > 0) {
+				int parent = (pos - 1) >>> 1;
+				if (keyOf(frontier[parent]) <= key) {
+					break;
+				}
+				frontier[pos] = frontier[parent];
+				pos = parent;
+			}
+			frontier[pos] = entry;
+		}
+		
+		private int pop() {
+			int top = frontier[0];
+			int entry = frontier[-- size];
+			long key = keyOf(entry);
+			int pos = 0;
+			while (true) {
+				int child = 2 * pos + 1;
+				if (child >= size) {
+					break;
+				}
+				if (child + 1 < size && keyOf(frontier[child + 1]) < keyOf(frontier[child])) {
+					child ++;
+				}
+				if (key <= keyOf(frontier[child])) {
+					break;
+				}
+				frontier[pos] = frontier[child];
+				pos = child;
+			}
+			frontier[pos] = entry;
+			return top;
+		}
+		
+		private void pushChildren(int pos) {
+			int first = firstChildOf(pos);
+			int stop = Math.min(first + arity, end());
+			for (int c = first; c < stop; c ++) {
+				push(c);
+			}
+		}
+		
+		private void checkForComodification() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException("Queue was modified during iteration.");
+			}
 		}
 		
 		public boolean hasNext() {
-			if (left == 0) {
-				return false;
+			checkForComodification();
+			return size > 0;
+		}
+		
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			int entry = pop();
+			int pos = entry;
+			if (entry < 0) {
+				pos = ~entry;
 			} else {
-				return true;
+				pushChildren(pos);
+			}
+			if (remaining > 0) {
+				remaining --;
 			}
-			//return iter.hasNext();
+			return nodes[pos].data;
 		}
 		
-		public T next() {
-			MinHeapPriorityQueue<T>.pqNode node = (MinHeapPriorityQueue<T>.pqNode)iter.next();
-			left --;
-			return node.data;
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			if (!hasNext()) {
+				return false;
+			}
+			action.accept(next());
+			return true;
+		}
+		
+		@Override
+		public void forEachRemaining(Consumer<? super T> action) {
+			while (hasNext()) {
+				action.accept(next());
+			}
+		}
+		
+		@Override
+		public Spliterator<T> trySplit() {
+			checkForComodification();
+			if (size == 1 && frontier[0] >= 0) {
+				/* A lone subtree: keep its top node and expose its children, so that they can be shared. */
+				int pos = pop();
+				if (firstChildOf(pos) + 1 >= end()) {
+					push(pos);
+					return null;
+				}
+				push(~pos);
+				pushChildren(pos);
+			}
+			if (size < 2) {
+				return null;
+			}
+			int half = size >>> 1;
+			int[] entries = Arrays.copyOf(frontier, size);
+			long given = remaining >>> 1;
+			MinHeapPQIter other = new MinHeapPQIter(entries, half, entries.length, given, expectedModCount);
+			size = 0;
+			for (int i = 0; i < half; i ++) {
+				push(entries[i]);
+			}
+			remaining -= given;
+			split = true;
+			return other;
+		}
+		
+		@Override
+		public long estimateSize() {
+			return remaining;
+		}
+		
+		@Override
+		public int characteristics() {
+			return split ? 0 : Spliterator.SIZED;
 		}
 	}
 
+	/**
+	 * Returns an iterator over the elements of the queue in priority order (and FIFO order within a priority),
+	 * computed lazily as it advances. The iterator is fail-fast: it throws a {@link ConcurrentModificationException}
+	 * if the queue is modified after it was created.
+	 * @return An {@link Iterator} over the elements of the queue, from the top element down.
+	 */
 	@Override
 	public Iterator<T> iterator() {
-		return new MinHeapPQIter<T>();
+		return new MinHeapPQIter();
 	}
 
-}
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
+	/**
+	 * Returns a fail-fast {@link Spliterator} over the elements of the queue. Unsplit, it yields them in priority
+	 * order like {@link #iterator()}; once split, every part yields its own share in priority order.
+	 * @return A {@link Spliterator} over the elements of the queue.
+	 */
+	@Override
+	public Spliterator<T> spliterator() {
+		return new MinHeapPQIter();
+	}
 
+	/**
+	 * Returns a sequential {@link Stream} over the elements of the queue, in priority order.
+	 * @return A sequential {@link Stream} over the elements of the queue.
+	 */
+	public Stream<T> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
 
+	/**
+	 * Returns a possibly parallel {@link Stream} over the elements of the queue, split by heap subtrees. Its
+	 * encounter order is unspecified; sort it, or use {@link #stream()}, when order matters.
+	 * @return A possibly parallel {@link Stream} over the elements of the queue.
+	 */
+	public Stream<T> parallelStream() {
+		return StreamSupport.stream(spliterator(), true);
+	}
 
+}
\ No newline at end of file
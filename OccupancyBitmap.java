@@ -0,0 +1,185 @@
+package pqueue.priorityqueues;
+
+import java.util.Arrays;
+
+/**
+ * <p>{@link OccupancyBitmap} is a hierarchical bit set over the priorities of a bucketed {@link PriorityQueue}.
+ * Level 0 holds one bit per priority, and every level above it holds one bit per <b>word</b> of the level
+ * below, set iff that word is non-zero. The top level is always a single {@code long}, so finding the next
+ * occupied priority costs one word read per level (at most 5 for the whole {@code int} range) and a
+ * {@link Long#numberOfTrailingZeros(long)} on each.</p>
+ *
+ * <p>The bitmap grows on demand: {@link #ensureCapacity(long)} widens every level and adds summary levels on top
+ * as needed, without changing the position of any bit already set.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see LinearPriorityQueue
+ */
+final class OccupancyBitmap {
+
+	private static final int WORD_SHIFT = 6;
+	private static final int WORD_MASK = 63;
+
+	/* levels[0] is the per-priority level; levels[levels.length - 1] is the single-word summary. */
+	private long[][] levels;
+	private long capacity;
+
+	/**
+	 * Creates a bitmap able to hold bits {@code 0 .. capacity - 1} without growing.
+	 * @param capacity The initial number of addressable bits. Values smaller than 64 are rounded up to 64.
+	 */
+	OccupancyBitmap(int capacity) {
+		levels = new long[0][];
+		this.capacity = 0;
+		ensureCapacity(Math.max(capacity, 64));
+	}
+
+	private static int words(long bits) {
+		return (int) ((bits + WORD_MASK) >>> WORD_SHIFT);
+	}
+
+	/**
+	 * Makes sure that bit {@code capacity - 1} is addressable, growing every level if it is not.
+	 * @param capacity The number of bits that need to be addressable.
+	 */
+	void ensureCapacity(long capacity) {
+		if (capacity <= this.capacity) {
+			return;
+		}
+		long bits = Math.max(capacity, 2L * this.capacity);
+		bits = Math.min(bits, (long) Integer.MAX_VALUE + 1);
+
+		int height = 1;
+		for (long w = words(bits); w > 1; w = words(w)) {
+			height ++;
+		}
+
+		long[][] grown = new long[height][];
+		long levelBits = bits;
+		for (int l = 0; l < height; l ++) {
+			int len = words(levelBits);
+			grown[l] = (l < levels.length) ? Arrays.copyOf(levels[l], len) : new long[len];
+			levelBits = len;
+		}
+		/* Any summary level that did not exist before must reflect the (old) top level beneath it. */
+		for (int l = levels.length; l < height && l > 0; l ++) {
+			long[] below = grown[l - 1];
+			for (int w = 0; w < below.length; w ++) {
+				if (below[w] != 0) {
+					grown[l][w >>> WORD_SHIFT] |= 1L << (w & WORD_MASK);
+				}
+			}
+		}
+		levels = grown;
+		this.capacity = bits;
+	}
+
+	/**
+	 * Returns the number of bits addressable without growing.
+	 * @return The current capacity of the bitmap.
+	 */
+	long capacity() {
+		return capacity;
+	}
+
+	/**
+	 * Queries the bit at the provided index.
+	 * @param index The index of the bit. Must be non-negative.
+	 * @return {@code true} if the bit is set, {@code false} otherwise (including when index is beyond capacity).
+	 */
+	boolean get(int index) {
+		if (index >= capacity) {
+			return false;
+		}
+		return (levels[0][index >>> WORD_SHIFT] & (1L << (index & WORD_MASK))) != 0;
+	}
+
+	/**
+	 * Sets the bit at the provided index, growing the bitmap if needed.
+	 * @param index The index of the bit to set. Must be non-negative.
+	 */
+	void set(int index) {
+		if (index >= capacity) {
+			ensureCapacity(index + 1L);
+		}
+		int pos = index;
+		for (int l = 0; l < levels.length; l ++) {
+			int w = pos >>> WORD_SHIFT;
+			long before = levels[l][w];
+			levels[l][w] = before | (1L << (pos & WORD_MASK));
+			if (before != 0) {
+				return;	// Summary bits above are already set.
+			}
+			pos = w;
+		}
+	}
+
+	/**
+	 * Clears the bit at the provided index.
+	 * @param index The index of the bit to clear. Must be non-negative.
+	 */
+	void clear(int index) {
+		if (index >= capacity) {
+			return;
+		}
+		int pos = index;
+		for (int l = 0; l < levels.length; l ++) {
+			int w = pos >>> WORD_SHIFT;
+			long after = levels[l][w] & ~(1L << (pos & WORD_MASK));
+			levels[l][w] = after;
+			if (after != 0) {
+				return;	// Word still occupied, summary bits above stay set.
+			}
+			pos = w;
+		}
+	}
+
+	/**
+	 * Finds the smallest set bit whose index is at least {@code from}.
+	 * @param from The index to start searching from (inclusive).
+	 * @return The index of the next set bit, or -1 if there is none.
+	 */
+	int nextSetBit(int from) {
+		if (from < 0) {
+			from = 0;
+		}
+		if (from >= capacity) {
+			return -1;
+		}
+		long pos = from;
+		int l = 0;
+		/* Climb until some word at or after pos has a bit set. */
+		while (true) {
+			long[] level = levels[l];
+			int w = (int) (pos >>> WORD_SHIFT);
+			if (w >= level.length) {
+				return -1;
+			}
+			long bits = level[w] & (-1L << (pos & WORD_MASK));
+			if (bits != 0) {
+				pos = ((long) w << WORD_SHIFT) | Long.numberOfTrailingZeros(bits);
+				break;
+			}
+			if (l == levels.length - 1) {
+				return -1;
+			}
+			pos = w + 1L;
+			l ++;
+		}
+		/* Descend, always taking the lowest set bit of the word the summary points to. */
+		while (l > 0) {
+			l --;
+			pos = (pos << WORD_SHIFT) | Long.numberOfTrailingZeros(levels[l][(int) pos]);
+		}
+		return (int) pos;
+	}
+
+	/**
+	 * Queries the bitmap for emptiness.
+	 * @return {@code true} if no bit is set, {@code false} otherwise.
+	 */
+	boolean isEmpty() {
+		return levels[levels.length - 1][0] == 0;
+	}
+}
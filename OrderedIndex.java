@@ -0,0 +1,220 @@
+package phonebook.hashes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * <p>{@link OrderedIndex} is a map from {@link String} keys to {@link String} values that keeps its keys in order,
+ * so that it can list the keys of a prefix or of a range in O(log n + k) time. Most keys live in a <em>base</em>:
+ * a compact sorted array, searched by binary search. New keys go to a small <em>delta</em> tree instead, and
+ * removed keys of the base are only marked. Once the delta holds, or the base has marked, an eighth as many keys as
+ * the base, the delta is merged into a new base, and the marked keys are dropped, in one linear pass.</p>
+ *
+ * <p>A merge copies the n keys of the base once every n / {@value #MERGE_RATIO} writes or more, so a write copies
+ * about {@value #MERGE_RATIO} references, amortized, whatever the size of the index. {@link #getCopies()} counts
+ * them, so that this <em>write amplification</em> can be measured. Re-inserting a removed key of the base only
+ * clears its mark. A scan also steps over the marked keys of its range, of which there are at most n /
+ * {@value #MERGE_RATIO}.</p>
+ *
+ * <p>No {@code null} keys or values are allowed.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see phonebook.Phonebook#enableOrderedIndex()
+ */
+public class OrderedIndex {
+
+    /**
+     * The base is rebuilt once the delta, or the marked keys of the base, reach 1 / MERGE_RATIO of its size.
+     */
+    public static final int MERGE_RATIO = 8;
+
+    private static final int MIN_DELTA = 64;
+
+    private String[] keys = new String[0], values = new String[0];
+    private boolean[] removed = new boolean[0];
+    private int marked;         // The number of keys of the base that are removed.
+    private int limit = MIN_DELTA;
+    private final TreeMap<String, String> delta = new TreeMap<String, String>();
+
+    private long merges, copies;
+
+    /**
+     * Associates a value with a key, replacing the value that the key had, if any.
+     * @param key A key.
+     * @param value The value of key.
+     * @throws IllegalArgumentException If key or value is {@code null}.
+     */
+    public void put(String key, String value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Provided: key=" + key + " and value=" + value);
+        }
+        int i = Arrays.binarySearch(keys, key);
+        if (i >= 0) {
+            if (removed[i]) {
+                removed[i] = false;
+                marked --;
+            }
+            values[i] = value;
+            return;
+        }
+        if (delta.put(key, value) == null && delta.size() >= limit) {
+            merge();
+        }
+    }
+
+    /**
+     * Removes a key, along with its value.
+     * @param key A key.
+     * @return {@code true} if key was in the index, {@code false} otherwise.
+     */
+    public boolean remove(String key) {
+        if (key == null) {
+            return false;
+        }
+        int i = Arrays.binarySearch(keys, key);
+        if (i < 0) {
+            return delta.remove(key) != null;
+        }
+        if (removed[i]) {
+            return false;
+        }
+        removed[i] = true;
+        values[i] = null;
+        if (++ marked >= limit) {
+            merge();
+        }
+        return true;
+    }
+
+    /**
+     * Returns the value of a key.
+     * @param key A key.
+     * @return The value of key, or {@code null} if key is not in the index.
+     */
+    public String get(String key) {
+        if (key == null) {
+            return null;
+        }
+        int i = Arrays.binarySearch(keys, key);
+        return (i >= 0) ? values[i] : delta.get(key);     // values[i] is null if removed.
+    }
+
+    /* Merges the delta into a new base without the removed keys. */
+    private void merge() {
+        int n = keys.length - marked + delta.size();
+        String[] k = new String[n], v = new String[n];
+        Iterator<Map.Entry<String, String>> d = delta.entrySet().iterator();
+        Map.Entry<String, String> next = d.hasNext() ? d.next() : null;
+        int i = 0;
+        for (int o = 0; o < n; o ++) {
+            while (i < keys.length && removed[i]) {
+                i ++;
+            }
+            if (next == null || (i < keys.length && keys[i].compareTo(next.getKey()) < 0)) {
+                k[o] = keys[i];
+                v[o] = values[i ++];
+            } else {
+                k[o] = next.getKey();
+                v[o] = next.getValue();
+                next = d.hasNext() ? d.next() : null;
+            }
+        }
+        keys = k;
+        values = v;
+        removed = new boolean[n];
+        marked = 0;
+        delta.clear();
+        limit = Math.max(MIN_DELTA, n / MERGE_RATIO);
+        merges ++;
+        copies += n;
+    }
+
+    /* Up to max keys, in order, from the first one not less than from, while they start with prefix, if not
+       null, and are less than to, if not null. */
+    private List<String> scan(String from, String prefix, String to, int max) {
+        List<String> out = new ArrayList<String>();
+        int i = Arrays.binarySearch(keys, from);
+        if (i < 0) {
+            i = -i - 1;
+        }
+        Iterator<String> d = delta.tailMap(from, true).keySet().iterator();
+        String fromDelta = d.hasNext() ? d.next() : null;
+        while (out.size() < max) {
+            while (i < keys.length && removed[i]) {
+                i ++;
+            }
+            String next;
+            if (i < keys.length && (fromDelta == null || keys[i].compareTo(fromDelta) < 0)) {
+                next = keys[i ++];
+            } else if (fromDelta != null) {
+                next = fromDelta;
+                fromDelta = d.hasNext() ? d.next() : null;
+            } else {
+                break;
+            }
+            if ((prefix != null && !next.startsWith(prefix)) || (to != null && next.compareTo(to) >= 0)) {
+                break;
+            }
+            out.add(next);
+        }
+        return out;
+    }
+
+    /**
+     * Lists the keys that start with a prefix, in order.
+     * @param prefix A prefix; the empty prefix matches every key.
+     * @param limit The maximum number of keys to list.
+     * @return Up to limit keys that start with prefix, the least first.
+     * @throws IllegalArgumentException If prefix is {@code null} or limit is negative.
+     */
+    public List<String> keysWithPrefix(String prefix, int limit) {
+        if (prefix == null || limit < 0) {
+            throw new IllegalArgumentException("Provided: prefix=" + prefix + " and limit=" + limit);
+        }
+        return scan(prefix, prefix, null, limit);
+    }
+
+    /**
+     * Lists the keys of a range, in order.
+     * @param lo The least key of the range.
+     * @param hi The key that ends the range, itself excluded.
+     * @return Every key k with lo &lt;= k &lt; hi, the least first.
+     * @throws IllegalArgumentException If lo or hi is {@code null}.
+     */
+    public List<String> keysInRange(String lo, String hi) {
+        if (lo == null || hi == null) {
+            throw new IllegalArgumentException("Provided: lo=" + lo + " and hi=" + hi);
+        }
+        return scan(lo, null, hi, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the number of keys in the index.
+     * @return The number of keys.
+     */
+    public int size() {
+        return keys.length - marked + delta.size();
+    }
+
+    /**
+     * Returns the number of times the delta has been merged into the base.
+     * @return The number of merges since the index was created.
+     */
+    public long getMerges() {
+        return merges;
+    }
+
+    /**
+     * Returns the number of references to keys that merges have copied into a new base. Divided by the number of
+     * writes, this is the write amplification of the index.
+     * @return The number of keys copied since the index was created.
+     */
+    public long getCopies() {
+        return copies;
+    }
+}
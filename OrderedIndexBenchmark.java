@@ -0,0 +1,150 @@
+package benchmarks;
+
+import phonebook.Phonebook;
+import phonebook.hashes.CollisionResolver;
+import phonebook.hashes.OrderedIndex;
+
+import java.util.Random;
+
+/**
+ * <p>{@link OrderedIndexBenchmark} measures what the ordered index of {@link Phonebook} costs and what it buys. A
+ * {@link CollisionResolver#ROBIN_HOOD} {@link Phonebook} of n entries is timed on
+ * {@link Phonebook#addEntry(String, String) addEntry} and on a delete/re-insert churn, with and without
+ * {@link Phonebook#enableOrderedIndex()}, and then on {@link Phonebook#namesWithPrefix(String, int) namesWithPrefix}
+ * (three characters, at most ten names) and {@link Phonebook#numbersInRange(String, String) numbersInRange} (a
+ * range of 100 numbers). For the same writes, it reports, on lines ending in {@code copies/write}, the number of
+ * references that an {@link OrderedIndex} copies per write, and on lines ending in {@code merges}, how many times
+ * its buffer was merged.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see BenchmarkHarness
+ * @see OrderedIndex
+ */
+public class OrderedIndexBenchmark {
+
+	private static final int[] SIZES = {100_000, 1_000_000};
+
+	private static Phonebook phonebook(boolean ordered) {
+		Phonebook pb = new Phonebook(CollisionResolver.ROBIN_HOOD, CollisionResolver.ROBIN_HOOD);
+		if (ordered) {
+			pb.enableOrderedIndex();
+		}
+		return pb;
+	}
+
+	private static void amplification(String label, String[] keys, int n, int[] churn) {
+		OrderedIndex index = new OrderedIndex();
+		for (int i = 0; i < n; i ++) {
+			index.put(keys[i], keys[i]);
+		}
+		System.out.printf("%-58s %14.1f%n", label + " load copies/write", index.getCopies() / (double) n);
+		System.out.printf("%-58s %14d%n", label + " load merges", index.getMerges());
+		long copies = index.getCopies(), merges = index.getMerges();
+		for (int k : churn) {
+			index.remove(keys[k]);
+			index.put(keys[k], keys[k]);
+		}
+		System.out.printf("%-58s %14.1f%n", label + " churn copies/write",
+				(index.getCopies() - copies) / (2.0 * churn.length));
+		System.out.printf("%-58s %14d%n", label + " churn merges", index.getMerges() - merges);
+	}
+
+	public static void run(final BenchmarkHarness h) throws Exception {
+		for (final int n : SIZES) {
+			final String[] names = new String[n];
+			final String[] numbers = new String[n];
+			for (int i = 0; i < n; i ++) {
+				names[i] = PhonebookBenchmark.name(i);
+				numbers[i] = PhonebookBenchmark.number(i);
+			}
+			final int[] churn = new int[n];
+			Random r = new Random(23);
+			for (int i = 0; i < n; i ++) {
+				churn[i] = r.nextInt(n);
+			}
+
+			for (final boolean ordered : new boolean[] {false, true}) {
+				String label = String.format("ordered ROBIN_HOOD%s n=%d", ordered ? "+index" : "", n);
+				h.run(label + " addEntry", new BenchmarkHarness.Workload() {
+					private Phonebook pb;
+
+					public int operations() {
+						return n;
+					}
+
+					public void setUp() {
+						pb = phonebook(ordered);
+					}
+
+					public void op(int i) {
+						pb.addEntry(names[i], numbers[i]);
+					}
+				});
+
+				h.run(label + " delete+add churn", new BenchmarkHarness.Workload() {
+					private Phonebook pb;
+
+					public int operations() {
+						return n;
+					}
+
+					public void setUp() {
+						if (pb == null) {
+							pb = phonebook(ordered);
+							for (int i = 0; i < n; i ++) {
+								pb.addEntry(names[i], numbers[i]);
+							}
+						}
+					}
+
+					public void op(int i) {
+						int k = churn[i];
+						pb.deleteEntry(names[k], numbers[k]);
+						pb.addEntry(names[k], numbers[k]);
+					}
+				});
+			}
+
+			final Phonebook pb = phonebook(true);
+			for (int i = 0; i < n; i ++) {
+				pb.addEntry(names[i], numbers[i]);
+			}
+			final String[] prefixes = new String[n];
+			final String[] lows = new String[n], highs = new String[n];
+			for (int i = 0; i < n; i ++) {
+				prefixes[i] = names[churn[i]].substring(0, "Subscriber ".length() + 3);
+				int lo = churn[i] % Math.max(1, n - 100);
+				lows[i] = numbers[lo];
+				highs[i] = numbers[lo + 100];
+			}
+			h.run(String.format("ordered n=%d namesWithPrefix limit 10", n), new BenchmarkHarness.Workload() {
+				public int operations() {
+					return n;
+				}
+
+				public void op(int i) {
+					h.consume(pb.namesWithPrefix(prefixes[i], 10).size());
+				}
+			});
+			h.run(String.format("ordered n=%d numbersInRange 100", n), new BenchmarkHarness.Workload() {
+				public int operations() {
+					return n;
+				}
+
+				public void op(int i) {
+					h.consume(pb.numbersInRange(lows[i], highs[i]).size());
+				}
+			});
+
+			amplification(String.format("ordered names n=%d", n), names, n, churn);
+			amplification(String.format("ordered numbers n=%d", n), numbers, n, churn);
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		BenchmarkHarness h = new BenchmarkHarness();
+		h.header();
+		run(h);
+	}
+}
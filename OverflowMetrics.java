@@ -0,0 +1,149 @@
+package pqueue.priorityqueues;
+
+import java.util.Arrays;
+
+/**
+ * <p>{@link OverflowMetrics} counts, per priority, what happened to the elements offered to a
+ * {@link LinearPriorityQueue}: how many were accepted, how many were dropped (discarded, rejected, evicted, or
+ * given up on while waiting), how many were spilled to the overflow queue, and how long producers were blocked
+ * waiting for room. The queue updates its own counters under its lock, and hands out snapshots of them taken
+ * under that lock, so an {@link OverflowMetrics} may be read from any thread and never changes.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see OverflowPolicy
+ * @see LinearPriorityQueue#getOverflowMetrics()
+ */
+public final class OverflowMetrics {
+
+	private static final long[] NONE = new long[0];
+
+	/* Each array only grows to the highest priority counted in it, so unused counters cost nothing. */
+	private long[] accepted = NONE, dropped = NONE, spilled = NONE, blockedNanos = NONE;
+
+	OverflowMetrics() {
+	}
+
+	/* A copy of the counters. Requires the lock of the queue that updates them. */
+	OverflowMetrics snapshot() {
+		OverflowMetrics copy = new OverflowMetrics();
+		copy.accepted = accepted.clone();
+		copy.dropped = dropped.clone();
+		copy.spilled = spilled.clone();
+		copy.blockedNanos = blockedNanos.clone();
+		return copy;
+	}
+
+	private static long[] grow(long[] counters, int priority) {
+		if (priority < counters.length) {
+			return counters;
+		}
+		return Arrays.copyOf(counters, Math.max(priority + 1, 2 * counters.length));
+	}
+
+	void accept(int priority) {
+		accepted = grow(accepted, priority);
+		accepted[priority] ++;
+	}
+
+	void drop(int priority) {
+		dropped = grow(dropped, priority);
+		dropped[priority] ++;
+	}
+
+	void spill(int priority) {
+		spilled = grow(spilled, priority);
+		spilled[priority] ++;
+	}
+
+	void block(int priority, long nanos) {
+		blockedNanos = grow(blockedNanos, priority);
+		blockedNanos[priority] += nanos;
+	}
+
+	private static long at(long[] counters, int priority) {
+		return (priority >= 0 && priority < counters.length) ? counters[priority] : 0;
+	}
+
+	private static long sum(long[] counters) {
+		long s = 0;
+		for (long c : counters) {
+			s += c;
+		}
+		return s;
+	}
+
+	/**
+	 * Returns the number of elements of the provided priority that were added to the queue.
+	 * @param priority A priority.
+	 * @return The number of accepted elements with that priority.
+	 */
+	public long getAccepted(int priority) {
+		return at(accepted, priority);
+	}
+
+	/**
+	 * Returns the number of elements of the provided priority that were lost to the overflow policy.
+	 * @param priority A priority.
+	 * @return The number of dropped, rejected or evicted elements with that priority.
+	 */
+	public long getDropped(int priority) {
+		return at(dropped, priority);
+	}
+
+	/**
+	 * Returns the number of elements of the provided priority that were moved to the overflow queue.
+	 * @param priority A priority.
+	 * @return The number of spilled elements with that priority.
+	 */
+	public long getSpilled(int priority) {
+		return at(spilled, priority);
+	}
+
+	/**
+	 * Returns the total time producers spent waiting for room in the bucket of the provided priority.
+	 * @param priority A priority.
+	 * @return The time blocked, in nanoseconds.
+	 */
+	public long getBlockedNanos(int priority) {
+		return at(blockedNanos, priority);
+	}
+
+	/**
+	 * Returns the number of accepted elements over all priorities.
+	 * @return The sum of {@link #getAccepted(int)} over all priorities.
+	 */
+	public long getTotalAccepted() {
+		return sum(accepted);
+	}
+
+	/**
+	 * Returns the number of dropped elements over all priorities.
+	 * @return The sum of {@link #getDropped(int)} over all priorities.
+	 */
+	public long getTotalDropped() {
+		return sum(dropped);
+	}
+
+	/**
+	 * Returns the number of spilled elements over all priorities.
+	 * @return The sum of {@link #getSpilled(int)} over all priorities.
+	 */
+	public long getTotalSpilled() {
+		return sum(spilled);
+	}
+
+	/**
+	 * Returns the time producers spent blocked over all priorities.
+	 * @return The sum of {@link #getBlockedNanos(int)} over all priorities, in nanoseconds.
+	 */
+	public long getTotalBlockedNanos() {
+		return sum(blockedNanos);
+	}
+
+	@Override
+	public String toString() {
+		return "OverflowMetrics[accepted=" + getTotalAccepted() + ", dropped=" + getTotalDropped() + ", spilled="
+				+ getTotalSpilled() + ", blockedNanos=" + getTotalBlockedNanos() + "]";
+	}
+}
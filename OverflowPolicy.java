@@ -0,0 +1,43 @@
+package pqueue.priorityqueues;
+
+/**
+ * <p>{@link OverflowPolicy} tells a capacity-bounded {@link LinearPriorityQueue} what to do with an element whose
+ * priority bucket is already full. Whatever the policy, the outcome is counted in the queue's
+ * {@link OverflowMetrics}.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see LinearPriorityQueue#LinearPriorityQueue(int, OverflowPolicy)
+ */
+public enum OverflowPolicy {
+
+	/**
+	 * Discard the new element. {@code enqueue} returns normally and {@code offer} returns {@code false}. This is
+	 * what capacity-bounded queues have always done.
+	 */
+	DROP,
+
+	/**
+	 * Refuse the new element: {@code offer} returns {@code false}, and {@code enqueue} throws a
+	 * {@link PriorityQueueFullException}.
+	 */
+	REJECT,
+
+	/**
+	 * Make the producer wait until a consumer takes an element of that priority. The queue synchronizes producers
+	 * and consumers itself, with a private lock, so no external synchronization is needed.
+	 */
+	BLOCK,
+
+	/**
+	 * Discard the oldest element of the full bucket to make room for the new one. All the elements of a bucket
+	 * share one priority, so this sheds the most stale of the lowest-valued elements that compete for the room.
+	 */
+	EVICT_OLDEST,
+
+	/**
+	 * Move the new element, with its priority, to an overflow {@link PriorityQueue} given to the constructor, from
+	 * which the application can take it back once the load spike has passed.
+	 */
+	SPILL
+}
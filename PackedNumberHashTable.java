@@ -0,0 +1,320 @@
+package phonebook.hashes;
+
+/**
+ * <p>{@link PackedNumberHashTable} is a {@link HashTable} specialized for <b>phone numbers</b> as keys. A number of
+ * up to {@value #MAX_DIGITS} decimal digits is packed into a {@code long} (a leading 1 followed by its digits, so
+ * that leading zeros are kept), and the table is an open-addressed {@code long[]} of packed keys with linear probing
+ * and backward-shift deletion, next to the array of values. The key {@link String}s themselves are not retained,
+ * which saves their object and array headers, and a lookup compares one {@code long} per probe instead of calling
+ * {@link String#equals(Object)}. {@link #pack(CharSequence)} and {@link #get(long)} let callers that hold the
+ * digits look a number up without creating a {@link String} at all.</p>
+ *
+ * <p>Keys that are not numbers of up to {@value #MAX_DIGITS} digits, such as ones with a {@code +} or separators,
+ * are kept in a {@link RobinHoodHashTable} on the side, so any {@link String} is a valid key.</p>
+ *
+ * <p>Packed keys are placed by a Fibonacci hash of their {@code long}, unless the table is {@link #seeded(HashStrategy)
+ * seeded}: then they go through a 64-bit finalizer mixed with a random seed, so that numbers crafted to collide in one
+ * table are spread like any others.</p>
+ *
+ * <p>Probe counts reported in {@link Probe}s are the number of slots inspected. As a {@link BatchHashTable}, it loads
+ * the first slot of each of a group of probe sequences before following any of them.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see CollisionResolver#PACKED_NUMBERS
+ */
+public class PackedNumberHashTable implements BatchHashTable, InspectableHashTable {
+
+    /**
+     * The longest number that can be packed: a 1 followed by 18 digits is below {@link Long#MAX_VALUE}.
+     */
+    public static final int MAX_DIGITS = 18;
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final long EMPTY = 0;    // Packed numbers are at least 1.
+
+    private long[] keys;
+    private String[] values;
+    private int count, mask, shift;
+    private final RobinHoodHashTable others;
+    private final boolean seeded;
+    private final long seed;
+
+    /**
+     * Creates an empty table, whose keys that cannot be packed are hashed with {@link HashStrategy#SPREAD}.
+     */
+    public PackedNumberHashTable() {
+        this(HashStrategy.SPREAD);
+    }
+
+    /**
+     * Creates an empty table. Packed keys are spread by a Fibonacci hash of their {@code long}.
+     * @param strategy The hash function of the keys that cannot be packed.
+     * @throws IllegalArgumentException If strategy is {@code null}.
+     */
+    public PackedNumberHashTable(HashStrategy strategy) {
+        this(strategy, false, 0);
+    }
+
+    /**
+     * Creates an empty table whose packed keys are hashed under the provided seed, for reproducible layouts.
+     * @param strategy The hash function of the keys that cannot be packed.
+     * @param seed The seed of the hash of packed keys.
+     * @throws IllegalArgumentException If strategy is {@code null}.
+     */
+    public PackedNumberHashTable(HashStrategy strategy, long seed) {
+        this(strategy, true, seed);
+    }
+
+    private PackedNumberHashTable(HashStrategy strategy, boolean seeded, long seed) {
+        others = new RobinHoodHashTable(strategy);
+        this.seeded = seeded;
+        this.seed = seed;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates an empty table whose packed keys are hashed under a random seed, drawn like the seed of a
+     * {@link SeededHashStrategy}.
+     * @param strategy The hash function of the keys that cannot be packed, typically {@link HashStrategy#seeded()}.
+     * @return A new, empty {@link PackedNumberHashTable}.
+     * @throws IllegalArgumentException If strategy is {@code null}.
+     */
+    public static PackedNumberHashTable seeded(HashStrategy strategy) {
+        return new PackedNumberHashTable(strategy, SeededHashStrategy.randomSeed());
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new String[capacity];
+        mask = capacity - 1;
+        shift = Long.numberOfLeadingZeros(mask);
+    }
+
+    /**
+     * Packs a phone number into a {@code long}.
+     * @param number A phone number.
+     * @return The number as a 1 followed by its digits, or -1 if it is {@code null}, longer than
+     * {@value #MAX_DIGITS} characters or not all decimal digits.
+     */
+    public static long pack(CharSequence number) {
+        if (number == null || number.length() > MAX_DIGITS) {
+            return -1;
+        }
+        long packed = 1;
+        for (int i = 0; i < number.length(); i ++) {
+            int d = number.charAt(i) - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            packed = 10 * packed + d;
+        }
+        return packed;
+    }
+
+    /* The home slot of a packed key: the high bits of a Fibonacci hash, or, if seeded, of the MurmurHash3
+     * finalizer of the key mixed with the seed. */
+    private int home(long packed) {
+        if (!seeded) {
+            return (int) ((packed * 0x9E3779B97F4A7C15L) >>> shift);
+        }
+        long h = packed ^ seed;
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return (int) ((h ^ (h >>> 33)) >>> shift);
+    }
+
+    /* The slot of packed, or -1. probes[0], if probes is not null, receives the number of slots inspected. */
+    private int find(long packed, int[] probes) {
+        int i = home(packed);
+        for (int p = 1; ; p ++) {
+            long k = keys[i];
+            if (k == packed || k == EMPTY) {
+                if (probes != null) {
+                    probes[0] = p;
+                }
+                return (k == EMPTY) ? -1 : i;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    private int insert(long packed, String value) {
+        int i = home(packed);
+        int probes = 1;
+        while (keys[i] != EMPTY) {
+            i = (i + 1) & mask;
+            probes ++;
+        }
+        keys[i] = packed;
+        values[i] = value;
+        count ++;
+        return probes;
+    }
+
+    /* Grows the table, at most once, so that it takes extra more keys without getting over 3/4 full. */
+    private void reserve(int extra) {
+        int capacity = keys.length;
+        while ((count + (long) extra) * 4L > capacity * 3L) {
+            capacity *= 2;
+        }
+        if (capacity == keys.length) {
+            return;
+        }
+        long[] oldKeys = keys;
+        String[] oldValues = values;
+        allocate(capacity);
+        count = 0;
+        for (int i = 0; i < oldKeys.length; i ++) {
+            if (oldKeys[i] != EMPTY) {
+                insert(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the value of a packed number, without creating any object.
+     * @param packed A number packed by {@link #pack(CharSequence)}.
+     * @return The value associated with the number, or {@code null} if it is not in the table.
+     */
+    public String get(long packed) {
+        if (packed <= 0) {
+            return null;
+        }
+        int i = find(packed, null);
+        return (i < 0) ? null : values[i];
+    }
+
+    @Override
+    public Probe put(String key, String value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Provided: key=" + key + " and value=" + value);
+        }
+        long packed = pack(key);
+        if (packed < 0) {
+            return others.put(key, value);
+        }
+        int[] probes = new int[1];
+        int i = find(packed, probes);
+        if (i >= 0) {
+            values[i] = value;
+            return new Probe(value, probes[0]);
+        }
+        reserve(1);
+        return new Probe(value, insert(packed, value));
+    }
+
+    @Override
+    public Probe get(String key) {
+        long packed = pack(key);
+        if (packed < 0) {
+            return (key == null) ? new Probe(null, 0) : others.get(key);
+        }
+        int[] probes = new int[1];
+        int i = find(packed, probes);
+        return new Probe((i < 0) ? null : values[i], probes[0]);
+    }
+
+    @Override
+    public Probe remove(String key) {
+        long packed = pack(key);
+        if (packed < 0) {
+            return (key == null) ? new Probe(null, 0) : others.remove(key);
+        }
+        int[] probes = new int[1];
+        int i = find(packed, probes);
+        if (i < 0) {
+            return new Probe(null, probes[0]);
+        }
+        String value = values[i];
+        /* Backward shift: move back into the hole every later key of the run whose home slot is not past it. */
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            long k = keys[j];
+            if (k == EMPTY) {
+                break;
+            }
+            if (((j - home(k)) & mask) >= ((j - i) & mask)) {
+                keys[i] = k;
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = EMPTY;
+        values[i] = null;
+        count --;
+        return new Probe(value, probes[0]);
+    }
+
+    @Override
+    public void getAll(String[] batch, String[] out, int n) {
+        long[] packed = new long[GROUP], first = new long[GROUP];
+        int[] slot = new int[GROUP];
+        for (int from = 0; from < n; from += GROUP) {
+            int m = Math.min(GROUP, n - from);
+            for (int g = 0; g < m; g ++) {
+                packed[g] = pack(batch[from + g]);
+                slot[g] = (packed[g] < 0) ? 0 : home(packed[g]);
+            }
+            for (int g = 0; g < m; g ++) {  // Independent loads: their misses overlap.
+                first[g] = keys[slot[g]];
+            }
+            for (int g = 0; g < m; g ++) {
+                long p = packed[g];
+                if (p < 0) {
+                    String key = batch[from + g];
+                    out[from + g] = (key == null) ? null : others.get(key).getValue();
+                } else if (first[g] == p) {
+                    out[from + g] = values[slot[g]];
+                } else {
+                    out[from + g] = (first[g] == EMPTY) ? null : get(p);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void putAll(String[] batch, String[] vals, int n) {
+        int packable = 0;
+        for (int i = 0; i < n; i ++) {
+            if (batch[i] == null || vals[i] == null) {
+                throw new IllegalArgumentException("Provided: key=" + batch[i] + " and value=" + vals[i]);
+            }
+            packable += (pack(batch[i]) < 0) ? 0 : 1;
+        }
+        reserve(packable);
+        for (int i = 0; i < n; i ++) {
+            put(batch[i], vals[i]);
+        }
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return get(key).getValue() != null;
+    }
+
+    @Override
+    public boolean containsValue(String value) {
+        for (int i = 0; i < values.length; i ++) {
+            if (keys[i] != EMPTY && values[i].equals(value)) {
+                return true;
+            }
+        }
+        return others.containsValue(value);
+    }
+
+    @Override
+    public int size() {
+        return count + others.size();
+    }
+
+    /**
+     * Returns the capacity of the table, including that of the table of keys that cannot be packed.
+     * @return The number of slots for packed keys plus the capacity of the table on the side.
+     */
+    @Override
+    public int capacity() {
+        return keys.length + others.capacity();
+    }
+}
@@ -0,0 +1,85 @@
+package benchmarks;
+
+import phonebook.Phonebook;
+import phonebook.hashes.CollisionResolver;
+import phonebook.hashes.PackedNumberHashTable;
+
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * <p>{@link PackedNumbersBenchmark} compares the tables with phone numbers as keys: a {@link Phonebook} is built
+ * with every {@link CollisionResolver} for its numbers direction (and {@link CollisionResolver#ROBIN_HOOD} for its
+ * names direction), and is timed on {@link Phonebook#getOwnerOf(String) getOwnerOf}, half of the lookups being
+ * misses. The heap retained per entry, which includes the key {@link String}s that a table keeps, is reported for
+ * each. Finally, {@link PackedNumberHashTable#get(long)} is timed with numbers packed in advance, as by a caller
+ * that already holds the digits.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see BenchmarkHarness
+ * @see PackedNumberHashTable
+ */
+public class PackedNumbersBenchmark {
+
+	private static final int[] SIZES = {10_000, 1_000_000};
+
+	public static void run(final BenchmarkHarness h) throws Exception {
+		for (final int n : SIZES) {
+			final String[] numbers = new String[2 * n];
+			final long[] packed = new long[2 * n];
+			for (int i = 0; i < 2 * n; i ++) {
+				numbers[i] = PhonebookBenchmark.number(i);
+				packed[i] = PackedNumberHashTable.pack(numbers[i]);
+			}
+			final int[] probes = new int[n];
+			Random r = new Random(13);
+			for (int i = 0; i < n; i ++) {
+				probes[i] = r.nextInt(2 * n);	// Half of them were never inserted.
+			}
+
+			for (final CollisionResolver byNumber : CollisionResolver.values()) {
+				String label = String.format("numbers %s n=%d", byNumber, n);
+				Supplier<Phonebook> factory = new Supplier<Phonebook>() {
+					public Phonebook get() {
+						return new Phonebook(CollisionResolver.ROBIN_HOOD, byNumber);
+					}
+				};
+				final Phonebook pb = factory.get();
+				for (int i = 0; i < n; i ++) {
+					pb.addEntry(PhonebookBenchmark.name(i), numbers[i]);
+				}
+				h.run(label + " getOwnerOf", new BenchmarkHarness.Workload() {
+					public int operations() {
+						return n;
+					}
+
+					public void op(int i) {
+						h.consume(pb.getOwnerOf(numbers[probes[i]]) == null ? 0 : 1);
+					}
+				});
+				PhonebookBenchmark.footprint(label, factory, n);
+			}
+
+			final PackedNumberHashTable table = new PackedNumberHashTable();
+			for (int i = 0; i < n; i ++) {
+				table.put(numbers[i], PhonebookBenchmark.name(i));
+			}
+			h.run(String.format("numbers PACKED n=%d get(long)", n), new BenchmarkHarness.Workload() {
+				public int operations() {
+					return n;
+				}
+
+				public void op(int i) {
+					h.consume(table.get(packed[probes[i]]) == null ? 0 : 1);
+				}
+			});
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		BenchmarkHarness h = new BenchmarkHarness();
+		h.header();
+		run(h);
+	}
+}
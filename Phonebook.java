@@ -2,6 +2,8 @@ package phonebook;
 
 import phonebook.hashes.*;
 
+import java.util.List;
+
 /**
  * <p>{@link Phonebook} is an abstraction over phonebooks: databases of &lt; Full Name,
  * Phone Number&gt; pairs. It allows for <b>both</b> phone <b>and</b> name search, both in
@@ -15,9 +17,21 @@ import phonebook.hashes.*;
  *
  * <p>The Release Tests on the <a href ="https://submit.cs.umd.edu/">submit server</a> primarily test the methods of {@link Phonebook}
  * Since {@link Phonebook}'s methods rely on methods of {@link HashTable} instances, by parameterizing
- * {@link Phonebook} instances in all 3^2 = 9 possible ways, we can run the same tests against all of the hash
+ * {@link Phonebook} instances in all possible pairs of {@link CollisionResolver}s, we can run the same tests against all of the hash
  * tables that you will have to implement. </p>
  *
+ * <p>A {@link Phonebook} created with {@link #Phonebook()} instead keeps every entry once, in a
+ * {@link BidirectionalHashIndex} that indexes the same arena of entries by name and by number.</p>
+ *
+ * <p>The linear, ordered linear and quadratic probing tables of
+ * {@link #Phonebook(CollisionResolver, CollisionResolver)} are the ones under test, and are used as they are:
+ * their tombstones are only cleared when they resize. Tables that also compact their tombstones as they go are
+ * those of {@link #Phonebook(CollisionResolver, CollisionResolver, boolean)}, with incremental resizing.</p>
+ *
+ * <p>Once {@link #enableOrderedIndex()} has been called, names and numbers are also kept in order, in an
+ * {@link OrderedIndex} for each direction, which serves {@link #namesWithPrefix(String, int)} and
+ * {@link #numbersInRange(String, String)}.</p>
+ *
  * <p><b>**** STUDY, BUT DO NOT EDIT THIS CLASS' SOURCE CODE! </b></p>
  *
  * @author <a href="https://github.com/JasonFil">Jason Filippou</a>
@@ -25,11 +39,27 @@ import phonebook.hashes.*;
  * @see SeparateChainingHashTable
  * @see LinearProbingHashTable
  * @see QuadraticProbingHashTable
+ * @see RobinHoodHashTable
+ * @see SwissHashTable
+ * @see PackedNumberHashTable
  */
 public class Phonebook {
 
     private HashTable namesToNumbers ;
     private HashTable numbersToNames ;
+    private BidirectionalHashIndex index;     // Replaces both tables when not null.
+    private OrderedIndex orderedNames, orderedNumbers;     // Both null unless enableOrderedIndex() was called.
+
+    /**
+     * Instantiates a new {@link Phonebook} in which every entry is stored once, in a shared arena indexed in both
+     * directions by open addressing. Adding an entry whose name or number is already present replaces the old
+     * entry as a whole, so that names and numbers always stay in one-to-one correspondence.
+     *
+     * @see BidirectionalHashIndex
+     */
+    public Phonebook() {
+        index = new BidirectionalHashIndex();
+    }
 
 
     /**
@@ -40,6 +70,8 @@ public class Phonebook {
      *                           create our hash table with <b>peoples' names</b> as keys.
      * @param numbersToNamesHash A {@link CollisionResolver} that will govern which subtype of {@link HashTable} will be used to
      *                           create our hash table with <b>phone numbers</b> as keys.
+     * @throws IllegalArgumentException if namesToNumbersHash is {@link CollisionResolver#PACKED_NUMBERS}, which only
+     *                                  suits phone numbers as keys.
      * @see CollisionResolver
      */
     public Phonebook(CollisionResolver namesToNumbersHash, CollisionResolver numbersToNamesHash) {
@@ -57,6 +89,14 @@ public class Phonebook {
             case QUADRATIC_PROBING:
                 namesToNumbers = new QuadraticProbingHashTable(false);
                 break;
+            case ROBIN_HOOD:
+                namesToNumbers = new RobinHoodHashTable();
+                break;
+            case SWISS_TABLE:
+                namesToNumbers = new SwissHashTable();
+                break;
+            case PACKED_NUMBERS:
+                throw new IllegalArgumentException("PACKED_NUMBERS only applies to the table with phone numbers as keys.");
             default:
                 throw new RuntimeException("Encountered unsupported CollisionResolver argument: " + namesToNumbersHash  + "." );
         }
@@ -74,11 +114,218 @@ public class Phonebook {
             case QUADRATIC_PROBING:
                 numbersToNames = new QuadraticProbingHashTable(false);
                 break;
+            case ROBIN_HOOD:
+                numbersToNames = new RobinHoodHashTable();
+                break;
+            case SWISS_TABLE:
+                numbersToNames = new SwissHashTable();
+                break;
+            case PACKED_NUMBERS:
+                numbersToNames = new PackedNumberHashTable();
+                break;
             default:
                 throw new RuntimeException("Encountered unsupported Collision Resolver " + numbersToNamesHash + ".");
         }
     }
 
+    /**
+     * Instantiates a new {@link Phonebook}, as {@link #Phonebook(CollisionResolver, CollisionResolver)} does, but
+     * optionally backs the open addressing directions by tables that resize incrementally.
+     *
+     * @param namesToNumbersHash The {@link CollisionResolver} of the table with <b>peoples' names</b> as keys.
+     * @param numbersToNamesHash The {@link CollisionResolver} of the table with <b>phone numbers</b> as keys.
+     * @param incrementalResize {@code true} to use an {@link IncrementalProbingHashTable} for every direction with
+     *                          {@link CollisionResolver#LINEAR_PROBING}, {@link CollisionResolver#ORDERED_LINEAR_PROBING}
+     *                          or {@link CollisionResolver#QUADRATIC_PROBING}, so that no single
+     *                          {@link #addEntry(String, String)} rehashes a whole table. These tables delete softly,
+     *                          and compact themselves incrementally once tombstones fill
+     *                          {@value IncrementalProbingHashTable#DEFAULT_COMPACTION_THRESHOLD} of their slots, so
+     *                          that no single {@link #deleteEntry(String, String)} rehashes a whole table either.
+     * @see IncrementalProbingHashTable
+     */
+    public Phonebook(CollisionResolver namesToNumbersHash, CollisionResolver numbersToNamesHash,
+                     boolean incrementalResize) {
+        this(namesToNumbersHash, numbersToNamesHash);
+        if (incrementalResize) {
+            if (isProbing(namesToNumbersHash)) {
+                namesToNumbers = new IncrementalProbingHashTable(namesToNumbersHash, true);
+            }
+            if (isProbing(numbersToNamesHash)) {
+                numbersToNames = new IncrementalProbingHashTable(numbersToNamesHash, true);
+            }
+        }
+    }
+
+    /**
+     * Instantiates a new {@link Phonebook}, as {@link #Phonebook(CollisionResolver, CollisionResolver, boolean)}
+     * does, but optionally hashes keys with a randomly seeded function instead of one derived from
+     * {@link String#hashCode()}.
+     *
+     * @param namesToNumbersHash The {@link CollisionResolver} of the table with <b>peoples' names</b> as keys.
+     * @param numbersToNamesHash The {@link CollisionResolver} of the table with <b>phone numbers</b> as keys.
+     * @param incrementalResize {@code true} to use an {@link IncrementalProbingHashTable} for every direction with
+     *                          linear, ordered linear or quadratic probing.
+     * @param seededHashes {@code true} to give each table its own {@link HashStrategy#seeded()} hash strategy, so
+     *                     that names crafted to collide under {@link String#hashCode()} do not. A
+     *                     {@link CollisionResolver#PACKED_NUMBERS} table also hashes the numbers it packs under a
+     *                     seed of its own: see {@link PackedNumberHashTable#seeded(HashStrategy)}.
+     * @throws IllegalArgumentException if seededHashes is set and a table cannot take a {@link HashStrategy}: one of
+     *                                  {@link CollisionResolver#SEPARATE_CHAINING}, or of linear, ordered linear or
+     *                                  quadratic probing without incrementalResize. Also if namesToNumbersHash is
+     *                                  {@link CollisionResolver#PACKED_NUMBERS}.
+     * @see SeededHashStrategy
+     */
+    public Phonebook(CollisionResolver namesToNumbersHash, CollisionResolver numbersToNamesHash,
+                     boolean incrementalResize, boolean seededHashes) {
+        this(namesToNumbersHash, numbersToNamesHash, incrementalResize);
+        if (seededHashes) {
+            for (CollisionResolver resolver : new CollisionResolver[] {namesToNumbersHash, numbersToNamesHash}) {
+                if (resolver == CollisionResolver.SEPARATE_CHAINING || (isProbing(resolver) && !incrementalResize))
+                    throw new IllegalArgumentException("Seeded hashes are not supported by " + resolver
+                            + (isProbing(resolver) ? " without incremental resizing." : "."));
+            }
+            namesToNumbers = seeded(namesToNumbersHash, namesToNumbers);
+            numbersToNames = seeded(numbersToNamesHash, numbersToNames);
+        }
+    }
+
+    /* A table like table, but with a seeded hash strategy. */
+    private static HashTable seeded(CollisionResolver resolver, HashTable table) {
+        if (table instanceof IncrementalProbingHashTable) {
+            return new IncrementalProbingHashTable(resolver, true, HashStrategy.seeded());
+        }
+        switch (resolver) {
+            case ROBIN_HOOD:
+                return new RobinHoodHashTable(HashStrategy.seeded());
+            case SWISS_TABLE:
+                return new SwissHashTable(HashStrategy.seeded());
+            case PACKED_NUMBERS:
+                return PackedNumberHashTable.seeded(HashStrategy.seeded());
+            default:
+                throw new IllegalStateException("Not reachable: " + resolver + " was rejected.");
+        }
+    }
+
+    private static boolean isProbing(CollisionResolver resolver) {
+        return resolver == CollisionResolver.LINEAR_PROBING || resolver == CollisionResolver.ORDERED_LINEAR_PROBING
+                || resolver == CollisionResolver.QUADRATIC_PROBING;
+    }
+
+    /**
+     * Starts gathering statistics about both tables of this {@link Phonebook}, by wrapping each of them in an
+     * {@link InstrumentedHashTable}. Has no effect if statistics are already gathered.
+     * @throws IllegalStateException if this {@link Phonebook} was created by {@link #Phonebook()}, which has no
+     * {@link HashTable}s.
+     * @see #getStatistics()
+     */
+    public void enableStatistics() {
+        if (index != null)
+            throw new IllegalStateException("The shared-arena Phonebook has no hash tables to gather statistics about.");
+        if (!(namesToNumbers instanceof InstrumentedHashTable)) {
+            namesToNumbers = new InstrumentedHashTable(namesToNumbers);
+        }
+        if (!(numbersToNames instanceof InstrumentedHashTable)) {
+            numbersToNames = new InstrumentedHashTable(numbersToNames);
+        }
+    }
+
+    private static HashTableStats statisticsOf(HashTable table) {
+        if (!(table instanceof InstrumentedHashTable))
+            throw new IllegalStateException("Statistics are not enabled; call enableStatistics() first.");
+        return ((InstrumentedHashTable) table).getStatistics();
+    }
+
+    /**
+     * Returns a snapshot of the statistics of the table with names as keys.
+     * @return The statistics gathered since {@link #enableStatistics()} about the names-to-numbers table.
+     * @throws IllegalStateException if statistics are not enabled.
+     */
+    public HashTableStats getNamesToNumbersStatistics() {
+        return statisticsOf(namesToNumbers);
+    }
+
+    /**
+     * Returns a snapshot of the statistics of the table with numbers as keys.
+     * @return The statistics gathered since {@link #enableStatistics()} about the numbers-to-names table.
+     * @throws IllegalStateException if statistics are not enabled.
+     */
+    public HashTableStats getNumbersToNamesStatistics() {
+        return statisticsOf(numbersToNames);
+    }
+
+    /**
+     * Returns a snapshot of the statistics of both tables, combined.
+     * @return The statistics gathered since {@link #enableStatistics()}, as merged by
+     * {@link HashTableStats#merge(HashTableStats, HashTableStats)}.
+     * @throws IllegalStateException if statistics are not enabled.
+     */
+    public HashTableStats getStatistics() {
+        return HashTableStats.merge(getNamesToNumbersStatistics(), getNumbersToNamesStatistics());
+    }
+
+    /**
+     * Starts keeping the names and the numbers of this {@link Phonebook} in order, so that they can be searched by
+     * prefix and by range. Every later {@link #addEntry(String, String)} and {@link #deleteEntry(String, String)}
+     * also updates the {@link OrderedIndex}es, which costs a binary search, a tree insertion and, amortized, the
+     * copy of {@value OrderedIndex#MERGE_RATIO} references. Has no effect if the ordered index is already enabled.
+     * @throws IllegalStateException if this {@link Phonebook} is not empty: the hash tables cannot list their
+     * entries to fill the index with.
+     * @see #namesWithPrefix(String, int)
+     * @see #numbersInRange(String, String)
+     */
+    public void enableOrderedIndex() {
+        if (orderedNames != null) {
+            return;
+        }
+        if (!isEmpty())
+            throw new IllegalStateException("The ordered index must be enabled while the Phonebook is empty.");
+        orderedNames = new OrderedIndex();
+        orderedNumbers = new OrderedIndex();
+    }
+
+    private void checkOrderedIndex() {
+        if (orderedNames == null)
+            throw new IllegalStateException("The ordered index is not enabled; call enableOrderedIndex() first.");
+    }
+
+    /**
+     * Lists, in alphabetical order, the full names that start with the provided prefix, as in type-ahead search.
+     * Runs in O(log n + k) time for k names.
+     * @param prefix The first characters of the names to list.
+     * @param limit The maximum number of names to list.
+     * @return Up to limit names that start with prefix, in {@link String#compareTo(String)} order.
+     * @throws IllegalArgumentException if prefix is {@code null} or limit is negative.
+     * @throws IllegalStateException if the ordered index is not enabled.
+     */
+    public List<String> namesWithPrefix(String prefix, int limit) {
+        checkOrderedIndex();
+        return orderedNames.keysWithPrefix(prefix, limit);
+    }
+
+    /**
+     * Lists, in order, the phone numbers of the provided range. Numbers are compared as {@link String}s, which is
+     * their numeric order as long as they have the same number of digits. Runs in O(log n + k) time for k numbers.
+     * @param lo The least number of the range.
+     * @param hi The number that ends the range, itself excluded.
+     * @return Every number k with lo &lt;= k &lt; hi, in {@link String#compareTo(String)} order.
+     * @throws IllegalArgumentException if lo or hi is {@code null}.
+     * @throws IllegalStateException if the ordered index is not enabled.
+     */
+    public List<String> numbersInRange(String lo, String hi) {
+        checkOrderedIndex();
+        return orderedNumbers.keysInRange(lo, hi);
+    }
+
+    /* Mirrors, in the ordered index, the removal of the entries of name and of number, either of which may be null. */
+    private void unorder(String name, String number) {
+        if (name != null) {
+            orderedNames.remove(name);
+        }
+        if (number != null) {
+            orderedNumbers.remove(number);
+        }
+    }
+
     /** Retrieves the phone number associated with the provided full name. If the name is not in the database,
      * this method returns {@code null}.
      * @param name The full name of the owner of the phone number that is being searched for.
@@ -86,6 +333,9 @@ public class Phonebook {
      * is not in the {@link Phonebook}.
      */
     public String getNumberOf(String name) {
+        if (index != null) {
+            return (name == null) ? null : index.getNumberOf(name);
+        }
         return (name == null) ? null : namesToNumbers.get(name).getValue();
     }
 
@@ -96,9 +346,84 @@ public class Phonebook {
      * is not in the {@link Phonebook}.
      */
     public String getOwnerOf(String number) {
+        if (index != null) {
+            return (number == null) ? null : index.getOwnerOf(number);
+        }
         return (number == null) ? null : numbersToNames.get(number).getValue();
     }
 
+    /** Retrieves the phone numbers associated with a batch of full names, as {@link #getNumberOf(String)} would,
+     * one by one. When the table with names as keys is a {@link BatchHashTable}, the lookups of the batch are
+     * interleaved, so that their cache misses overlap.
+     * @param names The full names to look up.
+     * @param numbers Receives, at index i, the phone number of names[i], or {@code null} if names[i] is {@code null}
+     *                or not in the {@link Phonebook}.
+     * @throws IllegalArgumentException if numbers is shorter than names.
+     */
+    public void getNumbersOf(String[] names, String[] numbers) {
+        if (numbers.length < names.length)
+            throw new IllegalArgumentException("Provided " + names.length + " names and room for " + numbers.length
+                    + " numbers.");
+        if (index == null && namesToNumbers instanceof BatchHashTable) {
+            ((BatchHashTable) namesToNumbers).getAll(names, numbers, names.length);
+            return;
+        }
+        for (int i = 0; i < names.length; i ++) {
+            numbers[i] = getNumberOf(names[i]);
+        }
+    }
+
+    /** Retrieves the owners of a batch of phone numbers, as {@link #getOwnerOf(String)} would, one by one. When the
+     * table with numbers as keys is a {@link BatchHashTable}, the lookups of the batch are interleaved, so that their
+     * cache misses overlap.
+     * @param numbers The phone numbers to look up.
+     * @param owners Receives, at index i, the full name of the owner of numbers[i], or {@code null} if numbers[i] is
+     *               {@code null} or not in the {@link Phonebook}.
+     * @throws IllegalArgumentException if owners is shorter than numbers.
+     */
+    public void getOwnersOf(String[] numbers, String[] owners) {
+        if (owners.length < numbers.length)
+            throw new IllegalArgumentException("Provided " + numbers.length + " numbers and room for " + owners.length
+                    + " owners.");
+        if (index == null && numbersToNames instanceof BatchHashTable) {
+            ((BatchHashTable) numbersToNames).getAll(numbers, owners, numbers.length);
+            return;
+        }
+        for (int i = 0; i < numbers.length; i ++) {
+            owners[i] = getOwnerOf(numbers[i]);
+        }
+    }
+
+    /** Adds a batch of tuples &lt; names[i], numbers[i] &gt;, as {@link #addEntry(String, String)} would, in order.
+     * Every {@link BatchHashTable} is grown at most once, up front, for the whole batch.
+     * @param names The full names of the numbers' owners.
+     * @param numbers The phone numbers, numbers[i] being the number of names[i].
+     * @throws IllegalArgumentException if the arrays differ in length or contain {@code null}. No entry is added then.
+     */
+    public void addEntries(String[] names, String[] numbers) {
+        if (names.length != numbers.length)
+            throw new IllegalArgumentException("Provided " + names.length + " names and " + numbers.length
+                    + " numbers.");
+        for (int i = 0; i < names.length; i ++) {
+            if(names[i] == null || numbers[i] == null)
+                throw new IllegalArgumentException("Provided: name=" + names[i] + " and number= " + numbers[i]);
+        }
+        if (index == null && namesToNumbers instanceof BatchHashTable && numbersToNames instanceof BatchHashTable) {
+            ((BatchHashTable) namesToNumbers).putAll(names, numbers, names.length);
+            ((BatchHashTable) numbersToNames).putAll(numbers, names, numbers.length);
+            if (orderedNames != null) {
+                for (int i = 0; i < names.length; i ++) {
+                    orderedNames.put(names[i], numbers[i]);
+                    orderedNumbers.put(numbers[i], names[i]);
+                }
+            }
+            return;
+        }
+        for (int i = 0; i < names.length; i ++) {
+            addEntry(names[i], numbers[i]);
+        }
+    }
+
     /** Adds the tuple &lt; name, number &gt; in the {@link Phonebook}. If either name or
      * number are already in the collection, then the entire entry is <b>updated</b>.
      * @param name The full name of the number's owner.
@@ -108,8 +433,19 @@ public class Phonebook {
     public void addEntry(String name, String number) {
         if(name == null || number == null)
             throw new IllegalArgumentException("Provided: name=" + name + " and number= " + number);
-        namesToNumbers.put(name, number);
-        numbersToNames.put(number, name);
+        if (index != null) {
+            if (orderedNames != null) {     // The entries that hold name or number are replaced as a whole.
+                unorder(index.getOwnerOf(number), index.getNumberOf(name));
+            }
+            index.put(name, number);
+        } else {
+            namesToNumbers.put(name, number);
+            numbersToNames.put(number, name);
+        }
+        if (orderedNames != null) {
+            orderedNames.put(name, number);
+            orderedNumbers.put(number, name);
+        }
     }
 
     /** Deletes the entry characterized by the arguments provided. If either argument is {@code null}, or if the
@@ -121,14 +457,28 @@ public class Phonebook {
     public void deleteEntry(String name, String number) {
         if(number == null || name == null)
             throw new IllegalArgumentException("Provided: name=" + name + " and number= " + number);
+        if (index != null) {
+            String numberOfName = index.removeName(name), ownerOfNumber = index.removeNumber(number);
+            if (orderedNames != null) {
+                unorder(name, numberOfName);
+                unorder(ownerOfNumber, number);
+            }
+            return;
+        }
         namesToNumbers.remove(name);
         numbersToNames.remove(number);
+        if (orderedNames != null) {
+            unorder(name, number);
+        }
     }
 
     /** Returns the number of entries in the phonebook.
      * @return the number of entries in the phonebook.
      */
     public int size() {
+        if (index != null) {
+            return index.size();
+        }
         assert namesToNumbers.size() == numbersToNames.size() :
                 "Mismatch in internal hash table counts. Names->Numbers has count: " +
                         namesToNumbers.size() + ", while Numbers->Names has count:  " +
@@ -0,0 +1,212 @@
+package benchmarks;
+
+import phonebook.MappedPhonebook;
+import phonebook.Phonebook;
+import phonebook.PhonebookFileWriter;
+import phonebook.hashes.CollisionResolver;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * <p>{@link PhonebookBenchmark} runs every pairing of {@link CollisionResolver}s behind {@link Phonebook}, in both
+ * directions, through three workloads of n entries: bulk {@link Phonebook#addEntry(String, String) addEntry},
+ * lookups by name and number (half of them misses), and a delete/re-insert churn that exercises tombstones. It also
+ * reports the heap retained per entry. The same workloads also run against the shared-arena
+ * {@link Phonebook#Phonebook() Phonebook()}. Finally, it times opening a {@link MappedPhonebook} of n entries and
+ * looking up one entry, which compares with the cost of building a {@link Phonebook} through addEntry, and then
+ * lookups against the open {@link MappedPhonebook}.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see BenchmarkHarness
+ */
+public class PhonebookBenchmark {
+
+	private static final int[] SIZES = {10_000, 200_000};
+
+	static String name(int i) {
+		return "Subscriber " + Integer.toHexString(i * 0x9E3779B1) + " #" + i;
+	}
+
+	static String number(int i) {
+		return String.format("301%07d", i);
+	}
+
+	private static Phonebook filled(Supplier<Phonebook> factory, int n) {
+		Phonebook pb = factory.get();
+		for (int i = 0; i < n; i ++) {
+			pb.addEntry(name(i), number(i));
+		}
+		return pb;
+	}
+
+	private static long usedHeap() {
+		Runtime rt = Runtime.getRuntime();
+		for (int i = 0; i < 3; i ++) {
+			System.gc();
+		}
+		return rt.totalMemory() - rt.freeMemory();
+	}
+
+	/* Prints the heap retained per entry by a filled phonebook, measured from GC'd heap occupancy. */
+	static void footprint(String label, Supplier<Phonebook> factory, int n) {
+		long before = usedHeap();
+		Phonebook pb = filled(factory, n);
+		long after = usedHeap();
+		System.out.printf("%-58s %14.1f%n", label + " retained B/entry", (after - before) / (double) n);
+		if (pb.size() < 0) {
+			System.out.println();	// Keeps pb reachable until after the measurement.
+		}
+	}
+
+	private static void workloads(final BenchmarkHarness h, String label, final Supplier<Phonebook> factory,
+			final int n, final String[] names, final String[] numbers, final int[] probes) throws Exception {
+		h.run(label + " addEntry", new BenchmarkHarness.Workload() {
+			private Phonebook pb;
+
+			public int operations() {
+				return n;
+			}
+
+			public void setUp() {
+				pb = factory.get();
+			}
+
+			public void op(int i) {
+				pb.addEntry(names[i], numbers[i]);
+			}
+		});
+
+		h.run(label + " get", new BenchmarkHarness.Workload() {
+			private Phonebook pb;
+
+			public int operations() {
+				return n;
+			}
+
+			public void setUp() {
+				if (pb == null) {
+					pb = filled(factory, n);
+				}
+			}
+
+			public void op(int i) {
+				int k = probes[i];
+				String res = ((i & 1) == 0) ? pb.getNumberOf(names[k]) : pb.getOwnerOf(numbers[k]);
+				h.consume(res == null ? 0 : 1);
+			}
+		});
+
+		h.run(label + " delete+add churn", new BenchmarkHarness.Workload() {
+			private Phonebook pb;
+
+			public int operations() {
+				return n;
+			}
+
+			public void setUp() {
+				pb = filled(factory, n);
+			}
+
+			public void op(int i) {
+				int k = probes[i] % n;
+				pb.deleteEntry(names[k], numbers[k]);
+				pb.addEntry(names[k], numbers[k]);
+			}
+		});
+
+		footprint(label, factory, n);
+	}
+
+	private static void mapped(final BenchmarkHarness h, final int n, final String[] names, final String[] numbers,
+			final int[] probes) throws Exception {
+		final Path file = Files.createTempFile("phonebook", ".pb");
+		final Path log = file.resolveSibling(file.getFileName() + ".log");
+		try {
+			PhonebookFileWriter writer = new PhonebookFileWriter();
+			for (int i = 0; i < n; i ++) {
+				writer.add(names[i], numbers[i]);
+			}
+			writer.write(file);
+
+			h.run(String.format("phonebook MAPPED n=%d open+get", n), new BenchmarkHarness.Workload() {
+				public int operations() {
+					return 1;
+				}
+
+				public void op(int i) throws Exception {
+					try (MappedPhonebook pb = new MappedPhonebook(file)) {
+						h.consume(pb.getNumberOf(names[n / 2]).length());
+					}
+				}
+			});
+
+			h.run(String.format("phonebook MAPPED n=%d get", n), new BenchmarkHarness.Workload() {
+				private MappedPhonebook pb;
+
+				public int operations() {
+					return n;
+				}
+
+				public void setUp() throws Exception {
+					if (pb == null) {
+						pb = new MappedPhonebook(file);
+					}
+				}
+
+				public void op(int i) {
+					int k = probes[i];
+					String res = ((i & 1) == 0) ? pb.getNumberOf(names[k]) : pb.getOwnerOf(numbers[k]);
+					h.consume(res == null ? 0 : 1);
+				}
+			});
+		} finally {
+			Files.deleteIfExists(log);
+			Files.deleteIfExists(file);
+		}
+	}
+
+	public static void run(final BenchmarkHarness h) throws Exception {
+		for (final int n : SIZES) {
+			final String[] names = new String[2 * n];
+			final String[] numbers = new String[2 * n];
+			for (int i = 0; i < 2 * n; i ++) {
+				names[i] = name(i);
+				numbers[i] = number(i);
+			}
+			final int[] probes = new int[n];
+			Random r = new Random(11);
+			for (int i = 0; i < n; i ++) {
+				probes[i] = r.nextInt(2 * n);	// Half of them were never inserted.
+			}
+
+			for (final CollisionResolver byName : CollisionResolver.values()) {
+				if (byName == CollisionResolver.PACKED_NUMBERS) {
+					continue;	// Only for numbers.
+				}
+				for (final CollisionResolver byNumber : CollisionResolver.values()) {
+					workloads(h, String.format("phonebook %s/%s n=%d", byName, byNumber, n), new Supplier<Phonebook>() {
+						public Phonebook get() {
+							return new Phonebook(byName, byNumber);
+						}
+					}, n, names, numbers, probes);
+				}
+			}
+			workloads(h, String.format("phonebook ARENA n=%d", n), new Supplier<Phonebook>() {
+				public Phonebook get() {
+					return new Phonebook();
+				}
+			}, n, names, numbers, probes);
+			mapped(h, n, names, numbers, probes);
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		BenchmarkHarness h = new BenchmarkHarness();
+		h.header();
+		run(h);
+	}
+}
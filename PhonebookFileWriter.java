@@ -0,0 +1,194 @@
+package phonebook;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * <p>{@link PhonebookFileWriter} bulk-exports &lt; name, number &gt; pairs to the on-disk format that
+ * {@link MappedPhonebook} opens. Pairs are collected with {@link #add(String, String)} and the whole file is
+ * written at once by {@link #write(Path)}.</p>
+ *
+ * <p>The file holds, after a fixed-size header, an array of fixed-size entry records, one open-addressed table of
+ * entry indices for each direction, and an arena of UTF-8 encoded names and numbers. All of it is laid out exactly
+ * as {@link MappedPhonebook} reads it, so opening a file involves no parsing at all. Each of the four sections
+ * must fit in 2 GiB.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see MappedPhonebook
+ */
+public class PhonebookFileWriter {
+
+    private String[] names = new String[16], numbers = new String[16];
+    private int count;
+
+    /* The entries of a file to write, by index from 0 to count() - 1. */
+    interface Entries {
+        int count();
+        int nameLength(int e);      // In UTF-8 bytes, as are the lengths below.
+        int numberLength(int e);
+        int nameHash(int e);        // As MappedPhonebook.hash computes them.
+        int numberHash(int e);
+        /* Writes the UTF-8 bytes of the name of entry e, then those of its number. */
+        void writeStrings(int e, DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Adds the tuple &lt; name, number &gt; to the file to be written. Every name and every number must be
+     * added at most once.
+     * @param name The full name of the number's owner.
+     * @param number The phone number of the person.
+     * @throws IllegalArgumentException if either name or number is {@code null}.
+     */
+    public void add(String name, String number) {
+        if(name == null || number == null)
+            throw new IllegalArgumentException("Provided: name=" + name + " and number= " + number);
+        if (count == names.length) {
+            names = Arrays.copyOf(names, 2 * count);
+            numbers = Arrays.copyOf(numbers, 2 * count);
+        }
+        names[count] = name;
+        numbers[count] = number;
+        count ++;
+    }
+
+    /**
+     * Returns the number of pairs added so far.
+     * @return The number of entries that {@link #write(Path)} would write.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Writes every pair added so far to file, replacing it if it exists.
+     * @param file The file to write.
+     * @throws IOException If the file cannot be written, or if a section of it would exceed 2 GiB.
+     * @throws IllegalArgumentException If a name or a number has been added more than once.
+     */
+    public void write(Path file) throws IOException {
+        write(file, 0L);
+    }
+
+    /* Writes the file, stamped with the generation that its append log must carry to be replayed on it. */
+    void write(Path file, long generation) throws IOException {
+        final byte[][] nameBytes = new byte[count][], numberBytes = new byte[count][];
+        final int[] nameHashes = new int[count], numberHashes = new int[count];
+        for (int e = 0; e < count; e ++) {
+            nameBytes[e] = names[e].getBytes(StandardCharsets.UTF_8);
+            numberBytes[e] = numbers[e].getBytes(StandardCharsets.UTF_8);
+            nameHashes[e] = MappedPhonebook.hash(names[e]);
+            numberHashes[e] = MappedPhonebook.hash(numbers[e]);
+        }
+        final int n = count;
+        write(file, generation, new Entries() {
+            public int count() {
+                return n;
+            }
+
+            public int nameLength(int e) {
+                return nameBytes[e].length;
+            }
+
+            public int numberLength(int e) {
+                return numberBytes[e].length;
+            }
+
+            public int nameHash(int e) {
+                return nameHashes[e];
+            }
+
+            public int numberHash(int e) {
+                return numberHashes[e];
+            }
+
+            public void writeStrings(int e, DataOutputStream out) throws IOException {
+                out.write(nameBytes[e]);
+                out.write(numberBytes[e]);
+            }
+        }, names, numbers);
+    }
+
+    /* Writes entries to file, stamped with generation. If names and numbers are not null, they hold the keys of
+     * the entries, which are then checked for duplicates; otherwise the entries must be known to be distinct. */
+    static void write(Path file, long generation, Entries entries, String[] names, String[] numbers)
+            throws IOException {
+        int count = entries.count();
+        int capacity = Integer.highestOneBit(Math.max(1, 2 * count - 1)) << 1;
+        if (capacity <= 0 || capacity > (1 << 29)) {
+            throw new IOException("Too many entries: " + count + ".");
+        }
+        long arenaLength = 0;
+        for (int e = 0; e < count; e ++) {
+            arenaLength += entries.nameLength(e) + entries.numberLength(e);
+        }
+        if (arenaLength > Integer.MAX_VALUE || (long) count * MappedPhonebook.ENTRY_BYTES > Integer.MAX_VALUE) {
+            throw new IOException("Phonebook too large for the file format: " + count + " entries, "
+                    + arenaLength + " bytes of strings.");
+        }
+        int[] byName = table(capacity, entries, true, names, "name");
+        int[] byNumber = table(capacity, entries, false, numbers, "number");
+
+        long entriesOffset = MappedPhonebook.HEADER_BYTES;
+        long byNameOffset = entriesOffset + (long) count * MappedPhonebook.ENTRY_BYTES;
+        long byNumberOffset = byNameOffset + 4L * capacity;
+        long arenaOffset = byNumberOffset + 4L * capacity;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file),
+                1 << 16))) {
+            out.writeInt(MappedPhonebook.MAGIC);
+            out.writeInt(MappedPhonebook.VERSION);
+            out.writeLong(generation);
+            out.writeInt(count);
+            out.writeInt(capacity);
+            out.writeLong(entriesOffset);
+            out.writeLong(byNameOffset);
+            out.writeLong(byNumberOffset);
+            out.writeLong(arenaOffset);
+            out.writeLong(arenaLength);
+            int offset = 0;
+            for (int e = 0; e < count; e ++) {
+                out.writeInt(offset);
+                out.writeInt(entries.nameLength(e));
+                offset += entries.nameLength(e);
+                out.writeInt(offset);
+                out.writeInt(entries.numberLength(e));
+                offset += entries.numberLength(e);
+                out.writeInt(entries.nameHash(e));
+                out.writeInt(entries.numberHash(e));
+            }
+            for (int slot : byName) {
+                out.writeInt(slot);
+            }
+            for (int slot : byNumber) {
+                out.writeInt(slot);
+            }
+            for (int e = 0; e < count; e ++) {
+                entries.writeStrings(e, out);
+            }
+        }
+    }
+
+    /* A linear probing table of entry index + 1 (0 for an empty slot), keyed by the names (or numbers) of entries,
+     * which are checked for duplicates if keys is not null. */
+    private static int[] table(int capacity, Entries entries, boolean byName, String[] keys, String what) {
+        int[] table = new int[capacity];
+        int mask = capacity - 1;
+        for (int e = 0; e < entries.count(); e ++) {
+            int h = byName ? entries.nameHash(e) : entries.numberHash(e);
+            int i = h & mask;
+            for (int other; (other = table[i]) != 0; i = (i + 1) & mask) {
+                if (keys != null && (byName ? entries.nameHash(other - 1) : entries.numberHash(other - 1)) == h
+                        && keys[other - 1].equals(keys[e])) {
+                    throw new IllegalArgumentException("Duplicate " + what + ": " + keys[e] + ".");
+                }
+            }
+            table[i] = e + 1;
+        }
+        return table;
+    }
+}
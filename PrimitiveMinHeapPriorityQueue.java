@@ -0,0 +1,233 @@
+package pqueue.priorityqueues;
+
+import pqueue.exceptions.*;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>{@link PrimitiveMinHeapPriorityQueue} is a {@link PriorityQueue} implemented as a binary min-heap over
+ * <b>primitive</b> keys. Instead of wrapping every element in a node object like {@link MinHeapPriorityQueue}
+ * does, it keeps two parallel arrays: a {@code long[]} of packed keys and an {@code Object[]} of payloads.
+ * Each key packs the priority in its upper 32 bits and an insertion sequence number in its lower 32 bits, so a
+ * single {@code long} comparison orders elements by priority first and by arrival second, which gives us the
+ * FIFO tie-breaking guarantee of {@link PriorityQueue} without any virtual {@code compareTo} call.</p>
+ *
+ * <p>When the 32-bit sequence space runs out, the sequence numbers of the elements still in the heap are
+ * re-assigned by rank. This keeps their relative order (and therefore the heap property) intact.</p>
+ *
+ * @param <T> The Type held by the container.
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see MinHeapPriorityQueue
+ * @see PriorityQueue
+ */
+public class PrimitiveMinHeapPriorityQueue<T> implements PriorityQueue<T> {
+
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final long SEQ_MASK = 0xFFFFFFFFL;
+
+	private long[] keys;
+	private Object[] data;
+	private int count, modCount;
+	private long nextSeq;
+
+	/**
+	 * Simple default constructor.
+	 */
+	public PrimitiveMinHeapPriorityQueue() {
+		keys = new long[DEFAULT_CAPACITY];
+		data = new Object[DEFAULT_CAPACITY];
+		count = 0;
+		modCount = 0;
+		nextSeq = 0;
+	}
+
+	/**
+	 * Non-default constructor which pre-sizes the internal arrays.
+	 * @param capacity The number of elements the queue can hold before its arrays need to grow.
+	 * @throws InvalidCapacityException if the capacity provided is less than 1.
+	 */
+	public PrimitiveMinHeapPriorityQueue(int capacity) throws InvalidCapacityException {
+		if (capacity < 1) {
+			throw new InvalidCapacityException("Capacity must be >= 1");
+		}
+		keys = new long[capacity];
+		data = new Object[capacity];
+		count = 0;
+		modCount = 0;
+		nextSeq = 0;
+	}
+
+	private static long pack(int priority, long seq) {
+		return ((long) priority << 32) | (seq & SEQ_MASK);
+	}
+
+	private void grow() {
+		int sz = (int) Math.min(2L * keys.length, Integer.MAX_VALUE - 8);
+		if (sz <= count) {
+			throw new IllegalStateException("Queue cannot hold more than " + count + " elements.");
+		}
+		keys = Arrays.copyOf(keys, sz);
+		data = Arrays.copyOf(data, sz);
+	}
+
+	/* Sequence numbers exhausted: renumber the live elements by rank, which preserves their order. */
+	private void renumber() {
+		long[] sorted = Arrays.copyOf(keys, count);
+		Arrays.sort(sorted);
+		for (int i = 0; i < count; i ++) {
+			long rank = Arrays.binarySearch(sorted, keys[i]);
+			keys[i] = (keys[i] & ~SEQ_MASK) | rank;
+		}
+		nextSeq = count;
+	}
+
+	private void siftUp(int i) {
+		long key = keys[i];
+		Object val = data[i];
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (keys[parent] <= key) {
+				break;
+			}
+			keys[i] = keys[parent];
+			data[i] = data[parent];
+			i = parent;
+		}
+		keys[i] = key;
+		data[i] = val;
+	}
+
+	private void siftDown(int i) {
+		long key = keys[i];
+		Object val = data[i];
+		int half = count >>> 1;
+		while (i < half) {
+			int child = 2 * i + 1;
+			int right = child + 1;
+			if (right < count && keys[right] < keys[child]) {
+				child = right;
+			}
+			if (key <= keys[child]) {
+				break;
+			}
+			keys[i] = keys[child];
+			data[i] = data[child];
+			i = child;
+		}
+		keys[i] = key;
+		data[i] = val;
+	}
+
+	@Override
+	public void enqueue(T element, int priority) throws InvalidPriorityException {
+		if (priority <= 0) {
+			throw new InvalidPriorityException("Priority must be >= 1");
+		}
+		if (nextSeq > SEQ_MASK) {
+			renumber();
+		}
+		if (count == keys.length) {
+			grow();
+		}
+		keys[count] = pack(priority, nextSeq);
+		data[count] = element;
+		nextSeq ++;
+		count ++;
+		modCount ++;
+		siftUp(count - 1);
+	}
+
+	@Override
+	public T dequeue() throws EmptyPriorityQueueException {
+		if (count == 0) {
+			throw EmptyPriorityQueueExceptions.empty();
+		}
+		return poll();
+	}
+
+	/**
+	 * Returns <b>and deletes</b> the top element of the PriorityQueue, without throwing when it is empty.
+	 * @return The element at the top of the PriorityQueue, or {@code null} if it is empty.
+	 */
+	@SuppressWarnings("unchecked")
+	public T poll() {
+		if (count == 0) {
+			return null;
+		}
+		T res = (T) data[0];
+		count --;
+		modCount ++;
+		if (count > 0) {
+			keys[0] = keys[count];
+			data[0] = data[count];
+			data[count] = null;
+			siftDown(0);
+		} else {
+			data[0] = null;
+		}
+		return res;
+	}
+
+	@Override
+	public T getFirst() throws EmptyPriorityQueueException {
+		if (count == 0) {
+			throw EmptyPriorityQueueExceptions.empty();
+		}
+		return peek();
+	}
+
+	/**
+	 * Returns, <b>but does not delete</b> the top element of the PriorityQueue, without throwing when it is empty.
+	 * @return The element at the top of the PriorityQueue, or {@code null} if it is empty.
+	 */
+	@SuppressWarnings("unchecked")
+	public T peek() {
+		return (T) data[0];		// null when empty: dequeue() clears vacated slots.
+	}
+
+	@Override
+	public int size() {
+		return count;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	/* Walks the heap in array order, not in priority order. */
+	class PrimitiveHeapIter implements Iterator<T> {
+		private int curr;
+		private final int expected;
+
+		PrimitiveHeapIter() {
+			curr = 0;
+			expected = modCount;
+		}
+
+		public boolean hasNext() {
+			return curr < count;
+		}
+
+		@SuppressWarnings("unchecked")
+		public T next() {
+			if (expected != modCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (curr >= count) {
+				throw new NoSuchElementException();
+			}
+			return (T) data[curr ++];
+		}
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return new PrimitiveHeapIter();
+	}
+}
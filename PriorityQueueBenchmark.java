@@ -0,0 +1,109 @@
+package benchmarks;
+
+import pqueue.priorityqueues.ConcurrentLinearPriorityQueue;
+import pqueue.priorityqueues.LinearPriorityQueue;
+import pqueue.priorityqueues.MinHeapPriorityQueue;
+import pqueue.priorityqueues.PrimitiveMinHeapPriorityQueue;
+import pqueue.priorityqueues.PriorityQueue;
+import pqueue.priorityqueues.TimingWheelPriorityQueue;
+
+import java.util.Random;
+
+/**
+ * <p>{@link PriorityQueueBenchmark} runs enqueue/dequeue mixes against every {@link PriorityQueue} implementation
+ * of the {@code pqueue} package. Every workload starts from a queue pre-filled with {@value #PREFILL} elements
+ * and then performs a random mix of enqueues and dequeues, for several enqueue ratios and priority ranges.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see BenchmarkHarness
+ */
+public class PriorityQueueBenchmark {
+
+	private static final int PREFILL = 100_000;
+	private static final int OPS = 200_000;
+
+	private static final String[] QUEUES = {"Linear", "MinHeap(d=2)", "MinHeap(d=4)", "MinHeap(d=8)", "PrimitiveMinHeap",
+			"ConcurrentLinear", "TimingWheel"};
+	private static final int[] ENQUEUE_PERCENT = {50, 75, 25};
+	private static final int[] PRIORITY_RANGES = {16, 10_000, 1_000_000};
+
+	static PriorityQueue<Integer> create(String name) {
+		switch (name) {
+			case "Linear":
+				return new LinearPriorityQueue<Integer>();
+			case "MinHeap(d=2)":
+				return new MinHeapPriorityQueue<Integer>(2);
+			case "MinHeap(d=4)":
+				return new MinHeapPriorityQueue<Integer>(4);
+			case "MinHeap(d=8)":
+				return new MinHeapPriorityQueue<Integer>(8);
+			case "PrimitiveMinHeap":
+				return new PrimitiveMinHeapPriorityQueue<Integer>();
+			case "ConcurrentLinear":
+				return new ConcurrentLinearPriorityQueue<Integer>();
+			case "TimingWheel":
+				return new TimingWheelPriorityQueue<Integer>();
+			default:
+				throw new IllegalArgumentException("Unknown queue: " + name);
+		}
+	}
+
+	private static final class Mix extends BenchmarkHarness.Workload {
+		private final String queue;
+		private final int enqueuePercent, range;
+		private final boolean[] isEnqueue = new boolean[OPS];
+		private final int[] priorities = new int[OPS];
+		private final BenchmarkHarness h;
+		private PriorityQueue<Integer> q;
+
+		private Mix(BenchmarkHarness h, String queue, int enqueuePercent, int range) {
+			this.h = h;
+			this.queue = queue;
+			this.enqueuePercent = enqueuePercent;
+			this.range = range;
+			Random r = new Random(17);
+			for (int i = 0; i < OPS; i ++) {
+				isEnqueue[i] = r.nextInt(100) < enqueuePercent;
+				priorities[i] = 1 + r.nextInt(range);
+			}
+		}
+
+		public int operations() {
+			return OPS;
+		}
+
+		public void setUp() throws Exception {
+			q = create(queue);
+			Random r = new Random(3);
+			for (int i = 0; i < PREFILL; i ++) {
+				q.enqueue(i, 1 + r.nextInt(range));
+			}
+		}
+
+		public void op(int i) throws Exception {
+			if (isEnqueue[i] || q.isEmpty()) {
+				q.enqueue(i, priorities[i]);
+			} else {
+				h.consume(q.dequeue());
+			}
+		}
+	}
+
+	public static void run(BenchmarkHarness h) throws Exception {
+		for (int range : PRIORITY_RANGES) {
+			for (int percent : ENQUEUE_PERCENT) {
+				for (String queue : QUEUES) {
+					h.run(String.format("pqueue %s enq=%d%% prio<=%d", queue, percent, range),
+							new Mix(h, queue, percent, range));
+				}
+			}
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		BenchmarkHarness h = new BenchmarkHarness();
+		h.header();
+		run(h);
+	}
+}
@@ -0,0 +1,20 @@
+package pqueue.priorityqueues;
+
+/**
+ * <p>A {@link RuntimeException} thrown by capacity-bounded {@link PriorityQueue}s whose
+ * {@link OverflowPolicy} refuses an element, e.g. {@link OverflowPolicy#REJECT}. Like
+ * {@link java.util.Queue#add(Object)}, enqueuing into a full queue is a state error rather than a checked
+ * condition, so that existing callers of {@code enqueue} keep compiling.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see OverflowPolicy
+ */
+public class PriorityQueueFullException extends IllegalStateException {
+
+	private static final long serialVersionUID = 1L;
+
+	public PriorityQueueFullException(String msg) {
+		super(msg);
+	}
+}
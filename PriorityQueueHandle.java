@@ -0,0 +1,37 @@
+package pqueue.priorityqueues;
+
+/**
+ * <p>A {@link PriorityQueueHandle} refers to one particular element enqueued in a {@link PriorityQueue}. It is
+ * returned by the handle-returning enqueue of the queues that support re-prioritization, and can later be passed
+ * back to the same queue to change the priority of the element or to remove it, without searching for it.</p>
+ *
+ * <p>A handle is only meaningful to the queue that created it. Once its element has been dequeued or removed,
+ * the handle is <em>stale</em>: {@link #isEnqueued()} returns {@code false}, and the queue ignores it.</p>
+ *
+ * @param <T> The type of the element the handle refers to.
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see MinHeapPriorityQueue#enqueueWithHandle(Object, int)
+ * @see LinearPriorityQueue#enqueueWithHandle(Object, int)
+ */
+public interface PriorityQueueHandle<T> {
+
+	/**
+	 * Returns the element this handle refers to.
+	 * @return The element this handle refers to.
+	 */
+	public T getElement();
+
+	/**
+	 * Returns the current priority of the element this handle refers to.
+	 * @return The priority the element was last enqueued or re-prioritized with.
+	 */
+	public int getPriority();
+
+	/**
+	 * Queries whether the element this handle refers to is still in its queue.
+	 * @return {@code true} if the element has been neither dequeued nor removed, {@code false} otherwise.
+	 */
+	public boolean isEnqueued();
+}
@@ -0,0 +1,194 @@
+package pqueue.priorityqueues;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>{@link RingBufferFIFO} is a growable circular FIFO queue over a raw {@code Object[]}, used as the per-priority
+ * bucket of {@link LinearPriorityQueue}. Its capacity is always a power of two, so wrapping around is a single mask.
+ * Once the buffer has grown to the bucket's working size, {@link #add(Object)} and {@link #poll()} allocate
+ * nothing, and a drained buffer is simply reused by the next burst of insertions.</p>
+ *
+ * <p>Every element gets a <em>ticket</em> when it is added: its absolute position in the stream of elements that
+ * ever went through the FIFO. A ticket stays valid across growth and wrap-around, and lets
+ * {@link #removeAt(long)} unlink an element from the middle of the FIFO in O(1) by leaving a tombstone in its slot.
+ * Tombstones are skipped (and reclaimed) as soon as they reach the head.</p>
+ *
+ * @param <T> The type held by the container.
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see LinearPriorityQueue
+ */
+final class RingBufferFIFO<T> {
+
+	private static final int DEFAULT_CAPACITY = 8;
+	private static final Object TOMBSTONE = new Object();
+
+	private Object[] buf;
+	private int head, count, live;
+	private long polled;	// Ticket of the element at head.
+
+	RingBufferFIFO() {
+		buf = new Object[DEFAULT_CAPACITY];
+		head = 0;
+		count = 0;
+		live = 0;
+		polled = 0;
+	}
+
+	private void grow() {
+		int old = buf.length;
+		if (old >= (1 << 30)) {
+			throw new IllegalStateException("Bucket cannot hold more than " + old + " elements.");
+		}
+		Object[] bigger = new Object[old << 1];
+		/* Unroll the two halves of the ring so that the head sits at index 0 again. */
+		int firstPart = Math.min(count, old - head);
+		System.arraycopy(buf, head, bigger, 0, firstPart);
+		System.arraycopy(buf, 0, bigger, firstPart, count - firstPart);
+		buf = bigger;
+		head = 0;
+	}
+
+	/* Drops the head slot, whatever it holds. */
+	private void advance() {
+		buf[head] = null;	// Let the element be collected.
+		head = (head + 1) & (buf.length - 1);
+		count --;
+		polled ++;
+		if (count == 0) {
+			head = 0;
+		}
+	}
+
+	/* Keeps the invariant that the head slot, if any, holds a live element. */
+	private void purgeHead() {
+		while (count > 0 && buf[head] == TOMBSTONE) {
+			advance();
+		}
+	}
+
+	/**
+	 * Appends element at the tail of the FIFO.
+	 * @param element The element to append. May be {@code null}.
+	 * @return The ticket of the element, usable with {@link #removeAt(long)} and {@link #contains(long)}.
+	 */
+	long add(T element) {
+		if (count == buf.length) {
+			grow();
+		}
+		buf[(head + count) & (buf.length - 1)] = element;
+		count ++;
+		live ++;
+		return polled + count - 1;
+	}
+
+	/**
+	 * Returns, but does not remove, the head of the FIFO.
+	 * @return The oldest element in the FIFO.
+	 * @throws NoSuchElementException if the FIFO is empty.
+	 */
+	@SuppressWarnings("unchecked")
+	T peek() {
+		if (live == 0) {
+			throw new NoSuchElementException("Bucket is empty");
+		}
+		return (T) buf[head];
+	}
+
+	/**
+	 * Removes and returns the head of the FIFO.
+	 * @return The oldest element in the FIFO.
+	 * @throws NoSuchElementException if the FIFO is empty.
+	 */
+	@SuppressWarnings("unchecked")
+	T poll() {
+		if (live == 0) {
+			throw new NoSuchElementException("Bucket is empty");
+		}
+		T res = (T) buf[head];
+		advance();
+		live --;
+		purgeHead();
+		return res;
+	}
+
+	/**
+	 * Queries whether the element with the provided ticket is still in the FIFO.
+	 * @param ticket A ticket returned by {@link #add(Object)}.
+	 * @return {@code true} if the element has been neither polled nor removed, {@code false} otherwise.
+	 */
+	boolean contains(long ticket) {
+		if (ticket < polled || ticket >= polled + count) {
+			return false;
+		}
+		return buf[(int) ((head + (ticket - polled)) & (buf.length - 1))] != TOMBSTONE;
+	}
+
+	/**
+	 * Unlinks the element with the provided ticket in O(1).
+	 * @param ticket A ticket returned by {@link #add(Object)}.
+	 * @return {@code true} if the element was removed, {@code false} if it was no longer in the FIFO.
+	 */
+	boolean removeAt(long ticket) {
+		if (!contains(ticket)) {
+			return false;
+		}
+		buf[(int) ((head + (ticket - polled)) & (buf.length - 1))] = TOMBSTONE;
+		live --;
+		purgeHead();
+		return true;
+	}
+
+	/**
+	 * Returns the number of occupied slots, including tombstones. Together with {@link #isLive(int)} and
+	 * {@link #slot(int)}, this lets callers walk the FIFO in order.
+	 * @return The number of slots between the head and the tail.
+	 */
+	int slots() {
+		return count;
+	}
+
+	/**
+	 * Queries whether a slot holds an element rather than a tombstone.
+	 * @param index The slot to check, in {@code [0, slots())}, where 0 is the head.
+	 * @return {@code true} if the slot holds an element.
+	 */
+	boolean isLive(int index) {
+		return buf[(head + index) & (buf.length - 1)] != TOMBSTONE;
+	}
+
+	/**
+	 * Random access in FIFO order, where index 0 is the head.
+	 * @param index The slot to read, in {@code [0, slots())}. The slot must be live.
+	 * @return The element in the provided slot.
+	 * @throws IndexOutOfBoundsException if index is out of range.
+	 */
+	@SuppressWarnings("unchecked")
+	T slot(int index) {
+		if (index < 0 || index >= count) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", slots: " + count);
+		}
+		return (T) buf[(head + index) & (buf.length - 1)];
+	}
+
+	/**
+	 * Removes every element, keeping the storage for reuse. Outstanding tickets become invalid.
+	 */
+	void clear() {
+		Arrays.fill(buf, null);
+		polled += count;
+		head = 0;
+		count = 0;
+		live = 0;
+	}
+
+	int size() {
+		return live;
+	}
+
+	boolean isEmpty() {
+		return live == 0;
+	}
+}
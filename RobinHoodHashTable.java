@@ -0,0 +1,262 @@
+package phonebook.hashes;
+
+import java.util.Arrays;
+
+/**
+ * <p>{@link RobinHoodHashTable} is an open-addressing {@link HashTable} with linear probing and
+ * <em>Robin Hood</em> insertion: every slot records how far its key is from its home slot (its probe distance),
+ * and an insertion that reaches a key closer to home than itself takes that slot and carries on inserting the
+ * displaced key instead. This keeps probe distances short and evenly spread even at high load factors.</p>
+ *
+ * <p>Since the keys of a run are ordered by home slot, a search can stop as soon as it reaches a slot whose key
+ * is closer to home than the searched key would be. Deletions shift the rest of the run back by one slot
+ * (<em>backward-shift deletion</em>), so the table never contains tombstones, however heavy the churn.</p>
+ *
+ * <p>Probe counts reported in {@link Probe}s are the number of slots inspected. As a {@link BatchHashTable}, it loads
+ * the first slot of each of a group of probe sequences before following any of them.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see CollisionResolver#ROBIN_HOOD
+ */
+public class RobinHoodHashTable implements BatchHashTable, InspectableHashTable {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String[] keys, values;
+    private int[] hashes;
+    private int[] dist;     // Probe distance + 1 of the key in each slot; 0 for an empty slot.
+    private int count, mask;
+    private final HashStrategy strategy;
+
+    /**
+     * Creates an empty table, which hashes its keys with {@link HashStrategy#SPREAD}.
+     */
+    public RobinHoodHashTable() {
+        this(HashStrategy.SPREAD);
+    }
+
+    /**
+     * Creates an empty table.
+     * @param strategy The hash function of the keys.
+     * @throws IllegalArgumentException If strategy is {@code null}.
+     */
+    public RobinHoodHashTable(HashStrategy strategy) {
+        if (strategy == null) {
+            throw new IllegalArgumentException("Provided: strategy=null");
+        }
+        this.strategy = strategy;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        keys = new String[capacity];
+        values = new String[capacity];
+        hashes = new int[capacity];
+        dist = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /* Grows the table, at most once, so that it takes extra more keys without getting over 7/8 full. */
+    private void reserve(int extra) {
+        int capacity = keys.length;
+        while ((count + (long) extra) * 8L > capacity * 7L) {
+            capacity *= 2;
+        }
+        if (capacity == keys.length) {
+            return;
+        }
+        String[] oldKeys = keys, oldValues = values;
+        int[] oldHashes = hashes, oldDist = dist;
+        allocate(capacity);
+        count = 0;
+        for (int i = 0; i < oldKeys.length; i ++) {
+            if (oldDist[i] != 0) {
+                insert(oldKeys[i], oldValues[i], oldHashes[i]);
+            }
+        }
+    }
+
+    /* The slot of key, or -1. probes[0] receives the number of slots inspected. */
+    private int find(String key, int h, int[] probes) {
+        int i = h & mask;
+        for (int d = 1; ; d ++) {
+            probes[0] = d;
+            if (dist[i] < d) {
+                return -1;  // Empty, or a key closer to home than ours would be: ours is not in the table.
+            }
+            if (hashes[i] == h && keys[i].equals(key)) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /* Robin Hood insertion of a key known to be absent. Returns the number of slots inspected. */
+    private int insert(String key, String value, int h) {
+        int i = h & mask;
+        int d = 1, probes = 1;
+        while (dist[i] != 0) {
+            if (dist[i] < d) {
+                String k = keys[i], v = values[i];
+                int kh = hashes[i], kd = dist[i];
+                keys[i] = key;
+                values[i] = value;
+                hashes[i] = h;
+                dist[i] = d;
+                key = k;
+                value = v;
+                h = kh;
+                d = kd;
+            }
+            i = (i + 1) & mask;
+            d ++;
+            probes ++;
+        }
+        keys[i] = key;
+        values[i] = value;
+        hashes[i] = h;
+        dist[i] = d;
+        count ++;
+        return probes;
+    }
+
+    @Override
+    public Probe put(String key, String value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Provided: key=" + key + " and value=" + value);
+        }
+        int h = strategy.hash(key);
+        int[] probes = new int[1];
+        int i = find(key, h, probes);
+        if (i >= 0) {
+            values[i] = value;
+            return new Probe(value, probes[0]);
+        }
+        reserve(1);
+        return new Probe(value, insert(key, value, h));
+    }
+
+    @Override
+    public Probe get(String key) {
+        if (key == null) {
+            return new Probe(null, 0);
+        }
+        int[] probes = new int[1];
+        int i = find(key, strategy.hash(key), probes);
+        return new Probe((i < 0) ? null : values[i], probes[0]);
+    }
+
+    @Override
+    public Probe remove(String key) {
+        if (key == null) {
+            return new Probe(null, 0);
+        }
+        int[] probes = new int[1];
+        int i = find(key, strategy.hash(key), probes);
+        if (i < 0) {
+            return new Probe(null, probes[0]);
+        }
+        String value = values[i];
+        /* Backward shift: pull the rest of the run one slot closer to home, up to an empty or home slot. */
+        int next = (i + 1) & mask;
+        while (dist[next] > 1) {
+            keys[i] = keys[next];
+            values[i] = values[next];
+            hashes[i] = hashes[next];
+            dist[i] = dist[next] - 1;
+            i = next;
+            next = (next + 1) & mask;
+        }
+        keys[i] = null;
+        values[i] = null;
+        dist[i] = 0;
+        count --;
+        return new Probe(value, probes[0]);
+    }
+
+    /* The value of key, the first slot of whose probe sequence, at i, holds distance d and hash kh. */
+    private String lookup(String key, int h, int i, int d, int kh) {
+        if (d < 1) {
+            return null;
+        }
+        if (kh == h && keys[i].equals(key)) {
+            return values[i];
+        }
+        i = (i + 1) & mask;
+        for (d = 2; dist[i] >= d; d ++) {
+            if (hashes[i] == h && keys[i].equals(key)) {
+                return values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    @Override
+    public void getAll(String[] batch, String[] out, int n) {
+        int[] h = new int[GROUP], slot = new int[GROUP], d = new int[GROUP], kh = new int[GROUP];
+        for (int from = 0; from < n; from += GROUP) {
+            int m = Math.min(GROUP, n - from);
+            for (int g = 0; g < m; g ++) {
+                String key = batch[from + g];
+                h[g] = (key == null) ? 0 : strategy.hash(key);
+                slot[g] = h[g] & mask;
+            }
+            for (int g = 0; g < m; g ++) {  // Independent loads: their misses overlap.
+                d[g] = dist[slot[g]];
+                kh[g] = hashes[slot[g]];
+            }
+            for (int g = 0; g < m; g ++) {
+                String key = batch[from + g];
+                out[from + g] = (key == null) ? null : lookup(key, h[g], slot[g], d[g], kh[g]);
+            }
+        }
+    }
+
+    @Override
+    public void putAll(String[] batch, String[] vals, int n) {
+        for (int i = 0; i < n; i ++) {
+            if (batch[i] == null || vals[i] == null) {
+                throw new IllegalArgumentException("Provided: key=" + batch[i] + " and value=" + vals[i]);
+            }
+        }
+        reserve(n);
+        for (int i = 0; i < n; i ++) {
+            put(batch[i], vals[i]);
+        }
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return key != null && find(key, strategy.hash(key), new int[1]) >= 0;
+    }
+
+    @Override
+    public boolean containsValue(String value) {
+        for (int i = 0; i < values.length; i ++) {
+            if (dist[i] != 0 && values[i].equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Returns the longest probe distance currently in the table.
+     * @return The maximum, over all keys, of the number of slots between a key and its home slot, plus one.
+     */
+    public int maxProbeDistance() {
+        return Arrays.stream(dist).max().orElse(0);
+    }
+}
@@ -0,0 +1,86 @@
+package phonebook.hashes;
+
+import java.security.SecureRandom;
+
+/**
+ * <p>{@link SeededHashStrategy} is a {@link HashStrategy} that computes a 64-bit hash of the characters of a key,
+ * in the style of xxHash64: the UTF-16 characters are read four at a time as 64-bit lanes, each lane is multiplied,
+ * rotated and multiplied again into an accumulator that starts from the seed, and the result goes through the
+ * xxHash64 avalanche, in which every input bit affects every output bit. Reading the characters directly avoids
+ * encoding the key to bytes first, and keeps the cost at about one multiplication per four characters.</p>
+ *
+ * <p>Unless a seed is provided, every instance draws its own from a {@link SecureRandom}, so that keys crafted to
+ * collide in one table, or under {@link String#hashCode()}, are spread like any others.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see HashStrategy#seeded()
+ */
+public final class SeededHashStrategy implements HashStrategy {
+
+    private static final long P1 = 0x9E3779B185EBCA87L;
+    private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long P3 = 0x165667B19E3779F9L;
+    private static final long P4 = 0x85EBCA77C2B2AE63L;
+    private static final long P5 = 0x27D4EB2F165667C5L;
+
+    private static final SecureRandom SEEDS = new SecureRandom();
+
+    private final long seed;
+
+    /**
+     * Creates a strategy with a random seed.
+     */
+    public SeededHashStrategy() {
+        this(randomSeed());
+    }
+
+    /* A seed drawn from the same source as the seeds of strategies created without one. */
+    static long randomSeed() {
+        return SEEDS.nextLong();
+    }
+
+    /**
+     * Creates a strategy with the provided seed.
+     * @param seed The seed of the hash function.
+     */
+    public SeededHashStrategy(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Returns the 64-bit hash of a sequence of characters.
+     * @param key A non-{@code null} sequence of characters.
+     * @return The hash of key under the seed of this strategy.
+     */
+    public long hash64(CharSequence key) {
+        int n = key.length(), i = 0;
+        long h = seed + P5 + 2L * n;    // Bytes of input, as in xxHash64.
+        for (; i + 4 <= n; i += 4) {
+            long lane = key.charAt(i) | (long) key.charAt(i + 1) << 16 | (long) key.charAt(i + 2) << 32
+                    | (long) key.charAt(i + 3) << 48;
+            h ^= Long.rotateLeft(lane * P2, 31) * P1;
+            h = Long.rotateLeft(h, 27) * P1 + P4;
+        }
+        for (; i < n; i ++) {
+            h ^= key.charAt(i) * P5;
+            h = Long.rotateLeft(h, 11) * P1;
+        }
+        h ^= h >>> 33;
+        h *= P2;
+        h ^= h >>> 29;
+        h *= P3;
+        return h ^ (h >>> 32);
+    }
+
+    @Override
+    public int hash(String key) {
+        long h = hash64(key);
+        return (int) h ^ (int) (h >>> 32);
+    }
+
+    @Override
+    public String toString() {
+        return "SEEDED";
+    }
+}
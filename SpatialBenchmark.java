@@ -0,0 +1,122 @@
+package benchmarks;
+
+import spatial.kdpoint.KDPoint;
+import spatial.knnutils.BoundedPriorityQueue;
+import spatial.nodes.KDTreeNode;
+import spatial.nodes.PRQuadBlackNode;
+import spatial.nodes.PRQuadNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * <p>{@link SpatialBenchmark} runs range and k-nearest-neighbor queries against trees of {@link KDTreeNode}s (in
+ * several dimensions) and of PR-QuadTree nodes (in two dimensions, the only ones they support), at several
+ * sizes. Points are drawn uniformly from a square of side 2<sup>{@value #K}</sup> centered at the origin.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see BenchmarkHarness
+ */
+public class SpatialBenchmark {
+
+	private static final int K = 16;
+	private static final int BUCKETING = 4;
+	private static final int QUERIES = 2_000;
+	private static final int[] SIZES = {10_000, 100_000};
+	private static final int[] DIMENSIONS = {2, 3, 5};
+	private static final int NEIGHBORS = 8;
+	private static final double RANGE = 1 << (K - 6);
+
+	private static KDPoint[] points(Random r, int n, int dims) {
+		KDPoint[] res = new KDPoint[n];
+		for (int i = 0; i < n; i ++) {
+			int[] c = new int[dims];
+			for (int d = 0; d < dims; d ++) {
+				c[d] = r.nextInt(1 << K) - (1 << (K - 1));
+			}
+			res[i] = new KDPoint(c);
+		}
+		return res;
+	}
+
+	public static void run(final BenchmarkHarness h) throws Exception {
+		for (final int n : SIZES) {
+			for (final int dims : DIMENSIONS) {
+				Random r = new Random(n + dims);
+				KDPoint[] data = points(r, n, dims);
+				final KDPoint[] anchors = points(r, QUERIES, dims);
+				final KDTreeNode kd = new KDTreeNode(data[0]);
+				for (int i = 1; i < n; i ++) {
+					kd.insert(data[i], 0, dims);
+				}
+				String label = String.format("kd dims=%d n=%d", dims, n);
+
+				h.run(label + " range", new BenchmarkHarness.Workload() {
+					public int operations() {
+						return QUERIES;
+					}
+
+					public void op(int i) {
+						List<KDPoint> res = new ArrayList<KDPoint>();
+						kd.range(anchors[i], res, RANGE, 0, dims);
+						h.consume(res.size());
+					}
+				});
+
+				h.run(label + " kNN k=" + NEIGHBORS, new BenchmarkHarness.Workload() {
+					public int operations() {
+						return QUERIES;
+					}
+
+					public void op(int i) {
+						BoundedPriorityQueue<KDPoint> q = new BoundedPriorityQueue<KDPoint>(NEIGHBORS);
+						kd.kNearestNeighbors(NEIGHBORS, anchors[i], q, 0, dims);
+						h.consume(q.size());
+					}
+				});
+
+				if (dims != 2) {
+					continue;
+				}
+				PRQuadNode built = new PRQuadBlackNode(new KDPoint(0, 0), K, BUCKETING);
+				for (KDPoint p : data) {
+					built = built.insert(p, K);
+				}
+				final PRQuadNode pr = built;
+				label = String.format("prquad bucket=%d n=%d", BUCKETING, n);
+
+				h.run(label + " range", new BenchmarkHarness.Workload() {
+					public int operations() {
+						return QUERIES;
+					}
+
+					public void op(int i) {
+						List<KDPoint> res = new ArrayList<KDPoint>();
+						pr.range(anchors[i], res, RANGE);
+						h.consume(res.size());
+					}
+				});
+
+				h.run(label + " kNN k=" + NEIGHBORS, new BenchmarkHarness.Workload() {
+					public int operations() {
+						return QUERIES;
+					}
+
+					public void op(int i) {
+						BoundedPriorityQueue<KDPoint> q = new BoundedPriorityQueue<KDPoint>(NEIGHBORS);
+						pr.kNearestNeighbors(NEIGHBORS, anchors[i], q);
+						h.consume(q.size());
+					}
+				});
+			}
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		BenchmarkHarness h = new BenchmarkHarness();
+		h.header();
+		run(h);
+	}
+}
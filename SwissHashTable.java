@@ -0,0 +1,315 @@
+package phonebook.hashes;
+
+import java.util.Arrays;
+
+/**
+ * <p>{@link SwissHashTable} is an open-addressing {@link HashTable} in the style of Abseil's SwissTable. Next to
+ * its keys and values, it keeps one <em>control byte</em> per slot: the low 7 bits of the key's hash for an
+ * occupied slot, or a marker for an empty or deleted one. Slots come in groups of {@value #GROUP} and each probe
+ * step looks at a whole group, comparing all of its control bytes with the searched tag at once, eight at a time
+ * in a {@code long} (SWAR: SIMD within a register). A key is only ever read, and
+ * {@link String#equals(Object)} only ever called, when its tag matches, which with 7-bit tags happens for about
+ * one in 128 of the other keys of a group.</p>
+ *
+ * <p>Groups are probed quadratically (by triangular numbers, which visit every group of a power-of-two table).
+ * A search stops at the first group that has an empty slot. A deletion marks its slot empty when its group
+ * already has an empty slot, since no search can then have continued past that group, and leaves a
+ * <em>deleted</em> marker otherwise. Deleted markers are cleared when the table is rebuilt.</p>
+ *
+ * <p>Probe counts reported in {@link Probe}s are the number of <b>groups</b> inspected. As a {@link BatchHashTable},
+ * it loads the control words of the first group of each of a group of lookups before following any of them.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see CollisionResolver#SWISS_TABLE
+ */
+public class SwissHashTable implements BatchHashTable, InspectableHashTable {
+
+    private static final int GROUP = 16;
+    private static final int WORDS_PER_GROUP = GROUP / 8;
+    private static final int INITIAL_GROUPS = 2;
+
+    private static final long EMPTY = 0x80;     // 0b1000_0000
+    private static final long DELETED = 0xFE;   // 0b1111_1110; occupied slots hold a tag 0b0xxx_xxxx.
+    private static final long LSBS = 0x0101010101010101L;
+    private static final long MSBS = 0x8080808080808080L;
+
+    private long[] ctrl;    // Eight control bytes per word, slot i in byte (i & 7) of word i >>> 3.
+    private String[] keys, values;
+    private int count, used, groupMask;     // used counts occupied and deleted slots.
+    private final HashStrategy strategy;
+
+    /**
+     * Creates an empty table, which hashes its keys with {@link HashStrategy#SPREAD}.
+     */
+    public SwissHashTable() {
+        this(HashStrategy.SPREAD);
+    }
+
+    /**
+     * Creates an empty table.
+     * @param strategy The hash function of the keys.
+     * @throws IllegalArgumentException If strategy is {@code null}.
+     */
+    public SwissHashTable(HashStrategy strategy) {
+        if (strategy == null) {
+            throw new IllegalArgumentException("Provided: strategy=null");
+        }
+        this.strategy = strategy;
+        allocate(INITIAL_GROUPS);
+    }
+
+    private void allocate(int groups) {
+        int capacity = groups * GROUP;
+        ctrl = new long[capacity / 8];
+        Arrays.fill(ctrl, EMPTY * LSBS);
+        keys = new String[capacity];
+        values = new String[capacity];
+        groupMask = groups - 1;
+        count = 0;
+        used = 0;
+    }
+
+    /* Bit 7 of every byte of w that may equal tag; false positives are only possible above a true match. */
+    private static long matchTag(long w, int tag) {
+        long x = w ^ (LSBS * tag);
+        return (x - LSBS) & ~x & MSBS;
+    }
+
+    /* Bit 7 of every EMPTY byte of w. */
+    private static long matchEmpty(long w) {
+        return w & (~w << 6) & MSBS;
+    }
+
+    private void setCtrl(int slot, long c) {
+        int shift = (slot & 7) << 3;
+        ctrl[slot >>> 3] = (ctrl[slot >>> 3] & ~(0xFFL << shift)) | (c << shift);
+    }
+
+    private boolean groupHasEmpty(int group) {
+        int w = group * WORDS_PER_GROUP;
+        return (matchEmpty(ctrl[w]) | matchEmpty(ctrl[w + 1])) != 0;
+    }
+
+    /* The slot of key, or -1. probes[0] receives the number of groups inspected. */
+    private int find(String key, int h, int[] probes) {
+        int tag = h & 0x7F;
+        int g = (h >>> 7) & groupMask;
+        for (int step = 1; ; step ++) {
+            probes[0] = step;
+            int w = g * WORDS_PER_GROUP;
+            boolean empty = false;
+            for (int k = 0; k < WORDS_PER_GROUP; k ++) {
+                long word = ctrl[w + k];
+                for (long m = matchTag(word, tag); m != 0; m &= m - 1) {
+                    int slot = ((w + k) << 3) + (Long.numberOfTrailingZeros(m) >>> 3);
+                    String candidate = keys[slot];
+                    if (candidate != null && candidate.equals(key)) {
+                        return slot;
+                    }
+                }
+                empty |= matchEmpty(word) != 0;
+            }
+            if (empty || step > groupMask) {
+                return -1;
+            }
+            g = (g + step) & groupMask;
+        }
+    }
+
+    /* Stores a key known to be absent in the first empty or deleted slot of its probe sequence. */
+    private int insert(String key, String value, int h) {
+        int g = (h >>> 7) & groupMask;
+        for (int step = 1; ; step ++) {
+            int w = g * WORDS_PER_GROUP;
+            for (int k = 0; k < WORDS_PER_GROUP; k ++) {
+                long word = ctrl[w + k];
+                long m = word & MSBS;   // Empty or deleted slots.
+                if (m != 0) {
+                    long first = m & -m;
+                    int slot = ((w + k) << 3) + (Long.numberOfTrailingZeros(first) >>> 3);
+                    if ((matchEmpty(word) & first) != 0) {
+                        used ++;    // A deleted slot was already counted.
+                    }
+                    setCtrl(slot, h & 0x7F);
+                    keys[slot] = key;
+                    values[slot] = value;
+                    count ++;
+                    return step;
+                }
+            }
+            g = (g + step) & groupMask;
+        }
+    }
+
+    /* Rebuilds the table if extra more keys would fill 7/8 of it with keys or tombstones, doubling it until they
+     * would fill less than 7/16, so that it does not grow when deletions alone made room. */
+    private void reserve(int extra) {
+        int capacity = keys.length;
+        if ((used + (long) extra) * 8L <= capacity * 7L) {
+            return;
+        }
+        String[] oldKeys = keys, oldValues = values;
+        long[] oldCtrl = ctrl;
+        int groups = groupMask + 1;
+        while ((count + (long) extra) * 16L >= (long) groups * GROUP * 7L) {
+            groups *= 2;
+        }
+        allocate(groups);
+        for (int i = 0; i < oldKeys.length; i ++) {
+            if (((oldCtrl[i >>> 3] >>> ((i & 7) << 3)) & EMPTY) == 0) {
+                insert(oldKeys[i], oldValues[i], strategy.hash(oldKeys[i]));
+            }
+        }
+    }
+
+    @Override
+    public Probe put(String key, String value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Provided: key=" + key + " and value=" + value);
+        }
+        int h = strategy.hash(key);
+        int[] probes = new int[1];
+        int i = find(key, h, probes);
+        if (i >= 0) {
+            values[i] = value;
+            return new Probe(value, probes[0]);
+        }
+        reserve(1);
+        return new Probe(value, insert(key, value, h));
+    }
+
+    @Override
+    public Probe get(String key) {
+        if (key == null) {
+            return new Probe(null, 0);
+        }
+        int[] probes = new int[1];
+        int i = find(key, strategy.hash(key), probes);
+        return new Probe((i < 0) ? null : values[i], probes[0]);
+    }
+
+    @Override
+    public Probe remove(String key) {
+        if (key == null) {
+            return new Probe(null, 0);
+        }
+        int[] probes = new int[1];
+        int i = find(key, strategy.hash(key), probes);
+        if (i < 0) {
+            return new Probe(null, probes[0]);
+        }
+        String value = values[i];
+        if (groupHasEmpty(i / GROUP)) {
+            setCtrl(i, EMPTY);
+            used --;
+        } else {
+            setCtrl(i, DELETED);
+        }
+        keys[i] = null;
+        values[i] = null;
+        count --;
+        return new Probe(value, probes[0]);
+    }
+
+    /* The slot of key among the eight whose control bytes are word w, or -1. */
+    private int match(String key, int tag, int w, long word) {
+        for (long m = matchTag(word, tag); m != 0; m &= m - 1) {
+            int slot = (w << 3) + (Long.numberOfTrailingZeros(m) >>> 3);
+            String candidate = keys[slot];
+            if (candidate != null && candidate.equals(key)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /* The value of key, the control words of whose first group are w0 and w1. */
+    private String lookup(String key, int h, long w0, long w1) {
+        int tag = h & 0x7F;
+        int g = (h >>> 7) & groupMask;
+        for (int step = 1; ; step ++) {
+            int w = g * WORDS_PER_GROUP;
+            if (step > 1) {
+                w0 = ctrl[w];
+                w1 = ctrl[w + 1];
+            }
+            int slot = match(key, tag, w, w0);
+            if (slot < 0) {
+                slot = match(key, tag, w + 1, w1);
+            }
+            if (slot >= 0) {
+                return values[slot];
+            }
+            if ((matchEmpty(w0) | matchEmpty(w1)) != 0 || step > groupMask) {
+                return null;
+            }
+            g = (g + step) & groupMask;
+        }
+    }
+
+    @Override
+    public void getAll(String[] batch, String[] out, int n) {
+        int[] h = new int[GROUP];
+        long[] w0 = new long[GROUP], w1 = new long[GROUP];
+        for (int from = 0; from < n; from += GROUP) {
+            int m = Math.min(GROUP, n - from);
+            for (int g = 0; g < m; g ++) {
+                String key = batch[from + g];
+                h[g] = (key == null) ? 0 : strategy.hash(key);
+            }
+            for (int g = 0; g < m; g ++) {  // Independent loads: their misses overlap.
+                int w = ((h[g] >>> 7) & groupMask) * WORDS_PER_GROUP;
+                w0[g] = ctrl[w];
+                w1[g] = ctrl[w + 1];
+            }
+            for (int g = 0; g < m; g ++) {
+                String key = batch[from + g];
+                out[from + g] = (key == null) ? null : lookup(key, h[g], w0[g], w1[g]);
+            }
+        }
+    }
+
+    @Override
+    public void putAll(String[] batch, String[] vals, int n) {
+        for (int i = 0; i < n; i ++) {
+            if (batch[i] == null || vals[i] == null) {
+                throw new IllegalArgumentException("Provided: key=" + batch[i] + " and value=" + vals[i]);
+            }
+        }
+        reserve(n);
+        for (int i = 0; i < n; i ++) {
+            put(batch[i], vals[i]);
+        }
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return key != null && find(key, strategy.hash(key), new int[1]) >= 0;
+    }
+
+    @Override
+    public boolean containsValue(String value) {
+        for (int i = 0; i < values.length; i ++) {
+            if (keys[i] != null && values[i].equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public int capacity() {
+        return keys.length;
+    }
+
+    @Override
+    public int tombstones() {
+        return used - count;
+    }
+}
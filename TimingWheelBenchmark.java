@@ -0,0 +1,103 @@
+package benchmarks;
+
+import pqueue.priorityqueues.LinearPriorityQueue;
+import pqueue.priorityqueues.MinHeapPriorityQueue;
+import pqueue.priorityqueues.PriorityQueue;
+import pqueue.priorityqueues.TimingWheelPriorityQueue;
+
+import java.util.Random;
+
+/**
+ * <p>{@link TimingWheelBenchmark} compares {@link TimingWheelPriorityQueue} against {@link LinearPriorityQueue}
+ * and {@link MinHeapPriorityQueue} as timer queues. The queue is filled with n pending deadlines, after which
+ * every operation fires the earliest timer (advancing the clock to its deadline) and schedules a new one a
+ * random delay later.</p>
+ *
+ * <p>Delays go up to 10 seconds or up to one day, in milliseconds. {@link LinearPriorityQueue} only runs with the
+ * shorter delays, since it keeps one bucket per millisecond up to the latest deadline.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see BenchmarkHarness
+ */
+public class TimingWheelBenchmark {
+
+	private static final int OPS = 500_000;
+	private static final int[] SIZES = {10_000, 1_000_000};
+	private static final int SHORT_DELAY = 10_000;
+	private static final int LONG_DELAY = 86_400_000;
+
+	private static PriorityQueue<Integer> create(String name) {
+		switch (name) {
+			case "Linear":
+				return new LinearPriorityQueue<Integer>();
+			case "MinHeap":
+				return new MinHeapPriorityQueue<Integer>();
+			case "TimingWheel":
+				return new TimingWheelPriorityQueue<Integer>();
+			default:
+				throw new IllegalArgumentException("Unknown queue: " + name);
+		}
+	}
+
+	private static final class Timers extends BenchmarkHarness.Workload {
+		private final String queue;
+		private final int n;
+		private final int[] delays = new int[OPS];
+		private final BenchmarkHarness h;
+		private final int[] due;		// The deadline of every timer, by id.
+		private PriorityQueue<Integer> q;
+
+		private Timers(BenchmarkHarness h, String queue, int n, int maxDelay) {
+			this.h = h;
+			this.queue = queue;
+			this.n = n;
+			Random r = new Random(23);
+			for (int i = 0; i < OPS; i ++) {
+				delays[i] = 1 + r.nextInt(maxDelay);
+			}
+			due = new int[n + OPS];
+			for (int i = 0; i < n; i ++) {
+				due[i] = 1 + r.nextInt(maxDelay);
+			}
+		}
+
+		/* About ten firings per timer keeps a day of delays within the int range of priorities. */
+		public int operations() {
+			return Math.min(OPS, 10 * n);
+		}
+
+		public void setUp() throws Exception {
+			q = create(queue);
+			for (int i = 0; i < n; i ++) {
+				q.enqueue(i, due[i]);
+			}
+		}
+
+		public void op(int i) throws Exception {
+			int now = due[q.dequeue()];
+			int id = n + i;
+			due[id] = now + delays[i];
+			q.enqueue(id, due[id]);
+		}
+	}
+
+	public static void run(BenchmarkHarness h) throws Exception {
+		for (int n : SIZES) {
+			for (String queue : new String[] {"Linear", "MinHeap", "TimingWheel"}) {
+				h.run(String.format("timers %s n=%d delay<=%d", queue, n, SHORT_DELAY),
+						new Timers(h, queue, n, SHORT_DELAY));
+			}
+			for (String queue : new String[] {"MinHeap", "TimingWheel"}) {
+				h.run(String.format("timers %s n=%d delay<=%d", queue, n, LONG_DELAY),
+						new Timers(h, queue, n, LONG_DELAY));
+			}
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		BenchmarkHarness h = new BenchmarkHarness();
+		h.header();
+		run(h);
+	}
+}
@@ -0,0 +1,343 @@
+package pqueue.priorityqueues;
+
+import pqueue.exceptions.*;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>{@link TimingWheelPriorityQueue} is a {@link PriorityQueue} implemented as a hierarchical timing wheel, for
+ * priorities that span the whole positive {@code int} range, such as millisecond deadlines days apart. Both
+ * {@link #enqueue(Object, int)} and {@link #dequeue()} take amortized constant time, whatever the number of
+ * elements or the spread of their priorities. Elements with the same priority are dequeued in the order in
+ * which they were enqueued.</p>
+ *
+ * <p>The wheel has {@value #LEVELS} levels of {@value #SLOTS} slots, one per byte of a priority. The queue keeps
+ * a <em>base</em> priority, no greater than any priority it holds. An element is stored on the level of the
+ * highest byte in which its priority differs from the base, in the slot given by that byte, so level 0 holds
+ * one exact priority per slot and every higher slot a whole range of them. When level 0 runs out, the lowest
+ * occupied slot of the next non-empty level is <em>cascaded</em>: the base moves to the start of its range and
+ * its elements are redistributed over the (empty) lower levels. An element cascades at most
+ * {@value #LEVELS} - 1 times.</p>
+ *
+ * <p>An element whose priority is lower than the base (which is the priority of the last element dequeued, or of
+ * one enqueued later) cannot be placed on the wheel. It goes to a binary heap on the side instead, in logarithmic
+ * time, and is dequeued from there before anything on the wheel. Deadline-driven use never does that; with random
+ * priorities, the elements that arrive late go through the side heap, and the others through the wheel.</p>
+ *
+ * <p>Elements on the wheel are kept in intrusive linked lists of entries, and dequeued entries are pooled for
+ * reuse, so a queue in steady state allocates nothing. The iterator returns the elements in no particular order,
+ * apart from FIFO order among elements with the same priority on the wheel, and is fail-fast.</p>
+ *
+ * @param <T> The type held by the container.
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see LinearPriorityQueue
+ * @see MinHeapPriorityQueue
+ * @see PriorityQueue
+ */
+public class TimingWheelPriorityQueue<T> implements PriorityQueue<T> {
+
+	private static final int LEVELS = 4;
+	private static final int SLOT_BITS = 8;
+	private static final int SLOTS = 1 << SLOT_BITS;
+	private static final int SLOT_MASK = SLOTS - 1;
+	private static final int WORDS = SLOTS >>> 6;
+	private static final int POOL_LIMIT = 4096;
+	private static final int INITIAL_BELOW = 16;
+
+	private static final class Entry<T> {
+		private T element;
+		private int priority;
+		private long order;	// Enqueue order, which breaks ties between equal priorities in the side heap.
+		private Entry<T> next;
+	}
+
+	/* Slot s of level l is heads[l * SLOTS + s] ... tails[l * SLOTS + s], with bit s of occupied[l * WORDS ...]. */
+	private final Entry<T>[] heads, tails;
+	private final long[] occupied;
+	private int base, count, modCount;
+	private Entry<T> pool;
+	private int pooled;
+	/* Binary min-heap, by priority then order, of the entries enqueued below the base: below[0 .. belowCount). */
+	private Entry<T>[] below;
+	private int belowCount;
+	private long enqueued;
+
+	/**
+	 * Simple default constructor.
+	 */
+	@SuppressWarnings("unchecked")
+	public TimingWheelPriorityQueue() {
+		heads = (Entry<T>[]) new Entry[LEVELS * SLOTS];
+		tails = (Entry<T>[]) new Entry[LEVELS * SLOTS];
+		occupied = new long[LEVELS * WORDS];
+		below = (Entry<T>[]) new Entry[INITIAL_BELOW];
+		base = 1;
+	}
+
+	private static int levelOf(int priority, int base) {
+		int diff = priority ^ base;
+		return (diff == 0) ? 0 : (31 - Integer.numberOfLeadingZeros(diff)) / SLOT_BITS;
+	}
+
+	/* Appends e to the slot its priority belongs to, relative to the current base. */
+	private void place(Entry<T> e) {
+		int level = levelOf(e.priority, base);
+		int slot = (e.priority >>> (level * SLOT_BITS)) & SLOT_MASK;
+		int i = level * SLOTS + slot;
+		e.next = null;
+		if (heads[i] == null) {
+			heads[i] = e;
+			occupied[level * WORDS + (slot >>> 6)] |= 1L << slot;
+		} else {
+			tails[i].next = e;
+		}
+		tails[i] = e;
+	}
+
+	/* Detaches and returns the list of slot i of level, clearing its bit. */
+	private Entry<T> take(int level, int slot) {
+		int i = level * SLOTS + slot;
+		Entry<T> e = heads[i];
+		heads[i] = null;
+		tails[i] = null;
+		occupied[level * WORDS + (slot >>> 6)] &= ~(1L << slot);
+		return e;
+	}
+
+	/* The lowest occupied slot of level, or -1. */
+	private int firstSlot(int level) {
+		for (int w = 0; w < WORDS; w ++) {
+			long bits = occupied[level * WORDS + w];
+			if (bits != 0) {
+				return (w << 6) + Long.numberOfTrailingZeros(bits);
+			}
+		}
+		return -1;
+	}
+
+	/* Cascades until level 0 holds the lowest priority, and returns its slot. Requires a non-empty wheel. */
+	private int settle() {
+		int slot = firstSlot(0);
+		if (slot < 0) {
+			modCount ++;	// Entries move between slots, under any iterator.
+		}
+		while (slot < 0) {
+			int level = 1;
+			int s = firstSlot(level);
+			while (s < 0) {
+				s = firstSlot(++ level);
+			}
+			int shift = level * SLOT_BITS;
+			int high = (shift + SLOT_BITS >= 32) ? 0 : (base >>> (shift + SLOT_BITS)) << (shift + SLOT_BITS);
+			base = high | (s << shift);
+			for (Entry<T> e = take(level, s), next; e != null; e = next) {
+				next = e.next;
+				place(e);
+			}
+			slot = firstSlot(0);
+		}
+		return slot;
+	}
+
+	private static boolean before(Entry<?> a, Entry<?> b) {
+		return a.priority < b.priority || (a.priority == b.priority && a.order < b.order);
+	}
+
+	/* Adds e to the side heap. */
+	private void pushBelow(Entry<T> e) {
+		if (belowCount == below.length) {
+			below = Arrays.copyOf(below, 2 * below.length);
+		}
+		int i = belowCount ++;
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (!before(e, below[parent])) {
+				break;
+			}
+			below[i] = below[parent];
+			i = parent;
+		}
+		below[i] = e;
+	}
+
+	/* Removes and returns the root of the side heap. Requires a non-empty side heap. */
+	private Entry<T> popBelow() {
+		Entry<T> res = below[0];
+		Entry<T> last = below[-- belowCount];
+		below[belowCount] = null;
+		int i = 0;
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= belowCount) {
+				break;
+			}
+			if (child + 1 < belowCount && before(below[child + 1], below[child])) {
+				child ++;
+			}
+			if (!before(below[child], last)) {
+				break;
+			}
+			below[i] = below[child];
+			i = child;
+		}
+		if (belowCount > 0) {
+			below[i] = last;
+		}
+		return res;
+	}
+
+	private Entry<T> newEntry(T element, int priority) {
+		Entry<T> e = pool;
+		if (e == null) {
+			e = new Entry<T>();
+		} else {
+			pool = e.next;
+			pooled --;
+		}
+		e.element = element;
+		e.priority = priority;
+		e.order = enqueued ++;
+		return e;
+	}
+
+	private void recycle(Entry<T> e) {
+		e.element = null;
+		if (pooled < POOL_LIMIT) {
+			e.next = pool;
+			pool = e;
+			pooled ++;
+		}
+	}
+
+	@Override
+	public void enqueue(T element, int priority) throws InvalidPriorityException {
+		if (priority <= 0) {
+			throw new InvalidPriorityException("Priority must be >= 1");
+		}
+		if (count == belowCount) {	// The wheel is empty.
+			base = (belowCount == 0) ? priority : Math.max(base, priority);
+		}
+		if (priority < base) {
+			pushBelow(newEntry(element, priority));
+		} else {
+			place(newEntry(element, priority));
+		}
+		count ++;
+		modCount ++;
+	}
+
+	@Override
+	public T dequeue() throws EmptyPriorityQueueException {
+		if (count == 0) {
+			throw EmptyPriorityQueueExceptions.empty();
+		}
+		return poll();
+	}
+
+	@Override
+	public T getFirst() throws EmptyPriorityQueueException {
+		if (count == 0) {
+			throw EmptyPriorityQueueExceptions.empty();
+		}
+		return peek();
+	}
+
+	/**
+	 * Returns <b>and deletes</b> the top element of the PriorityQueue, without throwing when it is empty.
+	 * @return The element at the top of the PriorityQueue, or {@code null} if it is empty.
+	 */
+	public T poll() {
+		if (count == 0) {
+			return null;
+		}
+		Entry<T> e;
+		if (belowCount > 0) {	// Everything in the side heap is below the base, hence below the wheel.
+			e = popBelow();
+		} else {
+			int slot = settle();
+			e = heads[slot];
+			heads[slot] = e.next;
+			if (e.next == null) {
+				take(0, slot);
+			}
+			base = e.priority;
+		}
+		count --;
+		modCount ++;
+		T res = e.element;
+		recycle(e);
+		return res;
+	}
+
+	/**
+	 * Returns, <b>but does not delete</b> the top element of the PriorityQueue, without throwing when it is empty.
+	 * @return The element at the top of the PriorityQueue, or {@code null} if it is empty.
+	 */
+	public T peek() {
+		if (count == 0) {
+			return null;
+		}
+		if (belowCount > 0) {
+			return below[0].element;
+		}
+		return heads[settle()].element;
+	}
+
+	@Override
+	public int size() {
+		return count;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	private class WheelIterator implements Iterator<T> {
+		private final int expectedModCount = modCount;
+		private int index = -1;
+		private Entry<T> next;
+
+		private WheelIterator() {
+			advance();
+		}
+
+		/* Walks the slots of the wheel, then the side heap, whose entries are at heads.length + their index. */
+		private void advance() {
+			if (next != null && index < heads.length) {
+				next = next.next;
+			} else {
+				next = null;
+			}
+			while (next == null && ++ index < heads.length + belowCount) {
+				next = (index < heads.length) ? heads[index] : below[index - heads.length];
+			}
+		}
+
+		public boolean hasNext() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException("Queue was modified during iteration.");
+			}
+			return next != null;
+		}
+
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			T res = next.element;
+			advance();
+			return res;
+		}
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return new WheelIterator();
+	}
+}
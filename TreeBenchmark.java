@@ -0,0 +1,167 @@
+package benchmarks;
+
+import avlg.AVLGTree;
+import bpt.BinaryPatriciaTrie;
+
+import java.util.Random;
+
+/**
+ * <p>{@link TreeBenchmark} covers the ordered, in-memory trees: {@link AVLGTree} insertion, search and deletion for
+ * several imbalance parameters G, and {@link BinaryPatriciaTrie} insertion and search over random bit strings of
+ * several lengths.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see BenchmarkHarness
+ */
+public class TreeBenchmark {
+
+	private static final int[] SIZES = {10_000, 100_000};
+	private static final int[] IMBALANCES = {1, 2, 3, 5};
+	private static final int[] BIT_LENGTHS = {16, 32, 64};
+	private static final int DELETES = 2_000;	// Deletion recomputes subtree heights, so keep the count bounded.
+
+	private static String bits(Random r, int len) {
+		char[] c = new char[len];
+		for (int i = 0; i < len; i ++) {
+			c[i] = r.nextBoolean() ? '1' : '0';
+		}
+		return new String(c);
+	}
+
+	private static void avlg(final BenchmarkHarness h) throws Exception {
+		for (final int n : SIZES) {
+			final Integer[] keys = new Integer[n];
+			Random r = new Random(5);
+			for (int i = 0; i < n; i ++) {
+				keys[i] = r.nextInt();
+			}
+			for (final int g : IMBALANCES) {
+				String label = String.format("avlg G=%d n=%d", g, n);
+
+				h.run(label + " insert", new BenchmarkHarness.Workload() {
+					private AVLGTree<Integer> tree;
+
+					public int operations() {
+						return n;
+					}
+
+					public void setUp() throws Exception {
+						tree = new AVLGTree<Integer>(g);
+					}
+
+					public void op(int i) {
+						tree.insert(keys[i]);
+					}
+				});
+
+				h.run(label + " search", new BenchmarkHarness.Workload() {
+					private AVLGTree<Integer> tree;
+
+					public int operations() {
+						return n;
+					}
+
+					public void setUp() throws Exception {
+						if (tree == null) {
+							tree = new AVLGTree<Integer>(g);
+							for (Integer k : keys) {
+								tree.insert(k);
+							}
+						}
+					}
+
+					public void op(int i) throws Exception {
+						h.consume(tree.search(keys[(i * 7919) % n]) == null ? 0 : 1);
+					}
+				});
+
+				h.run(label + " delete", new BenchmarkHarness.Workload() {
+					private AVLGTree<Integer> tree;
+
+					public int operations() {
+						return Math.min(n, DELETES);
+					}
+
+					public void setUp() throws Exception {
+						tree = new AVLGTree<Integer>(g);
+						for (Integer k : keys) {
+							tree.insert(k);
+						}
+					}
+
+					public void op(int i) throws Exception {
+						if (!tree.isEmpty()) {
+							tree.delete(keys[i]);
+						}
+					}
+				});
+			}
+		}
+	}
+
+	private static void patricia(final BenchmarkHarness h) throws Exception {
+		for (final int n : SIZES) {
+			for (final int len : BIT_LENGTHS) {
+				final String[] keys = new String[n];
+				final String[] probes = new String[n];
+				Random r = new Random(len);
+				for (int i = 0; i < n; i ++) {
+					keys[i] = bits(r, 1 + r.nextInt(len));
+				}
+				for (int i = 0; i < n; i ++) {
+					probes[i] = ((i & 1) == 0) ? keys[r.nextInt(n)] : bits(r, 1 + r.nextInt(len));
+				}
+				String label = String.format("bpt bits<=%d n=%d", len, n);
+
+				h.run(label + " insert", new BenchmarkHarness.Workload() {
+					private BinaryPatriciaTrie trie;
+
+					public int operations() {
+						return n;
+					}
+
+					public void setUp() {
+						trie = new BinaryPatriciaTrie();
+					}
+
+					public void op(int i) {
+						trie.insert(keys[i]);
+					}
+				});
+
+				h.run(label + " search", new BenchmarkHarness.Workload() {
+					private BinaryPatriciaTrie trie;
+
+					public int operations() {
+						return n;
+					}
+
+					public void setUp() {
+						if (trie == null) {
+							trie = new BinaryPatriciaTrie();
+							for (String k : keys) {
+								trie.insert(k);
+							}
+						}
+					}
+
+					public void op(int i) {
+						h.consume(trie.search(probes[i]) ? 1 : 0);
+					}
+				});
+			}
+		}
+	}
+
+	public static void run(BenchmarkHarness h) throws Exception {
+		avlg(h);
+		patricia(h);
+	}
+
+	public static void main(String[] args) throws Exception {
+		BenchmarkHarness h = new BenchmarkHarness();
+		h.header();
+		run(h);
+	}
+}
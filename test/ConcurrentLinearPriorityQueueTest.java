@@ -0,0 +1,211 @@
+package pqueue.priorityqueues;
+
+import org.junit.Test;
+import pqueue.exceptions.InvalidPriorityException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * <p>Multithreaded stress tests for {@link ConcurrentLinearPriorityQueue}. Producers enqueue elements that encode
+ * who made them, in which order, and with which priority, so that consumers can check that nothing is lost or
+ * duplicated, that FIFO order holds within a priority, and that strict mode dequeues in priority order.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see ConcurrentLinearPriorityQueue
+ */
+public class ConcurrentLinearPriorityQueueTest {
+
+	private static final int PRODUCERS = 4;
+	private static final int CONSUMERS = 4;
+	private static final int PER_PRODUCER = 50000;
+	private static final int PRIORITIES = 64;
+	private static final int FAR = 1500;	// Offset of the priorities that land in a later page.
+	private static final long TIMEOUT = 60000;
+
+	/* An element: the producer that made it, its sequence number for that producer, and its priority. */
+	private static final class Item {
+		private final int producer, seq, priority;
+
+		private Item(int producer, int seq, int priority) {
+			this.producer = producer;
+			this.seq = seq;
+			this.priority = priority;
+		}
+	}
+
+	/* Spreads priorities so that consecutive elements of a producer rarely share a bucket, including the pages
+	 * above the first one. */
+	private static int priorityOf(int producer, int seq) {
+		int p = 1 + (seq * 31 + producer * 7) % PRIORITIES;
+		return (seq % 16 == 0) ? p + FAR : p;
+	}
+
+	/* Runs every task on its own thread, all released at once, and rethrows the first failure. */
+	private static void runAll(List<Runnable> tasks) throws InterruptedException {
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		List<Thread> threads = new ArrayList<Thread>();
+		for (final Runnable task : tasks) {
+			Thread t = new Thread(new Runnable() {
+				public void run() {
+					try {
+						start.await();
+						task.run();
+					} catch (Throwable e) {
+						failure.compareAndSet(null, e);
+					}
+				}
+			});
+			t.start();
+			threads.add(t);
+		}
+		start.countDown();
+		for (Thread t : threads) {
+			t.join();
+		}
+		if (failure.get() != null) {
+			throw new AssertionError(failure.get());
+		}
+	}
+
+	private static Runnable producer(final ConcurrentLinearPriorityQueue<Item> queue, final int id) {
+		return new Runnable() {
+			public void run() {
+				for (int seq = 0; seq < PER_PRODUCER; seq ++) {
+					try {
+						queue.enqueue(new Item(id, seq, priorityOf(id, seq)), priorityOf(id, seq));
+					} catch (InvalidPriorityException e) {
+						throw new IllegalStateException(e);
+					}
+				}
+			}
+		};
+	}
+
+	/* Consumes until all the elements of all producers were taken; each consumer records what it got, in order. */
+	private static Runnable consumer(final ConcurrentLinearPriorityQueue<Item> queue, final AtomicInteger taken,
+			final List<Item> got) {
+		return new Runnable() {
+			public void run() {
+				while (taken.get() < PRODUCERS * PER_PRODUCER) {
+					Item item = queue.poll();
+					if (item == null) {
+						Thread.yield();
+					} else {
+						got.add(item);
+						taken.incrementAndGet();
+					}
+				}
+			}
+		};
+	}
+
+	/* Checks that the consumers got every element exactly once, each of them in FIFO order within a priority. */
+	private static void checkAllOnceInFifoOrder(List<List<Item>> consumed) {
+		boolean[][] seen = new boolean[PRODUCERS][PER_PRODUCER];
+		for (List<Item> got : consumed) {
+			int[][] last = new int[PRODUCERS][PRIORITIES + FAR + 1];
+			for (int[] row : last) {
+				Arrays.fill(row, -1);
+			}
+			for (Item item : got) {
+				assertFalse("Duplicated element " + item.producer + "/" + item.seq, seen[item.producer][item.seq]);
+				seen[item.producer][item.seq] = true;
+				assertTrue("FIFO order broken within priority " + item.priority,
+						last[item.producer][item.priority] < item.seq);
+				last[item.producer][item.priority] = item.seq;
+			}
+		}
+		for (int p = 0; p < PRODUCERS; p ++) {
+			for (int s = 0; s < PER_PRODUCER; s ++) {
+				assertTrue("Lost element " + p + "/" + s, seen[p][s]);
+			}
+		}
+	}
+
+	private void produceAndConsume(boolean relaxed) throws InterruptedException {
+		ConcurrentLinearPriorityQueue<Item> queue = new ConcurrentLinearPriorityQueue<Item>(relaxed);
+		AtomicInteger taken = new AtomicInteger();
+		List<Runnable> tasks = new ArrayList<Runnable>();
+		List<List<Item>> consumed = new ArrayList<List<Item>>();
+		for (int i = 0; i < PRODUCERS; i ++) {
+			tasks.add(producer(queue, i));
+		}
+		for (int i = 0; i < CONSUMERS; i ++) {
+			List<Item> got = new ArrayList<Item>();
+			consumed.add(got);
+			tasks.add(consumer(queue, taken, got));
+		}
+		runAll(tasks);
+		checkAllOnceInFifoOrder(consumed);
+		assertTrue(queue.isEmpty());
+		assertNull(queue.poll());
+	}
+
+	@Test(timeout = TIMEOUT)
+	public void strictProducersAndConsumersNeitherLoseNorDuplicate() throws InterruptedException {
+		produceAndConsume(false);
+	}
+
+	@Test(timeout = TIMEOUT)
+	public void relaxedProducersAndConsumersNeitherLoseNorDuplicate() throws InterruptedException {
+		produceAndConsume(true);
+	}
+
+	/**
+	 * Once the producers are done, concurrent consumers of a strict queue must each see non-decreasing
+	 * priorities: no consumer may take an element while a lower priority still holds one.
+	 */
+	@Test(timeout = TIMEOUT)
+	public void strictConsumersDequeueInPriorityOrder() throws InterruptedException {
+		ConcurrentLinearPriorityQueue<Item> queue = new ConcurrentLinearPriorityQueue<Item>();
+		List<Runnable> tasks = new ArrayList<Runnable>();
+		for (int i = 0; i < PRODUCERS; i ++) {
+			tasks.add(producer(queue, i));
+		}
+		runAll(tasks);
+		assertEquals(PRODUCERS * PER_PRODUCER, queue.size());
+
+		AtomicInteger taken = new AtomicInteger();
+		List<List<Item>> consumed = new ArrayList<List<Item>>();
+		tasks.clear();
+		for (int i = 0; i < CONSUMERS; i ++) {
+			List<Item> got = new ArrayList<Item>();
+			consumed.add(got);
+			tasks.add(consumer(queue, taken, got));
+		}
+		runAll(tasks);
+		checkAllOnceInFifoOrder(consumed);
+		for (List<Item> got : consumed) {
+			for (int i = 1; i < got.size(); i ++) {
+				assertTrue("Priority " + got.get(i).priority + " dequeued after " + got.get(i - 1).priority,
+						got.get(i - 1).priority <= got.get(i).priority);
+			}
+		}
+	}
+
+	/* Priorities that only go up, like deadlines, cross a new page on every enqueue. */
+	@Test(timeout = TIMEOUT)
+	public void risingPrioritiesReachTheLastPage() throws InvalidPriorityException {
+		ConcurrentLinearPriorityQueue<Integer> queue = new ConcurrentLinearPriorityQueue<Integer>();
+		int step = 1024;
+		for (int i = 1; i <= ConcurrentLinearPriorityQueue.MAX_PRIORITY / step; i ++) {
+			queue.enqueue(i, i * step);
+			assertEquals(Integer.valueOf(i), queue.poll());
+		}
+		assertTrue(queue.isEmpty());
+	}
+
+	@Test(expected = InvalidPriorityException.class)
+	public void prioritiesAboveTheMaximumAreRejected() throws InvalidPriorityException {
+		new ConcurrentLinearPriorityQueue<Integer>().enqueue(1, ConcurrentLinearPriorityQueue.MAX_PRIORITY + 1);
+	}
+}
@@ -0,0 +1,21 @@
+package phonebook;
+
+import org.junit.Test;
+import phonebook.hashes.CollisionResolver;
+
+/**
+ * <p>Tests the arguments that the constructors of {@link Phonebook} reject whatever the other table is, so they
+ * run once instead of once per pair of {@link CollisionResolver}s like {@link PhonebookTest} does.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see Phonebook
+ * @see PhonebookTest
+ */
+public class PhonebookConstructorTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void packedNumbersAreRejectedForNames() {
+        new Phonebook(CollisionResolver.PACKED_NUMBERS, CollisionResolver.ROBIN_HOOD);
+    }
+}
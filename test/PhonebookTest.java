@@ -0,0 +1,174 @@
+package phonebook;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import phonebook.hashes.CollisionResolver;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * <p>Tests {@link Phonebook} over every pair of {@link CollisionResolver}s: the table with names as keys and the
+ * table with numbers as keys must agree with each other, and with a {@link HashMap}, through adds, lookups and
+ * deletes, including the delete and insert churn that leaves tombstones or shifts entries back.</p>
+ *
+ * @author  ---- Shane Purnell ----
+ *
+ * @see Phonebook
+ * @see CollisionResolver
+ */
+@RunWith(Parameterized.class)
+public class PhonebookTest {
+
+    private static final int ENTRIES = 2000;
+    private static final int CHURN = 20000;
+
+    private final CollisionResolver namesToNumbers, numbersToNames;
+
+    public PhonebookTest(CollisionResolver namesToNumbers, CollisionResolver numbersToNames) {
+        this.namesToNumbers = namesToNumbers;
+        this.numbersToNames = numbersToNames;
+    }
+
+    @Parameterized.Parameters(name = "{0} x {1}")
+    public static Collection<Object[]> resolverPairs() {
+        List<Object[]> pairs = new ArrayList<Object[]>();
+        for (CollisionResolver names : CollisionResolver.values()) {
+            if (names == CollisionResolver.PACKED_NUMBERS) {
+                continue;   // Only for numbers: see PhonebookConstructorTest.
+            }
+            for (CollisionResolver numbers : CollisionResolver.values()) {
+                pairs.add(new Object[] {names, numbers});
+            }
+        }
+        return pairs;
+    }
+
+    private static String name(int i) {
+        return "Person " + i;
+    }
+
+    private static String number(int i) {
+        return String.format("301%07d", i);
+    }
+
+    private void addAndFindBothWays(Phonebook pb) {
+        assertTrue(pb.isEmpty());
+        for (int i = 0; i < ENTRIES; i ++) {
+            pb.addEntry(name(i), number(i));
+        }
+        assertEquals(ENTRIES, pb.size());
+        for (int i = 0; i < ENTRIES; i ++) {
+            assertEquals(number(i), pb.getNumberOf(name(i)));
+            assertEquals(name(i), pb.getOwnerOf(number(i)));
+        }
+        assertNull(pb.getNumberOf(name(ENTRIES)));
+        assertNull(pb.getOwnerOf(number(ENTRIES)));
+        assertNull(pb.getNumberOf(null));
+        assertNull(pb.getOwnerOf(null));
+    }
+
+    @Test
+    public void addedEntriesAreFoundBothWays() {
+        addAndFindBothWays(new Phonebook(namesToNumbers, numbersToNames));
+    }
+
+    @Test
+    public void deletedEntriesAreGoneBothWays() {
+        Phonebook pb = new Phonebook(namesToNumbers, numbersToNames);
+        addAndFindBothWays(pb);
+        for (int i = 0; i < ENTRIES; i += 2) {
+            pb.deleteEntry(name(i), number(i));
+        }
+        assertEquals(ENTRIES / 2, pb.size());
+        for (int i = 0; i < ENTRIES; i ++) {
+            assertEquals((i % 2 == 0) ? null : number(i), pb.getNumberOf(name(i)));
+            assertEquals((i % 2 == 0) ? null : name(i), pb.getOwnerOf(number(i)));
+        }
+        pb.deleteEntry(name(0), number(0));     // Not there any more: no effect.
+        assertEquals(ENTRIES / 2, pb.size());
+        for (int i = 1; i < ENTRIES; i += 2) {
+            pb.deleteEntry(name(i), number(i));
+        }
+        assertTrue(pb.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullNamesAreRejected() {
+        new Phonebook(namesToNumbers, numbersToNames).addEntry(null, number(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullNumbersAreRejected() {
+        new Phonebook(namesToNumbers, numbersToNames).addEntry(name(0), null);
+    }
+
+    /* Random adds and deletes over a small population, checked against a map after every step. */
+    private void churn(Phonebook pb) {
+        Random random = new Random(namesToNumbers.ordinal() * 31 + numbersToNames.ordinal());
+        Map<Integer, Boolean> present = new HashMap<Integer, Boolean>();
+        int size = 0;
+        for (int step = 0; step < CHURN; step ++) {
+            int i = random.nextInt(ENTRIES / 4);
+            boolean in = Boolean.TRUE.equals(present.get(i));
+            if (in) {
+                pb.deleteEntry(name(i), number(i));
+                size --;
+            } else {
+                pb.addEntry(name(i), number(i));
+                size ++;
+            }
+            present.put(i, !in);
+            assertEquals(size, pb.size());
+            assertEquals(in ? null : number(i), pb.getNumberOf(name(i)));
+            assertEquals(in ? null : name(i), pb.getOwnerOf(number(i)));
+        }
+        for (Map.Entry<Integer, Boolean> e : present.entrySet()) {
+            assertEquals(e.getValue() ? number(e.getKey()) : null, pb.getNumberOf(name(e.getKey())));
+            assertEquals(e.getValue() ? name(e.getKey()) : null, pb.getOwnerOf(number(e.getKey())));
+        }
+    }
+
+    @Test
+    public void churnKeepsBothTablesInAgreement() {
+        churn(new Phonebook(namesToNumbers, numbersToNames));
+    }
+
+    @Test
+    public void churnKeepsIncrementallyResizedTablesInAgreement() {
+        churn(new Phonebook(namesToNumbers, numbersToNames, true));
+    }
+
+    private static boolean rejectsSeeds(CollisionResolver resolver, boolean incrementalResize) {
+        return resolver == CollisionResolver.SEPARATE_CHAINING || (!incrementalResize
+                && (resolver == CollisionResolver.LINEAR_PROBING || resolver == CollisionResolver.ORDERED_LINEAR_PROBING
+                || resolver == CollisionResolver.QUADRATIC_PROBING));
+    }
+
+    private void churnWithSeeds(boolean incrementalResize) {
+        Phonebook pb;
+        try {
+            pb = new Phonebook(namesToNumbers, numbersToNames, incrementalResize, true);
+        } catch (IllegalArgumentException e) {
+            assertTrue("Seeded hashes rejected for " + namesToNumbers + " x " + numbersToNames,
+                    rejectsSeeds(namesToNumbers, incrementalResize) || rejectsSeeds(numbersToNames, incrementalResize));
+            return;
+        }
+        assertFalse("Seeded hashes accepted for " + namesToNumbers + " x " + numbersToNames,
+                rejectsSeeds(namesToNumbers, incrementalResize) || rejectsSeeds(numbersToNames, incrementalResize));
+        churn(pb);
+    }
+
+    @Test
+    public void seededHashesAreHonoredOrRejected() {
+        churnWithSeeds(false);
+        churnWithSeeds(true);
+    }
+}